@@ -0,0 +1,60 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.output.AsyncOutputSink;
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.output.OutputSink;
+import com.naveen.jukebox.output.WaitStrategy;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures what writing a result costs the thread executing commands: writing a playing song in the text format
+ * directly, and handing it to the writer thread of an {@link AsyncOutputSink} with each {@link WaitStrategy}.
+ * <p>
+ * The writer discards its output, so the ring only fills up when the writer falls behind the producer. The state
+ * of the ring, including its high-water mark and how often the producer had to wait, is printed after each trial.
+ * {@code BUSY_SPIN} needs a core for the writer and is misleading on machines with fewer than two.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncOutputBenchmark {
+
+    @Param({"DIRECT", "BUSY_SPIN", "YIELD", "PARK"})
+    String mode;
+
+    private OutputSink sink;
+    private Songs song;
+
+    @Setup(Level.Trial)
+    public void openSink() throws IOException {
+        OutputSink text = OutputFormat.TEXT.open(OutputStream.nullOutputStream());
+        sink = mode.equals("DIRECT") ? text
+                : new AsyncOutputSink(text, new PrintStream(OutputStream.nullOutputStream()),
+                        AsyncOutputSink.DEFAULT_CAPACITY, WaitStrategy.valueOf(mode));
+        song = BenchmarkData.song(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSink() throws IOException {
+        sink.close();
+        if (sink instanceof AsyncOutputSink async) {
+            System.out.printf("%n%s%n", async.report());
+        }
+    }
+
+    @Benchmark
+    public void playing() throws IOException {
+        sink.playing(Opcode.PLAY_SONG, song);
+    }
+}
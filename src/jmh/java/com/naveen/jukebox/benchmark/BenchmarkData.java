@@ -0,0 +1,116 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.repository.CatalogBuilder;
+import com.naveen.jukebox.repository.SongsRepository;
+
+/**
+ * Builds synthetic catalogs for the benchmarks.
+ * <p>
+ * Song {@code n} is titled with two of {@value #WORDS} made-up words and belongs to one of {@value #ALBUMS} albums
+ * by one of {@value #ARTISTS} artists, with up to three collaborators, which is roughly the shape of a real catalog:
+ * many songs, few distinct names, and title words that are each shared by a few hundred songs per million.
+ * </p>
+ */
+final class BenchmarkData {
+
+    static final int ALBUMS = 5_000;
+    static final int ARTISTS = 2_000;
+    static final int WORDS = 4_096;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo"};
+    private static final String[] GENRES = {"Pop", "Rock", "Jazz", "Hip-Hop", "Classical", "Country"};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Writes a catalog of songs with IDs 1 to {@code size} in the CSV format of {@code LOAD-DATA}.
+     *
+     * @param size The number of songs.
+     * @return The path of the new temporary file.
+     * @throws IOException if the file cannot be written.
+     */
+    static Path writeCatalog(int size) throws IOException {
+        Path path = Files.createTempFile("jukebox-catalog-" + size + "-", ".csv");
+        path.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int id = 1; id <= size; id++) {
+                Songs song = song(id);
+                writer.write(id + "," + song.getTitle() + "," + song.getGenre() + "," + song.getAlbum() + ","
+                        + song.getOwner() + "," + String.join("#", song.getCollaboration()));
+                writer.newLine();
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Loads a catalog of songs with IDs 1 to {@code size} straight into the repository, without parsing a file.
+     *
+     * @param size The number of songs.
+     */
+    static void loadCatalog(int size) {
+        SongsRepository repository = new SongsRepository();
+        CatalogBuilder catalog = repository.newCatalog();
+        List<Songs> batch = new ArrayList<>(65_536);
+        for (int id = 1; id <= size; id++) {
+            batch.add(song(id));
+            if (batch.size() == 65_536) {
+                catalog.addAll(batch);
+                batch.clear();
+            }
+        }
+        catalog.addAll(batch);
+        repository.publish(catalog);
+    }
+
+    /**
+     * @param id The ID of the song.
+     * @return The synthetic song with this ID.
+     */
+    static Songs song(int id) {
+        String artist = "Artist " + (id % ARTISTS);
+        List<String> collaborators = new ArrayList<>(3);
+        collaborators.add(artist);
+        for (int i = 1; i < 1 + id % 3; i++) {
+            collaborators.add("Artist " + ((id + i * 7) % ARTISTS));
+        }
+        return new Songs(id, title(id), GENRES[id % GENRES.length], "Album " + (id % ALBUMS), artist,
+                collaborators);
+    }
+
+    /**
+     * @param id The ID of the song.
+     * @return The title of the synthetic song with this ID.
+     */
+    static String title(int id) {
+        int first = id % WORDS;
+        int second = (id / WORDS + first * 31) % WORDS;
+        return capitalize(word(first)) + " " + word(second);
+    }
+
+    /**
+     * @param n A number below {@value #WORDS}.
+     * @return The made-up word with this number, four syllables long.
+     */
+    static String word(int n) {
+        StringBuilder word = new StringBuilder(8);
+        for (int i = 0; i < 4; i++) {
+            word.append(SYLLABLES[n & 7]);
+            n >>>= 3;
+        }
+        return word.toString();
+    }
+
+    static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.naveen.jukebox.benchmark;
+
+import com.naveen.jukebox.repository.SongsRepository;
+
+/**
+ * Reports the heap retained by a loaded catalog, in total and per song.
+ * <p>
+ * JMH measures time and allocation, not what stays on the heap, so this is a plain program: it loads a synthetic
+ * catalog of each requested size into the {@link SongsRepository} and compares the used heap before and after, each
+ * measured after a full collection. Sizes are cumulative within one run, so each line reports the growth from the
+ * previous size. The retained heap includes the search index, whose own estimated size is reported alongside. Pass
+ * the sizes as arguments, e.g. {@code 100000 1000000 10000000}.
+ * </p>
+ */
+public class CatalogFootprint {
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] sizes = args.length == 0 ? new String[]{"10000", "100000", "1000000"} : args;
+        int loaded = 0;
+        long before = usedHeap();
+        for (String arg : sizes) {
+            int size = Integer.parseInt(arg);
+            BenchmarkData.loadCatalog(size);
+            long after = usedHeap();
+            int added = size - loaded;
+            long index = new SongsRepository().getSearchIndex().estimateBytes();
+            System.out.printf("%,d songs: %,d bytes retained, %.1f bytes per song, search index about %,d bytes%n",
+                    size, after - before, added > 0 ? (double) (after - before) / added : 0.0, index);
+            loaded = Math.max(loaded, size);
+            before = after;
+        }
+    }
+
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
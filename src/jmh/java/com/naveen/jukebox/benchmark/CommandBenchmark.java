@@ -0,0 +1,87 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.command.CommandParser;
+import com.naveen.jukebox.command.JukeboxCommands;
+import com.naveen.jukebox.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures command handling end to end through {@link JukeboxCommands#mainOperations}, and the cost of parsing
+ * alone with {@link CommandParser} against the {@code String.split} it replaced. Run with the {@code gc} profiler,
+ * as configured in the build, to see the bytes allocated per command.
+ * <p>
+ * The workload cycles through navigation, playlist and song commands of a few hundred users. Output is written to
+ * a discarding stream so that the console does not dominate the measurement.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandBenchmark {
+
+    private static final int USERS = 256;
+
+    private final JukeboxCommands commands = new JukeboxCommands();
+    private final CommandParser parser = new CommandParser();
+    private String[] workload;
+    private int next;
+    private PrintStream standardOut;
+
+    @Setup(Level.Trial)
+    public void createUsers() {
+        standardOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        BenchmarkData.loadCatalog(10_000);
+        UserService userService = new UserService();
+        int[] userIds = new int[USERS];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = Integer.parseInt(userService.createUser("user" + i).split(" ")[0]);
+            userService.createPlaylist(userIds[i], "MIX", new int[]{1 + i, 2 + i, 3 + i, 4 + i, 5 + i});
+            userService.playPlaylist(userIds[i], 1);
+        }
+        workload = new String[USERS * 4];
+        for (int i = 0; i < USERS; i++) {
+            int user = userIds[i];
+            workload[i * 4] = "PLAY-SONG " + user + " NEXT";
+            workload[i * 4 + 1] = "PLAY-SONG " + user + " BACK";
+            workload[i * 4 + 2] = "PLAY-SONG " + user + " " + (3 + i);
+            workload[i * 4 + 3] = "PLAY-PLAYLIST " + user + " 1";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(standardOut);
+    }
+
+    private String nextCommand() {
+        String command = workload[next];
+        next = next + 1 == workload.length ? 0 : next + 1;
+        return command;
+    }
+
+    @Benchmark
+    public void mainOperations() {
+        commands.mainOperations(nextCommand());
+    }
+
+    @Benchmark
+    public int parse() {
+        parser.parse(nextCommand());
+        return parser.intAt(1);
+    }
+
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        String[] tokens = nextCommand().split(" ");
+        blackhole.consume(Integer.parseInt(tokens[1]));
+    }
+}
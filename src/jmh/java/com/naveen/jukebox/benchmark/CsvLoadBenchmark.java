@@ -0,0 +1,46 @@
+package com.naveen.jukebox.benchmark;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.model.LoadReport;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.service.SongsService;
+import com.naveen.jukebox.utility.DataUtility;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to turn a catalog CSV into songs, once with the original whole-file
+ * {@link DataUtility#readCsvFile} and {@link DataUtility#convertDataSongs}, and once with the chunked, parallel
+ * {@link SongsService#loadSongs} that {@code LOAD-DATA} uses.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvLoadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int songs;
+
+    private String path;
+
+    @Setup(Level.Trial)
+    public void writeCatalog() throws Exception {
+        Path file = BenchmarkData.writeCatalog(songs);
+        path = file.toString();
+    }
+
+    @Benchmark
+    public List<Songs> readAndConvert() throws Exception {
+        return DataUtility.convertDataSongs(DataUtility.readCsvFile(path));
+    }
+
+    @Benchmark
+    public LoadReport loadSongs() throws Exception {
+        return new SongsService().loadSongs(path);
+    }
+}
@@ -0,0 +1,35 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.metrics.CommandMetrics;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures what the always-on command metrics add to every command: reading the clock twice and recording the
+ * latency, from one thread and from four threads recording at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    @Benchmark
+    public void timeAndRecord() {
+        long start = System.nanoTime();
+        metrics.record(Opcode.PLAY_SONG, System.nanoTime() - start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void timeAndRecordContended() {
+        long start = System.nanoTime();
+        metrics.record(Opcode.PLAY_SONG, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,83 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.output.OutputSink;
+import com.naveen.jukebox.output.Response;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures writing results through each output format: a playing song, a list of ten songs and a playlist of
+ * different lengths, each written as one record to a stream that discards it.
+ * <p>
+ * {@code playlistText} builds the text of the playlist as a String, as every result was printed before the output
+ * sinks, for comparison with {@code playlist}. Run with {@code -prof gc} to see that a sink allocates next to
+ * nothing per record.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputBenchmark {
+
+    @Param({"TEXT", "JSON", "BINARY"})
+    OutputFormat format;
+
+    @Param({"10", "50000"})
+    int playlistSize;
+
+    private OutputSink sink;
+    private Response song;
+    private Response songs;
+    private Response playlist;
+
+    @Setup(Level.Trial)
+    public void createResponses() throws IOException {
+        sink = format.open(OutputStream.nullOutputStream());
+        song = Response.playing(BenchmarkData.song(1));
+        List<Songs> found = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            found.add(BenchmarkData.song(id));
+        }
+        songs = Response.songs("Songs Found - ", found);
+        Playlist list = new Playlist(1, "BENCH", playlistSize);
+        for (int i = 0; i < playlistSize; i++) {
+            list.addSong(1 + i * 7919);
+        }
+        playlist = Response.playlist(list);
+    }
+
+    @Benchmark
+    public void song() throws IOException {
+        song.writeTo(sink, Opcode.PLAY_SONG);
+        sink.flush();
+    }
+
+    @Benchmark
+    public void songs() throws IOException {
+        songs.writeTo(sink, Opcode.SEARCH);
+        sink.flush();
+    }
+
+    @Benchmark
+    public void playlist() throws IOException {
+        playlist.writeTo(sink, Opcode.MODIFY_PLAYLIST);
+        sink.flush();
+    }
+
+    @Benchmark
+    public String playlistText() {
+        return playlist.toText();
+    }
+}
@@ -0,0 +1,98 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.model.Constants;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.User;
+import com.naveen.jukebox.output.Response;
+import com.naveen.jukebox.repository.UserRepository;
+import com.naveen.jukebox.service.UserService;
+import com.naveen.jukebox.utility.DataUtility;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the playlist operations of a single user on playlists of different lengths: creating a playlist,
+ * navigating it with NEXT and BACK, in playlist order and shuffled, editing it and rendering it as a response.
+ * <p>
+ * {@code createPlaylist} deletes the playlist again, and {@code addAndDeleteSong} removes the song it added, so
+ * the user does not accumulate playlists or songs over millions of invocations and every invocation does the same
+ * work. Run with {@code -prof gc} to see the garbage an edit leaves per invocation.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaylistBenchmark {
+
+    private static final int CATALOG_SIZE = 100_000;
+
+    @Param({"10", "1000", "50000"})
+    int playlistSize;
+
+    private final UserService userService = new UserService();
+    private int userId;
+    private int shuffledUserId;
+    private int[] songIds;
+    private int extraSongId;
+    private User user;
+    private Playlist playlist;
+
+    @Setup(Level.Trial)
+    public void createUserAndPlaylist() {
+        BenchmarkData.loadCatalog(CATALOG_SIZE);
+        userId = Integer.parseInt(userService.createUser("bench").split(" ")[0]);
+        songIds = new int[playlistSize];
+        for (int i = 0; i < playlistSize; i++) {
+            songIds[i] = 1 + (i * 7919) % CATALOG_SIZE;
+        }
+        // the next ID of the same sequence, which the playlist does not hold
+        extraSongId = 1 + (playlistSize * 7919) % CATALOG_SIZE;
+        userService.createPlaylist(userId, "BENCH", songIds);
+        user = UserRepository.GLOBAL.getUserByUserId(userId);
+        playlist = user.getPlaylists().get(0);
+        userService.playPlaylist(userId, playlist.getId());
+
+        shuffledUserId = Integer.parseInt(userService.createUser("shuffled").split(" ")[0]);
+        userService.createPlaylist(shuffledUserId, "BENCH", songIds);
+        userService.shuffle(shuffledUserId, Constants.SHUFFLE_ON);
+        userService.playPlaylist(shuffledUserId, 1);
+    }
+
+    @Benchmark
+    public String createPlaylist() {
+        int playlistId = user.nextPlaylistId();
+        String result = userService.createPlaylist(userId, "NEW", songIds);
+        userService.deletePlaylist(userId, playlistId);
+        return result;
+    }
+
+    @Benchmark
+    public Response next() {
+        return userService.playSong(userId, Constants.PLAY_NEXT_SONG_OPERATION);
+    }
+
+    @Benchmark
+    public Response back() {
+        return userService.playSong(userId, Constants.PLAY_PREVIOUS_SONG_OPERATION);
+    }
+
+    @Benchmark
+    public Response nextShuffled() {
+        return userService.playSong(shuffledUserId, Constants.PLAY_NEXT_SONG_OPERATION);
+    }
+
+    @Benchmark
+    public Response addAndDeleteSong() {
+        userService.addSongInPlaylist(userId, playlist.getId(), extraSongId);
+        return userService.deleteSongInPlaylist(userId, playlist.getId(), extraSongId);
+    }
+
+    @Benchmark
+    public String constructPlaylistResponse() {
+        return DataUtility.constructPlaylistResponse(playlist);
+    }
+}
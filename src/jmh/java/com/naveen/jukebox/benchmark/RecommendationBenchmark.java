@@ -0,0 +1,76 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.repository.CoOccurrenceIndex;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures playlist edits and recommendation lookups on the co-occurrence model.
+ * <p>
+ * The model is seeded with {@value #PLAYLISTS} playlists of {@code playlistSize} songs drawn from a catalog of a
+ * million songs, where a tenth of the songs get half of the picks, as popular songs do. {@code edit} then adds a
+ * song to a playlist and removes it again, two edits per call, and runs on four threads to include lock
+ * contention; {@code recommend} asks for the companions of a random song.
+ * </p>
+ * <p>
+ * The model holds one count per pair, so its size grows with the square of the playlist size; longer playlists
+ * than these need more than the benchmark heap.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationBenchmark {
+
+    private static final int CATALOG = 1_000_000;
+    private static final int PLAYLISTS = 50_000;
+
+    @Param({"10", "25"})
+    int playlistSize;
+
+    private final CoOccurrenceIndex index = new CoOccurrenceIndex();
+    private int[][] playlists;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        SplittableRandom random = new SplittableRandom(42);
+        playlists = new int[PLAYLISTS][];
+        for (int p = 0; p < PLAYLISTS; p++) {
+            int[] songs = new int[playlistSize];
+            for (int i = 0; i < songs.length; i++) {
+                songs[i] = pick(random);
+            }
+            playlists[p] = CoOccurrenceIndex.distinct(songs);
+            index.addPlaylist(playlists[p]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Picks {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void edit(Picks picks) {
+        int[] playlist = playlists[picks.random.nextInt(PLAYLISTS)];
+        // an ID outside the catalog is never part of a seeded playlist
+        int song = CATALOG + 1 + picks.random.nextInt(CATALOG);
+        index.addSong(song, playlist);
+        index.removeSong(song, playlist);
+    }
+
+    @Benchmark
+    public int[] recommend(Picks picks) {
+        return index.recommend(pick(picks.random), 10);
+    }
+
+    private static int pick(SplittableRandom random) {
+        return random.nextBoolean() ? 1 + random.nextInt(CATALOG / 10) : 1 + random.nextInt(CATALOG);
+    }
+}
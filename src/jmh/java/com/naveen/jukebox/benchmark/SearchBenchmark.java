@@ -0,0 +1,67 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.repository.SongSearchIndex;
+import com.naveen.jukebox.repository.SongsRepository;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@code SEARCH} queries per second against catalogs of up to five million songs, and reports the size
+ * of the search index.
+ * <p>
+ * {@code title} asks for the two words of a random song's title, {@code artistAndWord} for an artist and one title
+ * word, and {@code broad} for a word every song contains, which walks a whole posting list and is the worst case.
+ * The estimated index size per song is printed when the catalog has been loaded; {@link CatalogFootprint} reports
+ * the heap actually retained.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final int PROBES = 1 << 12;
+    private static final int LIMIT = 10;
+
+    @Param({"100000", "1000000", "5000000"})
+    int songs;
+
+    private final SongsRepository repository = new SongsRepository();
+    private final String[] titleQueries = new String[PROBES];
+    private final String[] artistQueries = new String[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        BenchmarkData.loadCatalog(songs);
+        SongSearchIndex index = repository.getSearchIndex();
+        System.out.printf("%n%,d songs, %,d terms, about %,d bytes of index, %.1f bytes per song%n", index.songCount(),
+                index.termCount(), index.estimateBytes(), (double) index.estimateBytes() / index.songCount());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < PROBES; i++) {
+            int id = 1 + random.nextInt(songs);
+            titleQueries[i] = BenchmarkData.title(id);
+            artistQueries[i] = "artist " + (id % BenchmarkData.ARTISTS) + " " + BenchmarkData.title(id).split(" ")[1];
+        }
+    }
+
+    @Benchmark
+    public int[] title() {
+        return repository.searchSongIds(titleQueries[next++ & (PROBES - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public int[] artistAndWord() {
+        return repository.searchSongIds(artistQueries[next++ & (PROBES - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public int[] broad() {
+        return repository.searchSongIds("artist", LIMIT);
+    }
+}
@@ -0,0 +1,51 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.repository.SongsRepository;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures {@link SongsRepository#getSongBySongId} for random IDs as the catalog grows from ten thousand to ten
+ * million songs. Lookups should stay flat; a rise with size points at cache misses rather than at the algorithm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongLookupBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000", "1000000", "10000000"})
+    int songs;
+
+    private final SongsRepository repository = new SongsRepository();
+    private final int[] hits = new int[PROBES];
+    private final int[] misses = new int[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadCatalog() {
+        BenchmarkData.loadCatalog(songs);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < PROBES; i++) {
+            hits[i] = 1 + random.nextInt(songs);
+            misses[i] = songs + 1 + random.nextInt(songs);
+        }
+    }
+
+    @Benchmark
+    public Songs hit() {
+        return repository.getSongBySongId(hits[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public Songs miss() {
+        return repository.getSongBySongId(misses[next++ & (PROBES - 1)]);
+    }
+}
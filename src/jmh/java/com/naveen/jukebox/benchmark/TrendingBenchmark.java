@@ -0,0 +1,57 @@
+package com.naveen.jukebox.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.metrics.TrendingSongs;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures recording plays into {@link TrendingSongs} and asking for the trending songs.
+ * <p>
+ * {@code record} runs on four threads with plays drawn from a million songs, a tenth of which get half of the
+ * plays, to show the cost a play adds under contention; {@code top} ranks the candidates of a full hour. The
+ * memory taken is printed once and stays the same however many plays are recorded.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrendingBenchmark {
+
+    private static final int CATALOG = 1_000_000;
+
+    private final TrendingSongs trending = TrendingSongs.GLOBAL;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            trending.record(pick(random));
+        }
+        System.out.printf("%nTrending sketches take about %,d bytes%n", trending.sizeInBytes());
+    }
+
+    @State(Scope.Thread)
+    public static class Plays {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record(Plays plays) {
+        trending.record(pick(plays.random));
+    }
+
+    @Benchmark
+    public int[] top() {
+        return trending.top(10);
+    }
+
+    private static int pick(SplittableRandom random) {
+        return random.nextBoolean() ? 1 + random.nextInt(CATALOG / 10) : 1 + random.nextInt(CATALOG);
+    }
+}
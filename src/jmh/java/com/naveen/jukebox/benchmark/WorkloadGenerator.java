@@ -0,0 +1,420 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic workload at any scale: a song catalog, a file of users and a stream of commands, all
+ * determined by a seed, so that the same arguments always produce the same files.
+ * <p>
+ * The catalog is skewed like a real one. Artists release albums of 8 to 16 songs, and how many albums an artist
+ * releases follows a Zipf distribution, so a few artists own much of the catalog. Each artist plays one genre, and
+ * genres are Zipf-distributed as well, from a lot of Pop down to a little Blues. Titles and album names are one to
+ * three made-up words, with common words much more common than rare ones, and about a third of the songs feature
+ * one or two further artists.
+ * </p>
+ * <p>
+ * The commands are issued by users picked from a Zipf distribution with exponent {@code SKEW}, so a few users are
+ * very active and most are rarely seen; the popular users and songs are scattered over the ID range rather than
+ * being the lowest IDs. Each command is {@code CREATE-PLAYLIST}, {@code MODIFY-PLAYLIST}, {@code PLAY-PLAYLIST} or
+ * {@code PLAY-SONG NEXT}/{@code BACK}, weighted by {@code MIX}. The generator follows the state of every user, so
+ * the commands are the ones a real user could send: a user creates a playlist before anything else, navigates only
+ * while playing, and deletes only a song it added. Songs are picked by Zipf-distributed popularity,
+ * without repeats within a new playlist.
+ * </p>
+ * <p>
+ * Four files are written to the output directory: {@value #CATALOG_FILE} in the CSV format of {@code LOAD-DATA},
+ * {@value #USERS_FILE} in the format of {@code BULK-CREATE-USER}, {@value #SETUP_FILE}, which loads both, and
+ * {@value #COMMANDS_FILE}. The setup file refers to the other files by absolute path. Arguments, all optional:
+ * {@code SONGS=100000 USERS=10000 COMMANDS=1000000 SEED=1 SKEW=1.0 MIX=10,30,10,50 OUT=workload}, where the mix
+ * weights are those of playlist creation, modification, playing and navigation.
+ * </p>
+ *
+ * @see WorkloadReport
+ */
+public class WorkloadGenerator {
+
+    static final String CATALOG_FILE = "catalog.csv";
+    static final String USERS_FILE = "users.csv";
+    static final String SETUP_FILE = "setup.txt";
+    static final String COMMANDS_FILE = "commands.txt";
+
+    private static final int CREATE = 0;
+    private static final int MODIFY = 1;
+    private static final int PLAY = 2;
+    private static final int NAVIGATE = 3;
+    private static final String[] KINDS = {"CREATE-PLAYLIST", "MODIFY-PLAYLIST", "PLAY-PLAYLIST", "NEXT/BACK"};
+
+    private static final String[] GENRES = {"Pop", "Rock", "Hip-Hop", "Electronic Dance Music", "R&B", "Country",
+            "Latin", "Jazz", "Classical", "Reggae", "Metal", "Blues"};
+    private static final int SONGS_PER_ARTIST = 40;
+    private static final double SONG_SKEW = 0.8;
+
+    private final int songs;
+    private final int users;
+    private final long commands;
+    private final long seed;
+    private final double skew;
+    private final int[] mix;
+
+    /**
+     * @param songs    The number of songs in the catalog.
+     * @param users    The number of users.
+     * @param commands The number of commands after the setup.
+     * @param seed     The seed all files are derived from.
+     * @param skew     The Zipf exponent of user activity; 0 makes all users equally active.
+     * @param mix      The weights of playlist creation, modification, playing and navigation.
+     */
+    public WorkloadGenerator(int songs, int users, long commands, long seed, double skew, int[] mix) {
+        if (songs < 1 || users < 1 || commands < 0 || skew < 0 || mix.length != KINDS.length) {
+            throw new IllegalArgumentException("Songs and users must be positive and the mix needs four weights");
+        }
+        long totalWeight = 0;
+        for (int weight : mix) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("The weights of the mix cannot be negative");
+            }
+            totalWeight += weight;
+        }
+        if (totalWeight == 0 || totalWeight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The weights of the mix must add up to a positive int");
+        }
+        this.songs = songs;
+        this.users = users;
+        this.commands = commands;
+        this.seed = seed;
+        this.skew = skew;
+        this.mix = mix.clone();
+    }
+
+    public static void main(String[] args) throws IOException {
+        WorkloadGenerator generator = fromArguments(args);
+        if (generator != null) {
+            System.out.println(generator.generate(outputDirectory(args, Paths.get("workload"))));
+        }
+    }
+
+    /**
+     * Reads the arguments described in the class comment. Arguments it does not know are left to the caller.
+     *
+     * @param args The command-line arguments.
+     * @return The generator, or null if an argument is invalid, which has been reported.
+     */
+    static WorkloadGenerator fromArguments(String[] args) {
+        int songs = 100_000;
+        int users = 10_000;
+        long commands = 1_000_000;
+        long seed = 1;
+        double skew = 1.0;
+        int[] mix = {10, 30, 10, 50};
+        try {
+            for (String arg : args) {
+                String[] pair = arg.split("=", 2);
+                switch (pair[0]) {
+                    case "SONGS" -> songs = Integer.parseInt(pair[1]);
+                    case "USERS" -> users = Integer.parseInt(pair[1]);
+                    case "COMMANDS" -> commands = Long.parseLong(pair[1]);
+                    case "SEED" -> seed = Long.parseLong(pair[1]);
+                    case "SKEW" -> skew = Double.parseDouble(pair[1]);
+                    case "MIX" -> {
+                        String[] weights = pair[1].split(",");
+                        mix = new int[weights.length];
+                        for (int i = 0; i < weights.length; i++) {
+                            mix[i] = Integer.parseInt(weights[i].trim());
+                        }
+                    }
+                    default -> {
+                        // OUT and the arguments of the caller
+                    }
+                }
+            }
+            return new WorkloadGenerator(songs, users, commands, seed, skew, mix);
+        } catch (RuntimeException e) {
+            System.out.println("Error: " + e.getMessage() + ". Expecting SONGS=n USERS=n COMMANDS=n SEED=n SKEW=x"
+                    + " MIX=create,modify,play,navigate OUT=directory");
+            return null;
+        }
+    }
+
+    /**
+     * @param args         The command-line arguments.
+     * @param defaultValue The directory to use without an {@code OUT} argument.
+     * @return The output directory.
+     */
+    static Path outputDirectory(String[] args, Path defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith("OUT=")) {
+                return Paths.get(arg.substring(4));
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Writes all four files.
+     *
+     * @param directory The output directory. It is created if missing.
+     * @return A summary of what was written.
+     * @throws IOException if a file cannot be written.
+     */
+    public String generate(Path directory) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path catalog = directory.resolve(CATALOG_FILE).toAbsolutePath();
+        Path usersFile = directory.resolve(USERS_FILE).toAbsolutePath();
+        SplittableRandom random = new SplittableRandom(seed);
+        int albums = writeCatalog(catalog, random.split());
+        writeUsers(usersFile);
+        Files.writeString(directory.resolve(SETUP_FILE), "LOAD-DATA " + catalog + "\nBULK-CREATE-USER " + usersFile
+                + "\n", StandardCharsets.UTF_8);
+        long[] kinds = writeCommands(directory.resolve(COMMANDS_FILE), random.split());
+        StringBuilder summary = new StringBuilder(String.format(
+                "Wrote %,d songs on %,d albums, %,d users and %,d commands to %s in %,d ms", songs, albums, users,
+                commands, directory, (System.nanoTime() - start) / 1_000_000));
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            summary.append(String.format("%n%s - %,d", KINDS[kind], kinds[kind]));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Writes the catalog, album by album.
+     *
+     * @return The number of albums.
+     */
+    private int writeCatalog(Path path, SplittableRandom random) throws IOException {
+        int artists = Math.max(1, songs / SONGS_PER_ARTIST);
+        Zipf artistPick = new Zipf(artists, 1.0);
+        Zipf genrePick = new Zipf(GENRES.length, 1.2);
+        Zipf wordPick = new Zipf(BenchmarkData.WORDS, 1.0);
+        int[] genreOfArtist = new int[artists + 1];
+        for (int artist = 1; artist <= artists; artist++) {
+            genreOfArtist[artist] = genrePick.sample(random) - 1;
+        }
+        int albums = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            StringBuilder row = new StringBuilder(128);
+            int id = 1;
+            while (id <= songs) {
+                albums++;
+                int artist = artistPick.sample(random);
+                String artistName = artistName(artist);
+                String album = words(wordPick, random);
+                String genre = GENRES[genreOfArtist[artist]];
+                for (int track = 8 + random.nextInt(9); track > 0 && id <= songs; track--, id++) {
+                    row.setLength(0);
+                    row.append(id).append(',').append(words(wordPick, random)).append(',').append(genre)
+                            .append(',').append(album).append(',').append(artistName).append(',').append(artistName);
+                    int featured = random.nextInt(3) == 0 ? 1 + random.nextInt(2) : 0;
+                    for (int i = 0; i < featured; i++) {
+                        row.append('#').append(artistName(artistPick.sample(random)));
+                    }
+                    writer.append(row).append('\n');
+                }
+            }
+        }
+        return albums;
+    }
+
+    private void writeUsers(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int user = 1; user <= users; user++) {
+                writer.append("user").append(Integer.toString(user)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the command stream, following the playlists and playback of every user.
+     *
+     * @return The number of commands of each kind.
+     */
+    private long[] writeCommands(Path path, SplittableRandom random) throws IOException {
+        Zipf userPick = new Zipf(users, skew);
+        Zipf songPick = new Zipf(songs, SONG_SKEW);
+        int userStride = coprimeStride(users);
+        int songStride = coprimeStride(songs);
+        int totalWeight = 0;
+        for (int weight : mix) {
+            totalWeight += weight;
+        }
+        int[] playlists = new int[users + 1];
+        int[] lastAdded = new int[users + 1];
+        int[] lastAddedTo = new int[users + 1];
+        boolean[] playing = new boolean[users + 1];
+        int[] picked = new int[30];
+        long[] kinds = new long[KINDS.length];
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder(256);
+            for (long n = 0; n < commands; n++) {
+                int user = scatter(userPick.sample(random), userStride, users);
+                int kind = playlists[user] == 0 ? CREATE : kindOf(random.nextInt(totalWeight));
+                if (kind == NAVIGATE && !playing[user]) {
+                    kind = PLAY;
+                }
+                line.setLength(0);
+                switch (kind) {
+                    case CREATE -> {
+                        playlists[user]++;
+                        line.append("CREATE-PLAYLIST ").append(user).append(" MIX_").append(playlists[user]);
+                        int size = Math.min(songs, 5 + random.nextInt(26));
+                        for (int i = 0; i < size; i++) {
+                            picked[i] = distinctSong(songPick, random, picked, i);
+                            line.append(' ').append(scatter(picked[i], songStride, songs));
+                        }
+                    }
+                    case MODIFY -> {
+                        if (lastAdded[user] != 0 && random.nextInt(3) == 0) {
+                            line.append("MODIFY-PLAYLIST DELETE-SONG ").append(user).append(' ')
+                                    .append(lastAddedTo[user]).append(' ').append(lastAdded[user]);
+                            lastAdded[user] = 0;
+                        } else {
+                            lastAddedTo[user] = 1 + random.nextInt(playlists[user]);
+                            lastAdded[user] = scatter(songPick.sample(random), songStride, songs);
+                            line.append("MODIFY-PLAYLIST ADD-SONG ").append(user).append(' ')
+                                    .append(lastAddedTo[user]).append(' ').append(lastAdded[user]);
+                        }
+                    }
+                    case PLAY -> {
+                        playing[user] = true;
+                        line.append("PLAY-PLAYLIST ").append(user).append(' ')
+                                .append(1 + random.nextInt(playlists[user]));
+                    }
+                    default -> line.append("PLAY-SONG ").append(user)
+                            .append(random.nextInt(4) == 0 ? " BACK" : " NEXT");
+                }
+                kinds[kind]++;
+                writer.append(line).append('\n');
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * Picks a song that is not among the first {@code count} picked ones, as playlists rarely hold a song twice.
+     */
+    private static int distinctSong(Zipf songPick, SplittableRandom random, int[] picked, int count) {
+        while (true) {
+            int song = songPick.sample(random);
+            boolean repeated = false;
+            for (int i = 0; i < count && !repeated; i++) {
+                repeated = picked[i] == song;
+            }
+            if (!repeated) {
+                return song;
+            }
+        }
+    }
+
+    private int kindOf(int weight) {
+        for (int kind = 0; kind < mix.length; kind++) {
+            weight -= mix[kind];
+            if (weight < 0) {
+                return kind;
+            }
+        }
+        return NAVIGATE;
+    }
+
+    /**
+     * Maps a popularity rank to an ID, so that the most popular IDs are spread over the whole range.
+     */
+    private static int scatter(int rank, int stride, int size) {
+        return (int) ((rank - 1L) * stride % size) + 1;
+    }
+
+    /**
+     * @return A stride near the golden ratio of the size that shares no factor with it, which makes
+     *         {@link #scatter} a permutation.
+     */
+    private static int coprimeStride(int size) {
+        long stride = Math.max(1, (long) (size * 0.618));
+        while (gcd(stride, size) != 1) {
+            stride++;
+        }
+        return (int) stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static String artistName(int artist) {
+        return BenchmarkData.capitalize(BenchmarkData.word(artist % BenchmarkData.WORDS)) + " "
+                + BenchmarkData.capitalize(BenchmarkData.word((artist / BenchmarkData.WORDS + artist * 31)
+                        % BenchmarkData.WORDS));
+    }
+
+    private static String words(Zipf wordPick, SplittableRandom random) {
+        StringBuilder words = new StringBuilder(24)
+                .append(BenchmarkData.capitalize(BenchmarkData.word(wordPick.sample(random) - 1)));
+        for (int i = random.nextInt(3); i > 0; i--) {
+            words.append(' ').append(BenchmarkData.word(wordPick.sample(random) - 1));
+        }
+        return words.toString();
+    }
+
+    /**
+     * Samples ranks 1 to n with a probability proportional to {@code 1 / rank^exponent}, in constant time and
+     * memory by rejection-inversion (Hoermann and Derflinger, 1996).
+     */
+    static final class Zipf {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        Zipf(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1.0;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+        }
+
+        int sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) Math.min(n, Math.max(1, Math.round(x)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1.0 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1.0, x * (1.0 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /**
+         * @return {@code log(1 + x) / x}, accurate near 0.
+         */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+        }
+
+        /**
+         * @return {@code (exp(x) - 1) / x}, accurate near 0.
+         */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+        }
+    }
+}
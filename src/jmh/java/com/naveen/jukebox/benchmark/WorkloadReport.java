@@ -0,0 +1,119 @@
+package com.naveen.jukebox.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.naveen.jukebox.App;
+import com.naveen.jukebox.command.JukeboxCommands;
+
+/**
+ * Runs a generated workload end to end through {@link App#run(List)} and reports its throughput and memory, so
+ * that a change can be checked at the scale it is meant for, such as ten million songs and a million users.
+ * <p>
+ * The workload is written by a {@link WorkloadGenerator} and takes the same arguments. The setup, which loads the
+ * catalog and creates the users, runs first, then the commands; each phase is reported with its time, its
+ * commands per second, the heap retained after it, measured after a full collection, and the collections during
+ * it. The results are discarded, so writing them does not count. At the end come the peak heap, taken as the sum
+ * of the peaks of the heap pools, which is an upper bound, and the report of {@code STATS} with the latency
+ * percentiles of every command.
+ * </p>
+ * <p>
+ * Without an {@code OUT} argument the files are written to a temporary directory and deleted afterwards. This is a
+ * plain program rather than a JMH benchmark, because the state it builds up is the point and must not be reset
+ * between iterations.
+ * </p>
+ */
+public class WorkloadReport {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        WorkloadGenerator generator = WorkloadGenerator.fromArguments(args);
+        if (generator == null) {
+            return;
+        }
+        Path directory = WorkloadGenerator.outputDirectory(args, null);
+        boolean temporary = directory == null;
+        if (temporary) {
+            directory = Files.createTempDirectory("jukebox-workload-");
+        }
+        try {
+            System.out.println(generator.generate(directory));
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            long heap = CatalogFootprint.usedHeap();
+            System.out.printf("Heap before - %,d MB%n", heap >> 20);
+            run("Setup", directory.resolve(WorkloadGenerator.SETUP_FILE));
+            run("Commands", directory.resolve(WorkloadGenerator.COMMANDS_FILE));
+            System.out.printf("Peak heap - %,d MB%n", peakHeap() >> 20);
+            System.out.println(new JukeboxCommands().statistics());
+        } finally {
+            if (temporary) {
+                for (String file : new String[]{WorkloadGenerator.CATALOG_FILE, WorkloadGenerator.USERS_FILE,
+                        WorkloadGenerator.SETUP_FILE, WorkloadGenerator.COMMANDS_FILE}) {
+                    Files.deleteIfExists(directory.resolve(file));
+                }
+                Files.deleteIfExists(directory);
+            }
+        }
+    }
+
+    /**
+     * Runs one input file through the application and prints what it took.
+     */
+    private static void run(String phase, Path input) throws IOException, InterruptedException {
+        long lines;
+        try (Stream<String> stream = Files.lines(input)) {
+            lines = stream.count();
+        }
+        long collections = collections();
+        long collectionMillis = collectionMillis();
+        PrintStream standardOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            App.run(List.of("INPUT-FILE=" + input));
+        } finally {
+            System.setOut(standardOut);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%s - %,d commands in %,d ms, %,.0f commands/s, %,d collections taking %,d ms,"
+                        + " heap retained %,d MB%n", phase, lines, nanos / 1_000_000, lines * 1e9 / Math.max(1, nanos),
+                collections() - collections, collectionMillis() - collectionMillis,
+                CatalogFootprint.usedHeap() >> 20);
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -1,9 +1,22 @@
 package com.naveen.jukebox;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import com.naveen.jukebox.command.ConcurrentCommandExecutor;
 import com.naveen.jukebox.command.JukeboxCommands;
+import com.naveen.jukebox.command.SessionExecutor;
+import com.naveen.jukebox.command.ShardedCommandExecutor;
+import com.naveen.jukebox.metrics.MetricsReporter;
+import com.naveen.jukebox.metrics.TrendingSongs;
+import com.naveen.jukebox.output.AsyncOutputSink;
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.output.WaitStrategy;
+import com.naveen.jukebox.persistence.Persistence;
+import com.naveen.jukebox.server.JukeboxServer;
 import com.naveen.jukebox.utility.DataUtility;
 
 /**
@@ -29,6 +42,19 @@ import com.naveen.jukebox.utility.DataUtility;
  */
 public class App {
 
+    private static final String SHARDS_ARGUMENT = "SHARDS=";
+    private static final String SERVER_ARGUMENT = "SERVER=";
+    private static final String HTTP_ARGUMENT = "HTTP=";
+    private static final String METRICS_FILE_ARGUMENT = "METRICS-FILE=";
+    private static final String METRICS_INTERVAL_ARGUMENT = "METRICS-INTERVAL=";
+    private static final String JOURNAL_ARGUMENT = "JOURNAL=";
+    private static final String CHECKPOINT_EVERY_ARGUMENT = "CHECKPOINT-EVERY=";
+    private static final String OUTPUT_FORMAT_ARGUMENT = "OUTPUT-FORMAT=";
+    private static final String ASYNC_OUTPUT_ARGUMENT = "ASYNC-OUTPUT=";
+    private static final String OUTPUT_RING_ARGUMENT = "OUTPUT-RING=";
+    private static final String SESSIONS_ARGUMENT = "SESSIONS=";
+    private static final String SESSION_OUTPUT_ARGUMENT = "SESSION-OUTPUT=";
+
     static JukeboxCommands commands = new JukeboxCommands();
 
     /**
@@ -38,18 +64,179 @@ public class App {
      * arguments in the format "INPUT_FILE=filename". If the arguments match this expected format,
      * it proceeds to execute commands from the specified file.
      * </p>
+     * <p>
+     * An optional "SHARDS=n" argument executes the commands of different users on {@code n} worker threads.
+     * The output is the same as in a sequential run.
+     * </p>
+     * <p>
+     * With "SERVER=port" and/or "HTTP=port" the application runs as a {@link JukeboxServer} instead. An input
+     * file is optional in this mode; if given, its commands run first, for example to load the catalog.
+     * </p>
+     * <p>
+     * With "METRICS-FILE=path" the output of the STATS command is written to the file every 60 seconds, or every
+     * "METRICS-INTERVAL=seconds", and once more on exit.
+     * </p>
+     * <p>
+     * With "JOURNAL=directory" every state-changing command is journaled to the directory before its result is
+     * printed, and the state found there is recovered before anything else runs. A checkpoint is taken every
+     * 1,000,000 journaled commands, or every "CHECKPOINT-EVERY=n".
+     * </p>
+     * <p>
+     * "OUTPUT-FORMAT=TEXT|JSON|BINARY" selects how the results of the input file are written, see
+     * {@link OutputFormat}. The default is the text format; the server always answers in text.
+     * </p>
+     * <p>
+     * With "ASYNC-OUTPUT=BUSY-SPIN|YIELD|PARK" the results are handed to a writer thread through a ring of 16,384
+     * slots, or "OUTPUT-RING=n" slots, so that a slow output does not hold up the commands. The value selects how
+     * the threads wait for each other, see {@link WaitStrategy}.
+     * </p>
+     * <p>
+     * With "SESSIONS=directory SESSION-OUTPUT=directory" every file of the first directory runs as an isolated
+     * session after the input file, all at once, and writes its results to a file of the second directory, see
+     * {@link SessionExecutor}. The input file loads the catalog the sessions share.
+     * </p>
      *
      * @param args the command-line arguments, expected to contain the input file path.
      */
     public static void main(String[] args) {
-        List<String> commandLineArgs = new LinkedList<>(Arrays.asList(args));
+        List<String> commandLineArgs = new LinkedList<>();
+        int shards = 1;
+        int serverPort = JukeboxServer.DISABLED;
+        int httpPort = JukeboxServer.DISABLED;
+        String metricsFile = null;
+        long metricsInterval = 60;
+        String journal = null;
+        long checkpointEvery = 1_000_000;
+        OutputFormat outputFormat = OutputFormat.TEXT;
+        WaitStrategy outputWait = null;
+        int outputRing = AsyncOutputSink.DEFAULT_CAPACITY;
+        String sessions = null;
+        String sessionOutput = null;
+        boolean validOutput = true;
+        for (String arg : args) {
+            if (arg.startsWith(SHARDS_ARGUMENT)) {
+                shards = Integer.parseInt(arg.substring(SHARDS_ARGUMENT.length()));
+            } else if (arg.startsWith(SERVER_ARGUMENT)) {
+                serverPort = Integer.parseInt(arg.substring(SERVER_ARGUMENT.length()));
+            } else if (arg.startsWith(HTTP_ARGUMENT)) {
+                httpPort = Integer.parseInt(arg.substring(HTTP_ARGUMENT.length()));
+            } else if (arg.startsWith(METRICS_FILE_ARGUMENT)) {
+                metricsFile = arg.substring(METRICS_FILE_ARGUMENT.length());
+            } else if (arg.startsWith(METRICS_INTERVAL_ARGUMENT)) {
+                metricsInterval = Long.parseLong(arg.substring(METRICS_INTERVAL_ARGUMENT.length()));
+            } else if (arg.startsWith(JOURNAL_ARGUMENT)) {
+                journal = arg.substring(JOURNAL_ARGUMENT.length());
+            } else if (arg.startsWith(CHECKPOINT_EVERY_ARGUMENT)) {
+                checkpointEvery = Long.parseLong(arg.substring(CHECKPOINT_EVERY_ARGUMENT.length()));
+            } else if (arg.startsWith(OUTPUT_FORMAT_ARGUMENT)) {
+                outputFormat = OutputFormat.fromName(arg.substring(OUTPUT_FORMAT_ARGUMENT.length()));
+                validOutput &= outputFormat != null;
+            } else if (arg.startsWith(ASYNC_OUTPUT_ARGUMENT)) {
+                outputWait = WaitStrategy.fromName(arg.substring(ASYNC_OUTPUT_ARGUMENT.length()));
+                validOutput &= outputWait != null;
+            } else if (arg.startsWith(OUTPUT_RING_ARGUMENT)) {
+                outputRing = Integer.parseInt(arg.substring(OUTPUT_RING_ARGUMENT.length()));
+            } else if (arg.startsWith(SESSIONS_ARGUMENT)) {
+                sessions = arg.substring(SESSIONS_ARGUMENT.length());
+            } else if (arg.startsWith(SESSION_OUTPUT_ARGUMENT)) {
+                sessionOutput = arg.substring(SESSION_OUTPUT_ARGUMENT.length());
+            } else {
+                commandLineArgs.add(arg);
+            }
+        }
         String expectedSequence = "INPUT-FILE";
         String actualSequence =
                 commandLineArgs.stream().map(a -> a.split("=")[0]).collect(Collectors.joining("$"));
-        if (expectedSequence.equals(actualSequence)) {
-            run(commandLineArgs);
+        boolean serverMode = serverPort != JukeboxServer.DISABLED || httpPort != JukeboxServer.DISABLED;
+        boolean validInput = serverMode
+                ? commandLineArgs.isEmpty() || expectedSequence.equals(actualSequence)
+                : expectedSequence.equals(actualSequence);
+        if (validInput && shards > 0 && metricsInterval > 0 && checkpointEvery > 0 && validOutput
+                && outputRing > 0 && outputRing <= 1 << 30 && (sessions == null) == (sessionOutput == null)
+                && (sessions == null || !commandLineArgs.isEmpty())) {
+            if (journal != null && !recover(Paths.get(journal), checkpointEvery)) {
+                return;
+            }
+            if (metricsFile != null) {
+                MetricsReporter reporter =
+                        new MetricsReporter(commands::statistics, Paths.get(metricsFile), metricsInterval);
+                Runtime.getRuntime().addShutdownHook(new Thread(reporter::close));
+            }
+            run(commandLineArgs, shards, outputFormat, outputWait, outputRing);
+            if (sessions != null) {
+                runSessions(Paths.get(sessions), Paths.get(sessionOutput), outputFormat);
+            }
+            if (serverMode) {
+                serve(serverPort, httpPort);
+            }
         } else {
-            DataUtility.printOutput("Error: Incorrect command line argument format. Expecting INPUT_FILE=filename");
+            DataUtility.printOutput("Error: Incorrect command line argument format. Expecting INPUT_FILE=filename [SHARDS=n]"
+                    + " or [INPUT_FILE=filename] SERVER=port [HTTP=port], optionally with METRICS-FILE=path [METRICS-INTERVAL=seconds]"
+                    + " and JOURNAL=directory [CHECKPOINT-EVERY=n] and OUTPUT-FORMAT=TEXT|JSON|BINARY"
+                    + " [ASYNC-OUTPUT=BUSY-SPIN|YIELD|PARK [OUTPUT-RING=n]]"
+                    + ", or INPUT_FILE=filename SESSIONS=directory SESSION-OUTPUT=directory");
+        }
+    }
+
+    /**
+     * Recovers the state journaled in a directory and journals all further commands there.
+     *
+     * @param directory       The journal directory.
+     * @param checkpointEvery The number of journaled commands between checkpoints.
+     * @return true if the state was recovered, false if the journal could not be read.
+     */
+    static boolean recover(Path directory, long checkpointEvery) {
+        Persistence persistence = new Persistence(directory, checkpointEvery);
+        try {
+            DataUtility.printDiagnostic(persistence.recover(commands::replay));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        // replayed plays happened before the restart and must not count as trending now
+        TrendingSongs.GLOBAL.clear();
+        commands.setPersistence(persistence);
+        Runtime.getRuntime().addShutdownHook(new Thread(persistence::close));
+        return true;
+    }
+
+    /**
+     * Runs every file of a directory as an isolated session, all at once, and prints a summary of the sessions to
+     * the diagnostics.
+     *
+     * @param directory       The directory holding the input files of the sessions.
+     * @param outputDirectory The directory the results of the sessions are written to.
+     * @param outputFormat    The format the results are written in.
+     */
+    static void runSessions(Path directory, Path outputDirectory, OutputFormat outputFormat) {
+        try {
+            List<Path> inputs = SessionExecutor.inputFiles(directory);
+            DataUtility.printDiagnostic(new SessionExecutor(outputDirectory, outputFormat).run(inputs).toString());
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serves commands over the network until the process is stopped.
+     *
+     * @param serverPort The TCP port, or {@link JukeboxServer#DISABLED}.
+     * @param httpPort   The HTTP port, or {@link JukeboxServer#DISABLED}.
+     */
+    static void serve(int serverPort, int httpPort) {
+        JukeboxServer server = new JukeboxServer(new ConcurrentCommandExecutor(commands), serverPort, httpPort);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        try {
+            server.start();
+            server.awaitTermination();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            server.close();
         }
     }
 
@@ -57,18 +244,54 @@ public class App {
      * Processes the commands specified in the input file and executes them using the JukeboxCommands object.
      * <p>
      * This method iterates over each command found in the provided input file, executing them sequentially
-     * to manipulate the state of the Jukebox as specified by each command.
+     * to manipulate the state of the Jukebox as specified by each command. The input file is streamed line by
+     * line and the results are collected in a large output buffer that is written out in batches, so memory
+     * use does not depend on the size of the input file.
      * </p>
      *
      * @param commandLineArgs A list containing the command line arguments specifying the input file.
      *                        Each argument is expected to follow the "INPUT_FILE=filename" format.
      */
     public static void run(List<String> commandLineArgs) {
-        for (String command : commandLineArgs) {
-            List<String> operations = DataUtility.readFileInList(command.substring(11));
-            for (String operation : operations) {
-                commands.mainOperations(operation);
+        run(commandLineArgs, 1, OutputFormat.TEXT, null, AsyncOutputSink.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Processes the commands specified in the input files, executing the commands of different users on
+     * several worker shards.
+     * <p>
+     * With a single shard the commands run on the calling thread. Otherwise a {@link ShardedCommandExecutor}
+     * keeps each user's commands in order and prints all results in input order.
+     * </p>
+     *
+     * @param commandLineArgs A list containing the command line arguments specifying the input file.
+     * @param shards          The number of worker shards.
+     * @param outputFormat    The format the results are written in.
+     * @param outputWait      How the threads of an asynchronous output wait for each other, or null to write the
+     *                        results on the calling thread.
+     * @param outputRing      The number of slots of an asynchronous output.
+     */
+    public static void run(List<String> commandLineArgs, int shards, OutputFormat outputFormat,
+            WaitStrategy outputWait, int outputRing) {
+        if (outputWait == null) {
+            DataUtility.openOutput(outputFormat);
+        } else {
+            DataUtility.openOutput(outputFormat, outputWait, outputRing);
+        }
+        try {
+            if (shards == 1) {
+                for (String command : commandLineArgs) {
+                    DataUtility.forEachLine(command.substring(11), commands::mainOperations);
+                }
+            } else {
+                try (ShardedCommandExecutor executor = new ShardedCommandExecutor(commands, shards)) {
+                    for (String command : commandLineArgs) {
+                        DataUtility.forEachLine(command.substring(11), executor::mainOperations);
+                    }
+                }
             }
+        } finally {
+            DataUtility.closeOutput();
         }
     }
 }
@@ -0,0 +1,248 @@
+package com.naveen.jukebox.command;
+
+import java.util.Arrays;
+
+/**
+ * A reusable tokenizer for jukebox command lines.
+ * <p>
+ * {@link #parse(CharSequence)} splits a line into space-separated tokens by recording the start and end of every
+ * token in two {@code int} arrays that are reused from line to line, so parsing a command creates no objects.
+ * The verb is resolved to an {@link Opcode} through a small hash table that is built once from the known verbs
+ * and probed with a hash computed straight from the characters of the line. Integer arguments are parsed in
+ * place by {@link #intAt(int)}, and {@link #isInt(int)} tells numeric arguments apart without an exception.
+ * Only {@link #stringAt(int)}, for arguments that really are text, creates a String.
+ * </p>
+ * <p>
+ * An instance holds the state of the last parsed line and is therefore not thread-safe; use one parser per thread.
+ * </p>
+ */
+public class CommandParser {
+
+    private static final Opcode[] VERB_TABLE = new Opcode[64];
+    private static final int VERB_MASK = VERB_TABLE.length - 1;
+
+    static {
+        for (Opcode opcode : Opcode.values()) {
+            String verb = opcode.getVerb();
+            if (verb != null) {
+                int slot = hash(verb, 0, verb.length()) & VERB_MASK;
+                while (VERB_TABLE[slot] != null) {
+                    slot = (slot + 1) & VERB_MASK;
+                }
+                VERB_TABLE[slot] = opcode;
+            }
+        }
+    }
+
+    private CharSequence line = "";
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int tokenCount;
+    private Opcode opcode = Opcode.INVALID;
+
+    /**
+     * Tokenizes a command line and resolves its verb. Tokens are separated by one or more spaces.
+     *
+     * @param commandLine The command line to parse.
+     * @return The opcode of the verb, or {@link Opcode#INVALID} if the line is empty or the verb is unknown.
+     */
+    public Opcode parse(CharSequence commandLine) {
+        line = commandLine;
+        tokenCount = 0;
+        int length = commandLine.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && commandLine.charAt(i) == ' ') {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int start = i;
+            while (i < length && commandLine.charAt(i) != ' ') {
+                i++;
+            }
+            addToken(start, i);
+        }
+        opcode = tokenCount == 0 ? Opcode.INVALID : lookupVerb(starts[0], ends[0]);
+        return opcode;
+    }
+
+    /**
+     * @return The last parsed line.
+     */
+    public CharSequence line() {
+        return line;
+    }
+
+    /**
+     * @return The opcode of the last parsed line.
+     */
+    public Opcode opcode() {
+        return opcode;
+    }
+
+    /**
+     * @return The number of tokens, including the verb, of the last parsed line.
+     */
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Checks whether a token is a valid decimal integer.
+     *
+     * @param index The position of the token; the verb is at position 0.
+     * @return true if the token exists and holds an integer that fits into an {@code int}.
+     */
+    public boolean isInt(int index) {
+        if (index >= tokenCount) {
+            return false;
+        }
+        int start = starts[index];
+        int end = ends[index];
+        if (line.charAt(start) == '-') {
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return false;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= (long) Integer.MAX_VALUE + (line.charAt(starts[index]) == '-' ? 1 : 0);
+    }
+
+    /**
+     * Parses a token as a decimal integer without creating a String.
+     *
+     * @param index The position of the token; the verb is at position 0.
+     * @return The integer value of the token.
+     * @throws NumberFormatException     if the token is not a valid integer.
+     * @throws IndexOutOfBoundsException if the line has no token at this position.
+     */
+    public int intAt(int index) {
+        checkIndex(index);
+        if (!isInt(index)) {
+            throw new NumberFormatException("For input string: \"" + stringAt(index) + "\"");
+        }
+        int start = starts[index];
+        boolean negative = line.charAt(start) == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < ends[index]; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Parses every token from {@code fromIndex} to the end of the line as an integer.
+     *
+     * @param fromIndex The position of the first token to parse.
+     * @return The parsed integers, in order. Empty if the line has no tokens from this position.
+     * @throws NumberFormatException if any of the tokens is not a valid integer.
+     */
+    public int[] intsFrom(int fromIndex) {
+        int[] values = new int[Math.max(0, tokenCount - fromIndex)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = intAt(fromIndex + i);
+        }
+        return values;
+    }
+
+    /**
+     * Compares a token with the given text without creating a String.
+     *
+     * @param index The position of the token; the verb is at position 0.
+     * @param text  The text to compare with.
+     * @return true if the token exists and equals the text.
+     */
+    public boolean tokenEquals(int index, String text) {
+        if (index >= tokenCount || ends[index] - starts[index] != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(starts[index] + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a token as a String. This is the only accessor that allocates.
+     *
+     * @param index The position of the token; the verb is at position 0.
+     * @return The token text.
+     * @throws IndexOutOfBoundsException if the line has no token at this position.
+     */
+    public String stringAt(int index) {
+        checkIndex(index);
+        return line.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Returns the rest of the line from a token on, for commands that take free text.
+     *
+     * @param index The position of the first token; the verb is at position 0.
+     * @return The text from the start of the token to the end of the line, or an empty text if there is no such
+     *         token.
+     */
+    public CharSequence textFrom(int index) {
+        return index < tokenCount ? line.subSequence(starts[index], line.length()) : "";
+    }
+
+    /**
+     * Returns the ID of the user the last parsed command acts on.
+     *
+     * @return The user ID, or {@link Opcode#NO_USER} if the command acts on global state or names no valid user.
+     */
+    public int userId() {
+        int argument = opcode.getUserArgument();
+        if (argument == Opcode.NO_USER || !isInt(argument)) {
+            return Opcode.NO_USER;
+        }
+        return Math.max(Opcode.NO_USER, intAt(argument));
+    }
+
+    private void addToken(int start, int end) {
+        if (tokenCount == starts.length) {
+            starts = Arrays.copyOf(starts, tokenCount << 1);
+            ends = Arrays.copyOf(ends, tokenCount << 1);
+        }
+        starts[tokenCount] = start;
+        ends[tokenCount] = end;
+        tokenCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= tokenCount) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + tokenCount);
+        }
+    }
+
+    private Opcode lookupVerb(int start, int end) {
+        int slot = hash(line, start, end) & VERB_MASK;
+        Opcode candidate;
+        while ((candidate = VERB_TABLE[slot]) != null) {
+            if (tokenEquals(0, candidate.getVerb())) {
+                return candidate;
+            }
+            slot = (slot + 1) & VERB_MASK;
+        }
+        return Opcode.INVALID;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h ^ (h >>> 7);
+    }
+}
@@ -0,0 +1,111 @@
+package com.naveen.jukebox.command;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.naveen.jukebox.utility.DataUtility;
+
+/**
+ * Executes jukebox commands arriving from many threads at once, such as the connections of a server.
+ * <p>
+ * Unlike {@link ShardedCommandExecutor} there is no input order to preserve, only the state to protect.
+ * Commands of one user are serialized by a lock picked from the user ID, so the commands of different users run
+ * in parallel. The snapshot operations take a global write lock and run alone, as do checkpoints and the bulk
+ * imports, which touch many users at once; every other command holds the matching read lock while it runs.
+ * {@code LOAD-DATA} holds neither: it builds the new catalog next to the published one while commands keep running
+ * against the old catalog, and takes the write lock only to swap in the new catalog and journal the load in one
+ * step, so that no command checked against the old catalog is journaled after it, see
+ * {@link JukeboxCommands#setCatalogLock(Lock)}.
+ * {@code CREATE-USER} needs no user lock, as new users are registered atomically by the repository.
+ * </p>
+ * <p>
+ * The locks are {@link ReentrantLock}s rather than monitors, so a virtual thread waiting for a user does not pin
+ * its carrier thread.
+ * </p>
+ */
+public class ConcurrentCommandExecutor implements IJukeCommands {
+
+    private static final int USER_LOCK_STRIPES = 1024;
+    private static final ThreadLocal<CommandParser> PARSER = ThreadLocal.withInitial(CommandParser::new);
+
+    private final JukeboxCommands commands;
+    private final ReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private final Lock[] userLocks = new Lock[USER_LOCK_STRIPES];
+
+    /**
+     * @param commands The command implementation to run. Its LOAD-DATA publishes under the write lock of this
+     *                 executor from now on.
+     */
+    public ConcurrentCommandExecutor(JukeboxCommands commands) {
+        this.commands = commands;
+        commands.setCatalogLock(catalogLock.writeLock());
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Executes a command and prints its result.
+     *
+     * @param command A string representing the full command to be executed.
+     */
+    @Override
+    public void mainOperations(String command) {
+        String result = execute(command);
+        if (result != null) {
+            DataUtility.printOutput(result);
+        }
+    }
+
+    /**
+     * Executes a single command. This method may be called from any number of threads at once.
+     *
+     * @param command A string representing the full command to be executed.
+     * @return The text the command prints, or null if the command has no output.
+     */
+    public String execute(String command) {
+        String result = executeLocked(command);
+        if (commands.isCheckpointDue()) {
+            Lock exclusive = catalogLock.writeLock();
+            exclusive.lock();
+            try {
+                commands.checkpointIfDue();
+            } finally {
+                exclusive.unlock();
+            }
+        }
+        return result;
+    }
+
+    private String executeLocked(String command) {
+        CommandParser parser = PARSER.get();
+        Opcode opcode = parser.parse(command);
+        if (opcode == Opcode.INVALID || opcode == Opcode.LOAD_DATA) {
+            // LOAD-DATA takes the write lock itself, once the file is read
+            return commands.execute(parser);
+        }
+        Lock catalog = switch (opcode) {
+            case LOAD_SNAPSHOT, SAVE_SNAPSHOT, CHECKPOINT, BULK_CREATE_USER, BULK_CREATE_PLAYLIST ->
+                    catalogLock.writeLock();
+            default -> catalogLock.readLock();
+        };
+        catalog.lock();
+        try {
+            int userId = parser.userId();
+            if (userId == Opcode.NO_USER) {
+                return commands.execute(parser);
+            }
+            Lock user = userLocks[userId & (USER_LOCK_STRIPES - 1)];
+            user.lock();
+            try {
+                return commands.execute(parser);
+            } finally {
+                user.unlock();
+            }
+        } finally {
+            catalog.unlock();
+        }
+    }
+}
@@ -1,6 +1,17 @@
 package com.naveen.jukebox.command;
 
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.naveen.jukebox.metrics.CommandMetrics;
+import com.naveen.jukebox.metrics.TrendingSongs;
 import com.naveen.jukebox.model.Constants;
+import com.naveen.jukebox.model.LoadReport;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.output.Response;
+import com.naveen.jukebox.persistence.Persistence;
+import com.naveen.jukebox.repository.UserRepository;
 import com.naveen.jukebox.service.SongsService;
 import com.naveen.jukebox.service.UserService;
 import com.naveen.jukebox.utility.DataUtility;
@@ -24,6 +35,17 @@ import com.naveen.jukebox.utility.DataUtility;
  *   <li>{@code MODIFY_PLAYLIST_OPERATION}: Modifies an existing playlist by adding or removing songs.</li>
  *   <li>{@code PLAY_SONG_OPERATION}: Plays a specific song immediately.</li>
  *   <li>{@code PLAY_PLAYLIST_OPERATION}: Starts playback of a specified playlist.</li>
+ *   <li>{@code LOAD_SNAPSHOT_OPERATION}: Serves the catalog from a memory-mapped binary snapshot.</li>
+ *   <li>{@code SAVE_SNAPSHOT_OPERATION}: Writes the loaded catalog to a binary snapshot.</li>
+ *   <li>{@code STATS_OPERATION}: Reports command counts, errors and latencies.</li>
+ *   <li>{@code CHECKPOINT_OPERATION}: Writes a snapshot of the user state and starts a new journal segment.</li>
+ *   <li>{@code SEARCH_OPERATION}: Finds songs by the words of their title, album or artists.</li>
+ *   <li>{@code RECOMMEND_OPERATION}: Lists the songs that most often share a playlist with a song.</li>
+ *   <li>{@code SHUFFLE_OPERATION}: Turns shuffled playback on or off for a user.</li>
+ *   <li>{@code ENQUEUE_OPERATION}: Queues a song to play next, ahead of the playlist.</li>
+ *   <li>{@code TRENDING_OPERATION}: Lists the songs played most in the last hour.</li>
+ *   <li>{@code BULK_CREATE_USER_OPERATION}: Creates the users listed in a batch file.</li>
+ *   <li>{@code BULK_CREATE_PLAYLIST_OPERATION}: Creates the playlists listed in a batch file.</li>
  * </ul>
  *
  * <p>Each command may involve one or more parameters that specify details required for execution.</p>
@@ -33,12 +55,107 @@ import com.naveen.jukebox.utility.DataUtility;
  * making it easy to add new commands as the application grows.
  */
 public class JukeboxCommands implements IJukeCommands {
-    UserService userService = new UserService();
+    /**
+     * One reusable parser per thread, so that commands executed on several shards do not share parser state.
+     */
+    private static final ThreadLocal<CommandParser> PARSER = ThreadLocal.withInitial(CommandParser::new);
+
+    /**
+     * The maximum number of songs a search or a recommendation returns, and the default for trending songs.
+     */
+    private static final int SEARCH_LIMIT = 10;
+
+    /**
+     * The answer of a session to LOAD-SNAPSHOT, which would change the catalog it shares with all other sessions.
+     */
+    static final String SHARED_CATALOG = "The catalog is shared by all sessions and cannot be changed.";
+
+    /**
+     * The answer of LOAD-DATA, also in a session, where it leaves the shared catalog as it is.
+     */
+    static final String SONGS_LOADED = "Songs Loaded successfully";
+
+    /**
+     * Precedes the reason why LOAD-DATA or LOAD-SNAPSHOT could not read its file.
+     */
+    static final String LOAD_FAILED = "Catalog could not be loaded - ";
+
+    /**
+     * Precedes the reason why SAVE-SNAPSHOT could not write its file.
+     */
+    static final String SAVE_FAILED = "Snapshot could not be saved - ";
+
+    UserService userService;
+    CommandMetrics metrics = CommandMetrics.GLOBAL;
+    private final boolean session;
+    private volatile Persistence persistence;
+
+    /**
+     * Serializes user creation with its journal record, see {@link #journaled(CommandParser, Persistence)}.
+     */
+    private final ReentrantLock userCreation = new ReentrantLock();
+
+    /**
+     * Held by LOAD-DATA while it publishes the new catalog and journals the load, see {@link #setCatalogLock(Lock)}.
+     */
+    private volatile Lock catalogLock = new ReentrantLock();
+
+    /**
+     * Executes commands on the users of the process.
+     */
+    public JukeboxCommands() {
+        this(new UserService(), false);
+    }
+
+    private JukeboxCommands(UserService userService, boolean session) {
+        this.userService = userService;
+        this.session = session;
+    }
+
+    /**
+     * Creates the commands of an isolated session, see {@link SessionExecutor}.
+     * <p>
+     * The session starts without users, and its users, playlists, playback and trending songs are invisible to
+     * every other session and to the users of the process. It reads the published song catalog and cannot change
+     * it: LOAD-DATA is answered as a successful load without reading its file, so an input that starts by loading
+     * the catalog runs unchanged and writes what it would write alone, and LOAD-SNAPSHOT is refused. The commands
+     * are counted in the metrics of the process.
+     * </p>
+     *
+     * @return The commands of a new session.
+     */
+    public static JukeboxCommands newSession() {
+        return new JukeboxCommands(new UserService(new UserRepository(), TrendingSongs.forSession()), true);
+    }
+
+    /**
+     * Journals every state-changing command from now on. Recovery must have completed before.
+     *
+     * @param persistence The journal and snapshot store, or null to stop journaling.
+     */
+    public void setPersistence(Persistence persistence) {
+        this.persistence = persistence;
+    }
+
+    /**
+     * Sets the lock LOAD-DATA holds while it publishes the new catalog and appends its journal record.
+     * <p>
+     * The journal is replayed in order, so a command that checked its songs against the old catalog must not be
+     * journaled after the load. A caller running commands concurrently passes a lock that excludes them, such as
+     * the write side of a read-write lock they hold the read side of; LOAD-DATA must then be executed without
+     * holding the read side. The file is still read and parsed without the lock.
+     * </p>
+     *
+     * @param catalogLock The lock to hold while publishing.
+     */
+    public void setCatalogLock(Lock catalogLock) {
+        this.catalogLock = catalogLock;
+    }
 
     /**
      * Executes a specified operation on the jukebox based on the provided command.
      * <p>
-     * This method processes a string command by first splitting it into an array of strings. Each operation
+     * This method processes a string command by first tokenizing it with a {@link CommandParser}. Each operation
      * corresponds to a specific functionality within the system, such as loading data, creating users, managing
      * playlists, and playing songs or playlists. The command is expected to start with an operation identifier
      * that dictates which action to perform. If the operation identifier is not recognized or is missing,
@@ -58,88 +175,353 @@ public class JukeboxCommands implements IJukeCommands {
      *   <li>{@code MODIFY_PLAYLIST_OPERATION}: Modify details of an existing playlist.</li>
      *   <li>{@code PLAY_SONG_OPERATION}: Play a specific song.</li>
      *   <li>{@code PLAY_PLAYLIST_OPERATION}: Play a playlist.</li>
+     *   <li>{@code LOAD_SNAPSHOT_OPERATION}: Open a binary catalog snapshot.</li>
+     *   <li>{@code SAVE_SNAPSHOT_OPERATION}: Write the catalog to a binary snapshot.</li>
+     *   <li>{@code STATS_OPERATION}: Report command metrics.</li>
+     *   <li>{@code CHECKPOINT_OPERATION}: Snapshot the user state.</li>
+     *   <li>{@code SEARCH_OPERATION}: Search the catalog.</li>
+     *   <li>{@code RECOMMEND_OPERATION}: Recommend songs.</li>
+     *   <li>{@code SHUFFLE_OPERATION}: Switch shuffle mode.</li>
+     *   <li>{@code ENQUEUE_OPERATION}: Queue a song.</li>
+     *   <li>{@code TRENDING_OPERATION}: List trending songs.</li>
+     *   <li>{@code BULK_CREATE_USER_OPERATION}: Import users.</li>
+     *   <li>{@code BULK_CREATE_PLAYLIST_OPERATION}: Import playlists.</li>
      * </ul>
      *
      * <p>Each operation requires different parameters which should be included in the command string after the operation keyword.</p>
      */
     public void mainOperations(String command){
-        String[] commands  = command.split(" ");
-        if(Constants.OPERATIONS.contains( commands[0])){
-            switch (commands[0]) {
-                case Constants.LOAD_DATA_OPERATION -> //load data
-                        loadData(commands);
-                case Constants.CREATE_PLAYLIST_OPERATION -> //create playlist
-                        createPlaylist(commands);
-                case Constants.CREATE_USER_OPERATION -> //create user
-                        createUser(commands);
-                case Constants.DELETE_PLAYLIST_OPERATION -> //delete playlist
-                        deletePlaylist(commands);
-                case Constants.MODIFY_PLAYLIST_OPERATION -> //modify playlist
-                        modifyPlaylist(commands);
-                case Constants.PLAY_SONG_OPERATION -> //play song
-                        playSong(commands);
-                case Constants.PLAY_PLAYLIST_OPERATION -> playPlaylist(commands);
-                default -> DataUtility.printOutput("Invalid Operation");
+        CommandParser parser = PARSER.get();
+        Opcode opcode = parser.parse(command);
+        DataUtility.printResponse(opcode, respond(parser));
+        checkpointIfDue();
+    }
+
+    /**
+     * Executes a command recovered from the journal or a snapshot. The command is neither journaled again nor
+     * counted in the metrics, and its result is discarded.
+     *
+     * @param command The recovered command line.
+     */
+    public void replay(String command){
+        CommandParser parser = PARSER.get();
+        parser.parse(command);
+        dispatch(parser);
+    }
+
+    /**
+     * @return true if persistence is enabled and enough commands were journaled to take a checkpoint.
+     */
+    public boolean isCheckpointDue(){
+        Persistence current = persistence;
+        return current != null && current.isCheckpointDue();
+    }
+
+    /**
+     * Takes a checkpoint if one is due. Must only be called while no other command is running, which
+     * {@link #mainOperations(String)} guarantees for sequential runs and the executors guarantee otherwise.
+     */
+    public void checkpointIfDue(){
+        if (isCheckpointDue()) {
+            persistence.checkpoint();
+        }
+    }
+
+    /**
+     * Executes a single command and returns its result instead of printing it.
+     * <p>
+     * This is the same operation as {@link #mainOperations(String)}, for callers that decide themselves when and
+     * where a result is written, such as {@link ShardedCommandExecutor}, which runs commands of different users
+     * in parallel and prints the results in input order. The method is safe to call from several threads as long
+     * as commands of the same user are not executed concurrently.
+     * </p>
+     *
+     * @param command A string representing the full command to be executed.
+     * @return The result of the command, or null if the command has no output.
+     */
+    public Response respond(String command){
+        CommandParser parser = PARSER.get();
+        parser.parse(command);
+        return respond(parser);
+    }
+
+    /**
+     * Executes a command that has already been parsed.
+     * <p>
+     * Callers that need to inspect a command before running it, such as {@link ConcurrentCommandExecutor}, which
+     * picks a lock from the opcode and the user ID, use this method to avoid parsing the line twice.
+     * </p>
+     * <p>
+     * Every command is timed and counted in {@link CommandMetrics}, and counted as an error if it throws.
+     * With persistence enabled, a command that changes state returns only after its journal record is on disk.
+     * </p>
+     *
+     * @param parser A parser holding the command to be executed.
+     * @return The result of the command, or null if the command has no output.
+     */
+    public Response respond(CommandParser parser){
+        Opcode opcode = parser.opcode();
+        long start = System.nanoTime();
+        try {
+            Persistence current = persistence;
+            return current != null && current.isJournaled(opcode) ? journaled(parser, current) : dispatch(parser);
+        } catch (RuntimeException e) {
+            metrics.recordError(opcode);
+            throw e;
+        } finally {
+            metrics.record(opcode, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executes a single command and returns its result as text, see {@link #respond(String)}.
+     *
+     * @param command A string representing the full command to be executed.
+     * @return The text the command prints, or null if the command has no output.
+     */
+    public String execute(String command){
+        CommandParser parser = PARSER.get();
+        parser.parse(command);
+        return execute(parser);
+    }
+
+    /**
+     * Executes a command that has already been parsed and returns its result as text, see
+     * {@link #respond(CommandParser)}. This is what the server sends back.
+     *
+     * @param parser A parser holding the command to be executed.
+     * @return The text the command prints, or null if the command has no output.
+     */
+    public String execute(CommandParser parser){
+        Response response = respond(parser);
+        return response == null ? null : response.toText();
+    }
+
+    /**
+     * Renders the command metrics together with the size of the catalog and the number of users, and the state of
+     * the output ring if results are written asynchronously.
+     * This is the output of the {@code STATS} command.
+     *
+     * @return The statistics report.
+     */
+    public String statistics(){
+        SongsService songsService = new SongsService();
+        String output = session ? null : DataUtility.outputStatistics();
+        return metrics.report() + "\n"
+                + "Songs Loaded - " + songsService.countLoadedSongs()
+                + ", Songs In Snapshot - " + songsService.countSnapshotSongs()
+                + ", Users - " + userService.countUsers()
+                + (output == null ? "" : "\n" + output);
+    }
+
+    /**
+     * Executes a command and waits until its journal record is durable. Commands that fail are not journaled.
+     * <p>
+     * Replaying the journal must hand out the same user IDs again, so a new user's ID and its journal record are
+     * taken under one lock; records of all other commands may be appended in any order that keeps each user's
+     * commands in order, which holding the user while executing guarantees. LOAD-DATA journals itself when it
+     * publishes the new catalog, see {@link #setCatalogLock(Lock)}. It and LOAD-SNAPSHOT answer a file that cannot
+     * be read with an error message rather than an exception, and are then not journaled either, as replaying them
+     * could read a file that has appeared since.
+     * </p>
+     */
+    private Response journaled(CommandParser parser, Persistence persistence){
+        if (parser.opcode() == Opcode.LOAD_DATA) {
+            return loadData(parser, persistence);
+        }
+        if (parser.opcode() == Opcode.LOAD_SNAPSHOT) {
+            return loadSnapshot(parser, persistence);
+        }
+        Response result;
+        long lsn;
+        if (parser.opcode() == Opcode.CREATE_USER || parser.opcode() == Opcode.BULK_CREATE_USER) {
+            userCreation.lock();
+            try {
+                result = dispatch(parser);
+                lsn = persistence.append(parser.opcode(), parser.line());
+            } finally {
+                userCreation.unlock();
             }
         } else {
-            DataUtility.printOutput("Invalid Operation");
+            result = dispatch(parser);
+            lsn = persistence.append(parser.opcode(), parser.line());
         }
+        persistence.awaitDurable(lsn);
+        return result;
+    }
+
+    private Response checkpoint(){
+        Persistence current = persistence;
+        if (current == null) {
+            return Response.message("Persistence is not enabled.");
+        }
+        return Response.message("Checkpoint saved - LSN " + current.checkpoint());
+    }
+
+    private Response dispatch(CommandParser parser){
+        return switch (parser.opcode()) {
+            case LOAD_DATA -> loadData(parser, null);
+            case CREATE_PLAYLIST -> createPlaylist(parser);
+            case CREATE_USER -> createUser(parser);
+            case DELETE_PLAYLIST -> deletePlaylist(parser);
+            case MODIFY_PLAYLIST -> modifyPlaylist(parser);
+            case PLAY_SONG -> playSong(parser);
+            case PLAY_PLAYLIST -> playPlaylist(parser);
+            case LOAD_SNAPSHOT -> loadSnapshot(parser, null);
+            case SAVE_SNAPSHOT -> saveSnapshot(parser);
+            case STATS -> Response.message(statistics());
+            case CHECKPOINT -> checkpoint();
+            case SEARCH -> search(parser);
+            case RECOMMEND -> recommend(parser);
+            case SHUFFLE -> shuffle(parser);
+            case ENQUEUE -> enqueue(parser);
+            case TRENDING -> trending(parser);
+            case BULK_CREATE_USER -> Response.message(userService.bulkCreateUsers(parser.stringAt(1)));
+            case BULK_CREATE_PLAYLIST -> Response.message(userService.bulkCreatePlaylists(parser.stringAt(1)));
+            case INVALID -> Response.message("Invalid Operation");
+        };
     }
 
-    private void loadData(String[] commands){
+    /**
+     * Loads the songs of a CSV file. With persistence, the load is journaled in the same step that publishes the
+     * new catalog, under {@link #setCatalogLock(Lock) the catalog lock}, and only if the file was read.
+     */
+    private Response loadData(CommandParser parser, Persistence persistence){
+        if (session) {
+            // the shared catalog stays as it is; the session runs against whatever the process has loaded
+            return Response.message(SONGS_LOADED);
+        }
+        SongsService songsService = new SongsService();
+        String filepath = parser.stringAt(1);
+        try {
+            long[] lsn = {0};
+            LoadReport report = songsService.loadSongs(filepath, publish -> {
+                Lock lock = catalogLock;
+                lock.lock();
+                try {
+                    publish.run();
+                    if (persistence != null) {
+                        lsn[0] = persistence.append(Opcode.LOAD_DATA, parser.line());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            });
+            if (persistence != null) {
+                persistence.awaitDurable(lsn[0]);
+            }
+            DataUtility.printDiagnostic(report.toString());
+            return Response.message(SONGS_LOADED);
+        } catch (Exception e) {
+            metrics.recordError(Opcode.LOAD_DATA);
+            return Response.message(LOAD_FAILED + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a catalog snapshot. With persistence, the command is journaled only if the snapshot was opened.
+     */
+    private Response loadSnapshot(CommandParser parser, Persistence persistence){
+        if (session) {
+            return Response.message(SHARED_CATALOG);
+        }
+        SongsService songsService = new SongsService();
+        int count;
+        try {
+            count = songsService.loadSnapshot(parser.stringAt(1));
+        } catch (Exception e) {
+            metrics.recordError(Opcode.LOAD_SNAPSHOT);
+            return Response.message(LOAD_FAILED + e.getMessage());
+        }
+        if (persistence != null) {
+            persistence.awaitDurable(persistence.append(Opcode.LOAD_SNAPSHOT, parser.line()));
+        }
+        return Response.message("Snapshot Loaded successfully - " + count + " songs");
+    }
+
+    private Response saveSnapshot(CommandParser parser){
         SongsService songsService = new SongsService();
-        String filepath = commands[1];
         try {
-            songsService.loadSongs(filepath);
-            DataUtility.printOutput("Songs Loaded successfully");
+            int count = songsService.saveSnapshot(parser.stringAt(1));
+            return Response.message("Snapshot Saved successfully - " + count + " songs");
         } catch (Exception e) {
-            e.printStackTrace();
+            metrics.recordError(Opcode.SAVE_SNAPSHOT);
+            return Response.message(SAVE_FAILED + e.getMessage());
+        }
+    }
+
+    private Response search(CommandParser parser){
+        SongsService songsService = new SongsService();
+        List<Songs> found = songsService.searchSongs(parser.textFrom(1), SEARCH_LIMIT);
+        if (found.isEmpty()) {
+            return Response.message(Constants.NO_SONGS_FOUND);
+        }
+        return Response.songs("Songs Found - ", found);
+    }
+
+    private Response recommend(CommandParser parser){
+        return userService.recommendSongs(parser.intAt(1), SEARCH_LIMIT);
+    }
+
+    private Response trending(CommandParser parser){
+        int limit = parser.isInt(1) ? parser.intAt(1) : SEARCH_LIMIT;
+        if (limit < 1) {
+            return Response.message(Constants.INVALID_TRENDING_LIMIT);
         }
+        return userService.trendingSongs(limit);
     }
 
-    private void createPlaylist(String[] commands){
-        int userId = Integer.parseInt(commands[1]);
-        int[] songIds = DataUtility.stringArrayToIntArray(commands);
-        String result = userService.createPlaylist(userId, commands[2], songIds);
-        DataUtility.printOutput(result);
+    private Response shuffle(CommandParser parser){
+        return Response.message(userService.shuffle(parser.intAt(1), parser.stringAt(2)));
     }
 
-    private void createUser(String[] commands){
-        String username = commands[1];
-        DataUtility.printOutput(userService.createUser(username));
-        
+    private Response enqueue(CommandParser parser){
+        return Response.message(userService.enqueue(parser.intAt(1), parser.intAt(2)));
     }
 
-    private void deletePlaylist(String[] commands){
-        int userId = Integer.parseInt(commands[1]);
-        int playlistId = Integer.parseInt(commands[2]);
-        String result = userService.deletePlaylist(userId, playlistId);
-        DataUtility.printOutput(result);
+    private Response createPlaylist(CommandParser parser){
+        int userId = parser.intAt(1);
+        int[] songIds = parser.intsFrom(3);
+        return Response.message(userService.createPlaylist(userId, parser.stringAt(2), songIds));
     }
 
-    private void playPlaylist(String[] commands){
-        String result = userService.playPlaylist(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]));
-        DataUtility.printOutput(result);
+    private Response createUser(CommandParser parser){
+        String username = parser.stringAt(1);
+        return Response.message(userService.createUser(username));
     }
 
-    private void modifyPlaylist(String[] commands){
-        String result = "";
-        if(commands[1].equals(Constants.ADD_SONG_IN_PLAYLIST_OPERATION)){
-            result = userService.addSongInPlaylist(Integer.parseInt(commands[2]), Integer.parseInt(commands[3]), Integer.parseInt(commands[4]));
-        } else if(commands[1].equals(Constants.DELETE_SONG_IN_PLAYLIST_OPERATION)) {
-            result = userService.deleteSongInPlaylist(Integer.parseInt(commands[2]), Integer.parseInt(commands[3]), Integer.parseInt(commands[4]));
+    private Response deletePlaylist(CommandParser parser){
+        int userId = parser.intAt(1);
+        int playlistId = parser.intAt(2);
+        return Response.message(userService.deletePlaylist(userId, playlistId));
+    }
+
+    private Response playPlaylist(CommandParser parser){
+        return userService.playPlaylist(parser.intAt(1), parser.intAt(2));
+    }
+
+    private Response modifyPlaylist(CommandParser parser){
+        Response result = Response.message("");
+        if(parser.tokenEquals(1, Constants.ADD_SONG_IN_PLAYLIST_OPERATION)){
+            result = userService.addSongInPlaylist(parser.intAt(2), parser.intAt(3), parser.intAt(4));
+        } else if(parser.tokenEquals(1, Constants.DELETE_SONG_IN_PLAYLIST_OPERATION)) {
+            result = userService.deleteSongInPlaylist(parser.intAt(2), parser.intAt(3), parser.intAt(4));
         }
-        DataUtility.printOutput(result);
+        return result;
     }
 
-    private void playSong(String[] commands){
-        String result = null;
-        try {
-            result = userService.playSong(Integer.parseInt(commands[1]), Integer.parseInt(commands[2]));
-        } catch (NumberFormatException e) {
-            result = userService.playSong(Integer.parseInt(commands[1]), commands[2]);
+    private Response playSong(CommandParser parser){
+        int userId = parser.intAt(1);
+        if (parser.isInt(2)) {
+            return userService.playSong(userId, parser.intAt(2));
         }
-        DataUtility.printOutput(result);
+        // the navigation constants are passed as they are, so NEXT and BACK do not create a String
+        if (parser.tokenEquals(2, Constants.PLAY_NEXT_SONG_OPERATION)) {
+            return userService.playSong(userId, Constants.PLAY_NEXT_SONG_OPERATION);
+        } else if (parser.tokenEquals(2, Constants.PLAY_PREVIOUS_SONG_OPERATION)) {
+            return userService.playSong(userId, Constants.PLAY_PREVIOUS_SONG_OPERATION);
+        }
+        return userService.playSong(userId, parser.stringAt(2));
     }
-    
+
 }
@@ -0,0 +1,61 @@
+package com.naveen.jukebox.command;
+
+import com.naveen.jukebox.model.Constants;
+
+/**
+ * The operations understood by the jukebox, each identified by the verb that starts a command line.
+ * <p>
+ * {@link CommandParser} resolves a verb to its opcode through a precomputed table without creating a String,
+ * and {@link JukeboxCommands} dispatches on the opcode. Each opcode also knows which argument names the user
+ * the command acts on, which is how {@link ShardedCommandExecutor} routes commands.
+ * </p>
+ */
+public enum Opcode {
+    INVALID(null, Opcode.NO_USER),
+    LOAD_DATA(Constants.LOAD_DATA_OPERATION, Opcode.NO_USER),
+    CREATE_USER(Constants.CREATE_USER_OPERATION, Opcode.NO_USER),
+    CREATE_PLAYLIST(Constants.CREATE_PLAYLIST_OPERATION, 1),
+    DELETE_PLAYLIST(Constants.DELETE_PLAYLIST_OPERATION, 1),
+    MODIFY_PLAYLIST(Constants.MODIFY_PLAYLIST_OPERATION, 2),
+    PLAY_SONG(Constants.PLAY_SONG_OPERATION, 1),
+    PLAY_PLAYLIST(Constants.PLAY_PLAYLIST_OPERATION, 1),
+    LOAD_SNAPSHOT(Constants.LOAD_SNAPSHOT_OPERATION, Opcode.NO_USER),
+    SAVE_SNAPSHOT(Constants.SAVE_SNAPSHOT_OPERATION, Opcode.NO_USER),
+    STATS(Constants.STATS_OPERATION, Opcode.NO_USER),
+    CHECKPOINT(Constants.CHECKPOINT_OPERATION, Opcode.NO_USER),
+    SEARCH(Constants.SEARCH_OPERATION, Opcode.NO_USER),
+    RECOMMEND(Constants.RECOMMEND_OPERATION, Opcode.NO_USER),
+    SHUFFLE(Constants.SHUFFLE_OPERATION, 1),
+    ENQUEUE(Constants.ENQUEUE_OPERATION, 1),
+    TRENDING(Constants.TRENDING_OPERATION, Opcode.NO_USER),
+    BULK_CREATE_USER(Constants.BULK_CREATE_USER_OPERATION, Opcode.NO_USER),
+    BULK_CREATE_PLAYLIST(Constants.BULK_CREATE_PLAYLIST_OPERATION, Opcode.NO_USER);
+
+    /**
+     * The user argument position of operations that act on global state.
+     */
+    public static final int NO_USER = -1;
+
+    private final String verb;
+    private final int userArgument;
+
+    Opcode(String verb, int userArgument) {
+        this.verb = verb;
+        this.userArgument = userArgument;
+    }
+
+    /**
+     * @return The verb that selects this operation, or null for {@link #INVALID}.
+     */
+    public String getVerb() {
+        return verb;
+    }
+
+    /**
+     * @return The position of the argument holding the user ID, or {@link #NO_USER} if the operation acts on
+     *         global state.
+     */
+    public int getUserArgument() {
+        return userArgument;
+    }
+}
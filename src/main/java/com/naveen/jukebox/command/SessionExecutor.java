@@ -0,0 +1,202 @@
+package com.naveen.jukebox.command;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.output.OutputSink;
+import com.naveen.jukebox.output.Response;
+import com.naveen.jukebox.utility.DataUtility;
+import com.naveen.jukebox.utility.VirtualThreads;
+
+/**
+ * Runs many input files at once, each as an isolated session on its own thread.
+ * <p>
+ * Every session gets its own {@link JukeboxCommands#newSession() commands}: its users, playlists, playback and
+ * trending songs start empty and are seen by no other session, so a session writes exactly what its file would
+ * write if it were the only input, whatever else runs at the same time. All sessions read the one song catalog the
+ * process has loaded, which is immutable while they run; a {@code LOAD-DATA} in a session is answered as usual but
+ * leaves that catalog as it is. The results of a session go to a file of its own in the
+ * output directory, named after the input file with {@value #OUTPUT_SUFFIX} appended.
+ * </p>
+ * <p>
+ * Sessions share no state, so they need no locks, and a batch takes about as long as its longest session as long as
+ * there are cores enough. The largest files are started first, so that with more sessions than cores the longest
+ * ones do not end up last. A session that fails stops by itself; the others go on.
+ * </p>
+ */
+public class SessionExecutor {
+
+    /**
+     * Appended to the name of an input file to name its output file.
+     */
+    public static final String OUTPUT_SUFFIX = ".out";
+
+    private final Path outputDirectory;
+    private final OutputFormat outputFormat;
+
+    /**
+     * @param outputDirectory The directory the output files are written to. It is created if missing.
+     * @param outputFormat    The format the results are written in.
+     */
+    public SessionExecutor(Path outputDirectory, OutputFormat outputFormat) {
+        this.outputDirectory = outputDirectory;
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Lists the input files of a batch: every regular file of the directory, without its subdirectories.
+     *
+     * @param directory The directory holding the input files.
+     * @return The input files, by name.
+     * @throws IOException if the directory cannot be read.
+     */
+    public static List<Path> inputFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    /**
+     * Runs every input file as a session and waits until all of them have finished.
+     *
+     * @param inputs The input files.
+     * @return What every session did, in the order of the inputs.
+     * @throws IOException          if the output directory cannot be created.
+     * @throws InterruptedException if the calling thread is interrupted while it waits.
+     */
+    public Report run(List<Path> inputs) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        long start = System.nanoTime();
+        long[] sizes = new long[inputs.size()];
+        List<Integer> largestFirst = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            sizes[i] = sizeOf(inputs.get(i));
+            largestFirst.add(i);
+        }
+        largestFirst.sort(Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+        List<Future<Session>> running = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("jukebox-session-");
+        try {
+            for (int i : largestFirst) {
+                Path input = inputs.get(i);
+                running.set(i, executor.submit(() -> runSession(input)));
+            }
+            List<Session> sessions = new ArrayList<>(inputs.size());
+            for (Future<Session> session : running) {
+                sessions.add(session.get());
+            }
+            return new Report(sessions, System.nanoTime() - start);
+        } catch (ExecutionException e) {
+            // runSession reports every failure in its result
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param input An input file.
+     * @return The file the results of the input file are written to.
+     */
+    public Path outputFileOf(Path input) {
+        return outputDirectory.resolve(input.getFileName() + OUTPUT_SUFFIX);
+    }
+
+    private Session runSession(Path input) {
+        long start = System.nanoTime();
+        JukeboxCommands commands = JukeboxCommands.newSession();
+        CommandParser parser = new CommandParser();
+        long[] count = {0};
+        try (OutputStream file = Files.newOutputStream(outputFileOf(input));
+             OutputSink sink = outputFormat.open(file)) {
+            DataUtility.forEachLine(input.toString(), line -> {
+                Opcode opcode = parser.parse(line);
+                count[0]++;
+                Response response = commands.respond(parser);
+                if (response != null) {
+                    try {
+                        response.writeTo(sink, opcode);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            return new Session(input, count[0], System.nanoTime() - start, e);
+        }
+        return new Session(input, count[0], System.nanoTime() - start, null);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * What one session did.
+     *
+     * @param input        The input file.
+     * @param commands     The number of commands executed, including a command that failed.
+     * @param elapsedNanos The time from the start of the session to its end.
+     * @param failure      What stopped the session early, or null if it ran to the end of its file.
+     */
+    public record Session(Path input, long commands, long elapsedNanos, Exception failure) {
+    }
+
+    /**
+     * What a batch of sessions did.
+     *
+     * @param sessions     Every session, in the order of the inputs.
+     * @param elapsedNanos The time from the start of the first session to the end of the last.
+     */
+    public record Report(List<Session> sessions, long elapsedNanos) {
+
+        /**
+         * @return The sessions that stopped early.
+         */
+        public List<Session> failures() {
+            return sessions.stream().filter(session -> session.failure() != null).toList();
+        }
+
+        @Override
+        public String toString() {
+            long commands = 0;
+            long sessionNanos = 0;
+            Session longest = null;
+            for (Session session : sessions) {
+                commands += session.commands();
+                sessionNanos += session.elapsedNanos();
+                if (longest == null || session.elapsedNanos() > longest.elapsedNanos()) {
+                    longest = session;
+                }
+            }
+            StringBuilder sb = new StringBuilder("Ran ").append(sessions.size()).append(" sessions with ")
+                    .append(commands).append(" commands in ").append(elapsedNanos / 1_000_000).append(" ms");
+            if (longest != null) {
+                sb.append(" (longest ").append(longest.input().getFileName()).append(' ')
+                        .append(longest.elapsedNanos() / 1_000_000).append(" ms, sum of all sessions ")
+                        .append(sessionNanos / 1_000_000).append(" ms)");
+            }
+            for (Session failed : failures()) {
+                sb.append("\nSession ").append(failed.input().getFileName()).append(" failed after ")
+                        .append(failed.commands()).append(" commands: ").append(failed.failure());
+            }
+            return sb.toString();
+        }
+    }
+}
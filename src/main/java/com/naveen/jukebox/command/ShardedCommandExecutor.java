@@ -0,0 +1,150 @@
+package com.naveen.jukebox.command;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.naveen.jukebox.output.Response;
+import com.naveen.jukebox.utility.DataUtility;
+
+/**
+ * Executes jukebox commands on several worker shards while keeping the observable behavior of a single thread.
+ * <p>
+ * Commands of different users never touch each other's state, so every command that names a user is routed to
+ * the shard owning that user ID. Each shard is a single-threaded queue, which keeps the commands of one user in
+ * input order. Commands that act on global state, such as {@code LOAD-DATA} and {@code CREATE-USER}, are barriers:
+ * they wait until every shard is idle and then run on the calling thread, so later commands see their effect
+ * exactly as they would in a sequential run.
+ * </p>
+ * <p>
+ * Results are re-sequenced into input order before they are printed. At most {@value #MAX_PENDING} results are
+ * held back while an earlier command is still running, which bounds memory use for arbitrarily long inputs.
+ * A result is detached on its shard as soon as it is produced, see {@link Response#detach()}, so a later command
+ * of the same user cannot change it before it is printed.
+ * </p>
+ * <p>
+ * This class itself is meant to be driven by one thread, the one reading the input.
+ * </p>
+ */
+public class ShardedCommandExecutor implements IJukeCommands, AutoCloseable {
+
+    private static final int MAX_PENDING = 1 << 16;
+    private static final ThreadLocal<CommandParser> ROUTING_PARSER = ThreadLocal.withInitial(CommandParser::new);
+
+    private final JukeboxCommands commands;
+    private final ExecutorService[] shards;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    /**
+     * Creates an executor with the given number of shards.
+     *
+     * @param commands   The command implementation to run on the shards.
+     * @param shardCount The number of worker shards. Must be at least 1.
+     */
+    public ShardedCommandExecutor(JukeboxCommands commands, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1.");
+        }
+        this.commands = commands;
+        this.shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            String name = "jukebox-shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Queues a command on the shard of its user, or runs it as a barrier if it acts on global state.
+     * Results of earlier commands are printed as soon as they are complete and in order.
+     *
+     * @param command A string representing the full command to be executed.
+     */
+    @Override
+    public void mainOperations(String command) {
+        if (commands.isCheckpointDue()) {
+            drain();
+            commands.checkpointIfDue();
+        }
+        int userId = userIdOf(command);
+        Opcode opcode = ROUTING_PARSER.get().opcode();
+        if (userId < 0) {
+            drain();
+            DataUtility.printResponse(opcode, commands.respond(command));
+            return;
+        }
+        ExecutorService shard = shards[Math.floorMod(userId, shards.length)];
+        CompletableFuture<Response> response =
+                CompletableFuture.supplyAsync(() -> detach(commands.respond(command)), shard);
+        pending.addLast(new Pending(opcode, response));
+        if (pending.size() >= MAX_PENDING) {
+            print(pending.removeFirst());
+        }
+        while (!pending.isEmpty() && pending.peekFirst().response().isDone()) {
+            print(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Waits for every queued command and prints the remaining results in input order.
+     */
+    public void drain() {
+        while (!pending.isEmpty()) {
+            print(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Prints all remaining results, takes a checkpoint if one became due meanwhile, and stops the shards.
+     */
+    @Override
+    public void close() {
+        try {
+            drain();
+            commands.checkpointIfDue();
+        } finally {
+            for (ExecutorService shard : shards) {
+                shard.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns the user a command belongs to, or -1 for commands that act on global state and must run as barriers.
+     */
+    static int userIdOf(String command) {
+        CommandParser parser = ROUTING_PARSER.get();
+        parser.parse(command);
+        return parser.userId();
+    }
+
+    private static Response detach(Response response) {
+        return response == null ? null : response.detach();
+    }
+
+    /**
+     * Waits for a result and prints it. A failure on a shard is rethrown as it was thrown, just like in a
+     * sequential run.
+     */
+    private static void print(Pending result) {
+        Response response;
+        try {
+            response = result.response().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        DataUtility.printResponse(result.opcode(), response);
+    }
+
+    /**
+     * A command queued on a shard, with its opcode to print the result under.
+     */
+    private record Pending(Opcode opcode, CompletableFuture<Response> response) {
+    }
+}
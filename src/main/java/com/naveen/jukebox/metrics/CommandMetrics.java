@@ -0,0 +1,101 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.naveen.jukebox.command.Opcode;
+
+/**
+ * Counts, errors and latencies of the executed commands, kept per {@link Opcode}.
+ * <p>
+ * Every command is counted in the {@link LatencyHistogram} of its opcode; commands that fail with an exception are
+ * also counted as errors. Recording costs one striped atomic increment and allocates nothing, so the metrics stay
+ * enabled at all times. {@link #GLOBAL} is the instance the command layer records into.
+ * </p>
+ */
+public class CommandMetrics {
+
+    /**
+     * The metrics of all commands executed by this process.
+     */
+    public static final CommandMetrics GLOBAL = new CommandMetrics();
+
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Opcode.values().length];
+    private final LongAdder[] errors = new LongAdder[Opcode.values().length];
+
+    public CommandMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records an executed command.
+     *
+     * @param opcode The opcode of the command.
+     * @param nanos  The time the command took in nanoseconds.
+     */
+    public void record(Opcode opcode, long nanos) {
+        latencies[opcode.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records a command that failed with an exception. The command must also be {@link #record recorded}.
+     *
+     * @param opcode The opcode of the command.
+     */
+    public void recordError(Opcode opcode) {
+        errors[opcode.ordinal()].increment();
+    }
+
+    /**
+     * @param opcode The opcode.
+     * @return The merged latencies of the opcode's commands.
+     */
+    public LatencyHistogram.Snapshot latencies(Opcode opcode) {
+        return latencies[opcode.ordinal()].snapshot();
+    }
+
+    /**
+     * @param opcode The opcode.
+     * @return The number of the opcode's commands that failed.
+     */
+    public long errors(Opcode opcode) {
+        return errors[opcode.ordinal()].sum();
+    }
+
+    /**
+     * Renders the metrics as text, one line for the totals and one per opcode that was executed at least once.
+     * Latencies are given in microseconds.
+     *
+     * @return The metrics report.
+     */
+    public String report() {
+        StringBuilder lines = new StringBuilder();
+        long commands = 0;
+        long failures = 0;
+        for (Opcode opcode : Opcode.values()) {
+            LatencyHistogram.Snapshot snapshot = latencies(opcode);
+            long failed = errors(opcode);
+            commands += snapshot.getCount();
+            failures += failed;
+            if (snapshot.getCount() > 0) {
+                lines.append('\n').append(opcode.getVerb() == null ? opcode.name() : opcode.getVerb())
+                        .append(" - count ").append(snapshot.getCount())
+                        .append(", errors ").append(failed)
+                        .append(", p50 ").append(micros(snapshot.getValueAtQuantile(0.5)))
+                        .append(", p99 ").append(micros(snapshot.getValueAtQuantile(0.99)))
+                        .append(", p99.9 ").append(micros(snapshot.getValueAtQuantile(0.999)))
+                        .append(", max ").append(micros(snapshot.getMax()));
+            }
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return String.format("Commands - %d, Errors - %d, Throughput - %.1f commands/s since start",
+                commands, failures, seconds > 0 ? commands / seconds : 0.0) + lines;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1000.0);
+    }
+}
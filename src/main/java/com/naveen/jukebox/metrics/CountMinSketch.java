@@ -0,0 +1,86 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A lock-free count-min sketch of how often each ID occurs in a stream, in a fixed amount of memory.
+ * <p>
+ * The sketch is {@code depth} rows of {@code width} counters. Counting an ID increments one counter per row, picked
+ * by a different hash of the ID in each row, and the estimate of an ID is the smallest of its counters. Counters
+ * shared with other IDs only ever add to an estimate, so an estimate is never too low, and with {@code n} counted
+ * occurrences it is too high by more than {@code e * n / width} with a probability of at most {@code e^-depth}.
+ * </p>
+ * <p>
+ * Counters are updated with atomic increments, so any number of threads may count at once without locks.
+ * </p>
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final int shift;
+    private final AtomicIntegerArray counters;
+
+    /**
+     * @param depth The number of rows. Must be at least 1.
+     * @param width The number of counters per row. Must be a power of two.
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || width < 2 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("depth must be at least 1 and width a power of two.");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.shift = 64 - Integer.numberOfTrailingZeros(width);
+        this.counters = new AtomicIntegerArray(depth * width);
+    }
+
+    /**
+     * Counts one occurrence of an ID.
+     *
+     * @param id The ID.
+     */
+    public void add(int id) {
+        for (int row = 0; row < depth; row++) {
+            counters.getAndIncrement(row * width + column(id, row));
+        }
+    }
+
+    /**
+     * @param id The ID.
+     * @return An upper bound of the number of occurrences of the ID, usually close to it.
+     */
+    public int estimate(int id) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + column(id, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Resets every counter. Occurrences counted while the sketch is cleared may or may not be kept.
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * @return The memory taken by the counters, in bytes.
+     */
+    public long sizeInBytes() {
+        return (long) counters.length() * Integer.BYTES;
+    }
+
+    /**
+     * Hashes an ID into a column with the row number as seed, taking the high bits of a multiplicative hash.
+     */
+    private int column(int id, int row) {
+        long hash = (id + ((long) row << 32)) * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash >>> shift);
+    }
+}
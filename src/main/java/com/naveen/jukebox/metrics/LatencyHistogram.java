@@ -0,0 +1,151 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram with a bounded relative error, in the style of HdrHistogram.
+ * <p>
+ * Values are counted in log-linear buckets: values below {@value #LINEAR_LIMIT} nanoseconds get a bucket each, and
+ * every further power of two is split into {@value #SUB_BUCKETS} equal buckets, so a recorded value is off by at most
+ * about 3%. Values of 2<sup>36</sup> nanoseconds (about 68 seconds) and more fall into the last bucket. Recording is
+ * a bit of arithmetic and one atomic increment, with no allocation and no lock.
+ * </p>
+ * <p>
+ * To keep threads from contending on the same counters, the histogram is striped: each thread records into the
+ * stripe picked by its thread ID, and a read merges all stripes. With no more recording threads than stripes, as
+ * with the command shards, each thread effectively owns its stripe. Reads are not atomic snapshots across
+ * stripes, which is fine for monitoring.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final AtomicLongArray maxima = new AtomicLongArray(STRIPES);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        stripes[stripe].getAndIncrement(bucketOf(value));
+        if (value > maxima.get(stripe)) {
+            maxima.accumulateAndGet(stripe, value, Math::max);
+        }
+    }
+
+    /**
+     * Merges the stripes into a snapshot.
+     *
+     * @return The counts recorded so far.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long max = 0;
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes[s];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            max = Math.max(max, maxima.get(s));
+        }
+        return new Snapshot(counts, max);
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS
+                + (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return The smallest value that falls into the bucket.
+     */
+    static long lowestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return subBucket << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return The largest value that falls into the bucket.
+     */
+    static long highestValueOf(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+    }
+
+    /**
+     * The merged counts of a histogram at one point in time.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            this.count = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the latency below which the given share of the recorded values fall.
+         *
+         * @param quantile A quantile between 0 and 1, for example 0.99.
+         * @return The highest value of the bucket holding the quantile, capped at the maximum recorded value,
+         *         or 0 if nothing was recorded.
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.naveen.jukebox.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Periodically writes a metrics report to a file.
+ * <p>
+ * Each dump replaces the whole file, so the file always holds one complete, timestamped report. The report is
+ * written to a temporary file next to it and then moved into place, so readers never see a partial report.
+ * A last report is written when the reporter is closed.
+ * </p>
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private final Supplier<String> report;
+    private final Path file;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jukebox-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts dumping reports.
+     *
+     * @param report          Renders the report to write, for example the output of {@code STATS}.
+     * @param file            The file to write the report to.
+     * @param intervalSeconds The time between two dumps.
+     */
+    public MetricsReporter(Supplier<String> report, Path file, long intervalSeconds) {
+        this.report = report;
+        this.file = file;
+        scheduler.scheduleAtFixedRate(this::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the current report to the file.
+     */
+    public void dump() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(temporary, Instant.now() + "\n" + report.get() + "\n", StandardCharsets.UTF_8);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the periodic dumps and writes a final report.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        dump();
+    }
+}
@@ -0,0 +1,133 @@
+package com.naveen.jukebox.metrics;
+
+import com.naveen.jukebox.utility.IntIntHashMap;
+
+/**
+ * The Space-Saving summary of the most frequent IDs of a stream, in a fixed number of counters.
+ * <p>
+ * Every ID that is counted keeps its counter; an ID that is not counted takes over the counter of the least counted
+ * one and continues from its count, so a counter overestimates its ID by at most the count it inherited. Any ID
+ * seen more than {@code n / capacity} times out of {@code n} is guaranteed to hold a counter. The counters form a
+ * binary min-heap over primitive arrays, with a map from ID to heap slot, so counting is {@code O(log capacity)}
+ * and allocates nothing.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class SpaceSaving {
+
+    private final int[] ids;
+    private final long[] counts;
+    private final IntIntHashMap slots;
+    private int size;
+
+    /**
+     * @param capacity The number of counters. Must be at least 1.
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1.");
+        }
+        ids = new int[capacity];
+        counts = new long[capacity];
+        slots = new IntIntHashMap(capacity);
+    }
+
+    /**
+     * Counts one occurrence of an ID.
+     *
+     * @param id The ID.
+     */
+    public void offer(int id) {
+        int slot = slots.getOrDefault(id, -1);
+        if (slot < 0) {
+            if (size < ids.length) {
+                slot = size++;
+                ids[slot] = id;
+                counts[slot] = 0;
+                slots.put(id, slot);
+                slot = siftUp(slot);
+            } else {
+                // the least counted ID gives up its counter, and the new ID continues from its count
+                slots.remove(ids[0], -1);
+                slot = 0;
+                ids[0] = id;
+                slots.put(id, 0);
+            }
+        }
+        counts[slot]++;
+        siftDown(slot);
+    }
+
+    /**
+     * @return The number of counters in use.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param slot A counter, from 0 to {@link #size()} - 1, in no particular order.
+     * @return The ID holding the counter.
+     */
+    public int idAt(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * @param slot A counter, from 0 to {@link #size()} - 1, in no particular order.
+     * @return The count of the counter, which may overestimate its ID.
+     */
+    public long countAt(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Releases every counter.
+     */
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+
+    private int siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (counts[parent] <= counts[slot]) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+        return slot;
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[slot] <= counts[child]) {
+                return;
+            }
+            swap(slot, child);
+            slot = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        long count = counts[a];
+        ids[a] = ids[b];
+        counts[a] = counts[b];
+        ids[b] = id;
+        counts[b] = count;
+        slots.put(ids[a], a);
+        slots.put(ids[b], b);
+    }
+}
@@ -0,0 +1,242 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.naveen.jukebox.utility.IntIntHashMap;
+import com.naveen.jukebox.utility.TopK;
+
+/**
+ * The most played songs of the recent past, over sliding time windows and in a fixed amount of memory.
+ * <p>
+ * Time is cut into windows of equal length, and the last {@code windows} of them are kept in a ring. Each window
+ * counts its plays twice: a {@link CountMinSketch} estimates the plays of any song, and {@link SpaceSaving}
+ * summaries keep the songs that may be the most played ones. The trending songs are the candidates of all kept
+ * windows, ranked by the sum of their estimates. A window is reused once it falls out of the ring, so memory does
+ * not grow with the number of plays or songs.
+ * </p>
+ * <p>
+ * Recording a play must not slow down playback. The sketch is lock-free, and the candidates are split into
+ * {@value #STRIPES} summaries picked by song ID, each behind its own lock that a play only tries to take: a play
+ * that finds the lock held skips the summary and is still counted in the sketch. A song played often enough to
+ * trend is offered again soon after, so skipping costs accuracy only for songs that are not trending anyway.
+ * </p>
+ */
+public class TrendingSongs {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1 << 14;
+    private static final int SESSION_WIDTH = 1 << 10;
+    private static final int STRIPES = 16;
+    private static final int CANDIDATES_PER_STRIPE = 32;
+
+    /**
+     * The plays of all users of this process over the last hour, in twelve windows of five minutes.
+     */
+    public static final TrendingSongs GLOBAL = lastHour(WIDTH);
+
+    private final Window[] windows;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param windows      The number of windows kept.
+     * @param windowMillis The length of a window in milliseconds.
+     * @param clock        The current time in milliseconds.
+     */
+    public TrendingSongs(int windows, long windowMillis, LongSupplier clock) {
+        this(windows, windowMillis, WIDTH, clock);
+    }
+
+    /**
+     * @param windows      The number of windows kept.
+     * @param windowMillis The length of a window in milliseconds.
+     * @param width        The number of counters per row of each window's sketch. Must be a power of two.
+     * @param clock        The current time in milliseconds.
+     */
+    public TrendingSongs(int windows, long windowMillis, int width, LongSupplier clock) {
+        this.windows = new Window[windows];
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        for (int i = 0; i < windows; i++) {
+            this.windows[i] = new Window(width);
+        }
+    }
+
+    /**
+     * Counts the plays of a single session, such as one input file among many, over the last hour. Its sketches
+     * are a sixteenth of the size of {@link #GLOBAL}'s, which is plenty for the plays of one session and keeps
+     * hundreds of sessions from taking gigabytes.
+     *
+     * @return An empty record of plays.
+     */
+    public static TrendingSongs forSession() {
+        return lastHour(SESSION_WIDTH);
+    }
+
+    private static TrendingSongs lastHour(int width) {
+        return new TrendingSongs(12, TimeUnit.MINUTES.toMillis(5), width, System::currentTimeMillis);
+    }
+
+    /**
+     * Records one play of a song.
+     *
+     * @param songId The ID of the song played.
+     */
+    public void record(int songId) {
+        long epoch = clock.getAsLong() / windowMillis;
+        Window window = windows[(int) Math.floorMod(epoch, (long) windows.length)];
+        if (window.epoch != epoch) {
+            window.advance(epoch);
+        }
+        window.sketch.add(songId);
+        Stripe stripe = window.stripes[stripeOf(songId)];
+        if (stripe.lock.tryLock()) {
+            try {
+                stripe.candidates.offer(songId);
+            } finally {
+                stripe.lock.unlock();
+            }
+        } else {
+            skipped.increment();
+        }
+    }
+
+    /**
+     * Returns the most played songs of the kept windows, most played first and ties by ascending ID.
+     *
+     * @param limit The maximum number of songs to return.
+     * @return The song IDs.
+     */
+    public int[] top(int limit) {
+        long now = clock.getAsLong() / windowMillis;
+        IntIntHashMap candidates = new IntIntHashMap(STRIPES * CANDIDATES_PER_STRIPE);
+        for (Window window : windows) {
+            if (!isLive(window, now)) {
+                continue;
+            }
+            for (Stripe stripe : window.stripes) {
+                stripe.lock.lock();
+                try {
+                    for (int i = 0; i < stripe.candidates.size(); i++) {
+                        candidates.putIfAbsent(stripe.candidates.idAt(i), 0);
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+        if (limit < 1) {
+            return new int[0];
+        }
+        TopK best = new TopK(limit);
+        candidates.forEach((songId, unused) -> best.offer(songId, estimate(songId, now)));
+        return best.toSortedIds();
+    }
+
+    /**
+     * @param songId The ID of the song.
+     * @return The estimated number of plays of the song in the kept windows, never less than the real number.
+     */
+    public long estimate(int songId) {
+        return estimate(songId, clock.getAsLong() / windowMillis);
+    }
+
+    /**
+     * @return The number of plays that were counted in the sketch only, because their summary was busy.
+     */
+    public long skippedCandidates() {
+        return skipped.sum();
+    }
+
+    /**
+     * @return About the memory taken by the sketches and summaries, in bytes. It does not depend on the plays
+     *         recorded.
+     */
+    public long sizeInBytes() {
+        // a summary counter takes an ID, a count and an entry of the slot map, about 32 bytes
+        long candidates = (long) STRIPES * CANDIDATES_PER_STRIPE * 32;
+        return windows.length * (windows[0].sketch.sizeInBytes() + candidates);
+    }
+
+    /**
+     * Forgets every play recorded so far.
+     */
+    public void clear() {
+        for (Window window : windows) {
+            synchronized (window) {
+                window.reset(Long.MIN_VALUE);
+            }
+        }
+        skipped.reset();
+    }
+
+    private long estimate(int songId, long now) {
+        long plays = 0;
+        for (Window window : windows) {
+            if (isLive(window, now)) {
+                plays += window.sketch.estimate(songId);
+            }
+        }
+        return plays;
+    }
+
+    private boolean isLive(Window window, long now) {
+        long epoch = window.epoch;
+        return epoch <= now && epoch > now - windows.length;
+    }
+
+    private static int stripeOf(int songId) {
+        return (songId ^ (songId >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * The plays of one window of time.
+     */
+    private static final class Window {
+        private final CountMinSketch sketch;
+        private final Stripe[] stripes = new Stripe[STRIPES];
+        private volatile long epoch = Long.MIN_VALUE;
+
+        Window(int width) {
+            sketch = new CountMinSketch(DEPTH, width);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        /**
+         * Starts counting the given window, once per window length. Plays of the previous use of this window are
+         * dropped; a late play of an older window is counted in the newer one.
+         */
+        synchronized void advance(long epoch) {
+            if (this.epoch < epoch) {
+                reset(epoch);
+            }
+        }
+
+        void reset(long epoch) {
+            sketch.clear();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    stripe.candidates.clear();
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * One summary of candidate songs with its lock.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SpaceSaving candidates = new SpaceSaving(CANDIDATES_PER_STRIPE);
+    }
+}
@@ -0,0 +1,40 @@
+package com.naveen.jukebox.model;
+
+/**
+ * How a newly published catalog version differs from the version it replaced: how many songs it added, changed
+ * and removed, and how many it kept as they were.
+ */
+public class CatalogDiff {
+    private final int added;
+    private final int updated;
+    private final int removed;
+    private final int unchanged;
+
+    public CatalogDiff(int added, int updated, int removed, int unchanged) {
+        this.added = added;
+        this.updated = updated;
+        this.removed = removed;
+        this.unchanged = unchanged;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return added + " added, " + updated + " updated, " + removed + " removed, " + unchanged + " unchanged";
+    }
+}
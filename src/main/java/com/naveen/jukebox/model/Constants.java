@@ -1,7 +1,5 @@
 package com.naveen.jukebox.model;
 
-import java.util.List;
-
 public class Constants {
     public static final String LOAD_DATA_OPERATION = "LOAD-DATA";
     public static final String CREATE_USER_OPERATION = "CREATE-USER";
@@ -10,14 +8,30 @@ public class Constants {
     public static final String MODIFY_PLAYLIST_OPERATION = "MODIFY-PLAYLIST";
     public static final String PLAY_SONG_OPERATION = "PLAY-SONG";
     public static final String PLAY_PLAYLIST_OPERATION = "PLAY-PLAYLIST";
-    public static final List<String> OPERATIONS = List.of(Constants.LOAD_DATA_OPERATION, Constants.CREATE_USER_OPERATION, Constants.CREATE_PLAYLIST_OPERATION, Constants.DELETE_PLAYLIST_OPERATION, Constants.PLAY_PLAYLIST_OPERATION, Constants.MODIFY_PLAYLIST_OPERATION, Constants.PLAY_SONG_OPERATION);
+    public static final String LOAD_SNAPSHOT_OPERATION = "LOAD-SNAPSHOT";
+    public static final String SAVE_SNAPSHOT_OPERATION = "SAVE-SNAPSHOT";
+    public static final String STATS_OPERATION = "STATS";
+    public static final String CHECKPOINT_OPERATION = "CHECKPOINT";
+    public static final String SEARCH_OPERATION = "SEARCH";
+    public static final String RECOMMEND_OPERATION = "RECOMMEND";
+    public static final String SHUFFLE_OPERATION = "SHUFFLE";
+    public static final String ENQUEUE_OPERATION = "ENQUEUE";
+    public static final String TRENDING_OPERATION = "TRENDING";
+    public static final String BULK_CREATE_USER_OPERATION = "BULK-CREATE-USER";
+    public static final String BULK_CREATE_PLAYLIST_OPERATION = "BULK-CREATE-PLAYLIST";
     public static final String ADD_SONG_IN_PLAYLIST_OPERATION = "ADD-SONG";
     public static final String DELETE_SONG_IN_PLAYLIST_OPERATION = "DELETE-SONG";
     public static final String PLAY_NEXT_SONG_OPERATION = "NEXT";
     public static final String PLAY_PREVIOUS_SONG_OPERATION = "BACK";
+    public static final String SHUFFLE_ON = "ON";
+    public static final String SHUFFLE_OFF = "OFF";
     public static final String USER_NOT_FOUND = "User not found.";
     public static final String PLAYLIST_NOT_FOUND = "Playlist not found.";
     public static final String SONG_NOT_FOUND = "Song not found.";
+    public static final String NO_SONGS_FOUND = "No songs found.";
+    public static final String NO_RECOMMENDATIONS = "No recommendations found.";
+    public static final String NO_TRENDING_SONGS = "No songs played recently.";
+    public static final String INVALID_TRENDING_LIMIT = "The number of trending songs must be positive.";
     private Constants() {
     }
 }
\ No newline at end of file
@@ -1,23 +1,167 @@
 package com.naveen.jukebox.model;
 
+/**
+ * The playback cursor of a user: the active playlist and the position of the current song within it.
+ * <p>
+ * The cursor is moved in place, so navigating with NEXT and BACK neither searches the playlist nor allocates.
+ * In shuffle mode the cursor follows a {@link ShuffleOrder} instead of the playlist order, which is just as cheap.
+ * A song taken from the user's up-next queue plays on top of the cursor without moving it, so playback carries
+ * on from the same place once the queued song is done.
+ * </p>
+ */
 public class CurrentlyPlaying {
-    private int playlistId;
-    private int songId;
-    
+    /**
+     * Marks that no queued song is playing.
+     */
+    public static final int NO_SONG = -1;
+
+    private final Playlist playlist;
+    private int index;
+    private ShuffleOrder shuffle;
+    private int queuedSongId = NO_SONG;
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
     public int getPlaylistId() {
-        return playlistId;
+        return playlist.getId();
+    }
+    public int getIndex() {
+        return index;
     }
+    public ShuffleOrder getShuffle() {
+        return shuffle;
+    }
+    public int getQueuedSongId() {
+        return queuedSongId;
+    }
+
+    /**
+     * @return The song being played: the queued song if one plays, otherwise the song at the cursor.
+     */
     public int getSongId() {
-        return songId;
+        return queuedSongId != NO_SONG ? queuedSongId : playlist.getSongIdAt(index);
+    }
+    public CurrentlyPlaying(final Playlist playlist, final int index) {
+        this.playlist = playlist;
+        this.index = index;
+    }
+    public CurrentlyPlaying(final Playlist playlist, final ShuffleOrder shuffle) {
+        this.playlist = playlist;
+        this.shuffle = shuffle;
+        this.index = shuffle.current();
+    }
+
+    /**
+     * @return true if a song from the up-next queue is playing.
+     */
+    public boolean isPlayingQueued() {
+        return queuedSongId != NO_SONG;
+    }
+
+    /**
+     * Plays a song from the up-next queue, leaving the cursor where it is.
+     *
+     * @param songId The queued song, or {@link #NO_SONG} to return to the song at the cursor.
+     */
+    public void playQueued(int songId) {
+        this.queuedSongId = songId;
+    }
+
+    /**
+     * Turns shuffle mode on with the given order, or off.
+     *
+     * @param shuffle The order to follow, positioned on the song at the cursor, or null for the playlist order.
+     */
+    public void setShuffle(ShuffleOrder shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    /**
+     * Moves the cursor to another position of the active playlist. A queued song stops playing, and in shuffle
+     * mode a new order starts from that position.
+     *
+     * @param index The new position.
+     */
+    public void moveTo(int index) {
+        this.index = index;
+        this.queuedSongId = NO_SONG;
+        if (shuffle != null) {
+            shuffle = ShuffleOrder.startingAt(playlist, index, shuffle.getState());
+        }
+    }
+
+    /**
+     * Moves the cursor to the next song, wrapping around to the start. A queued song stops playing.
+     *
+     * @return The new position.
+     */
+    public int next() {
+        queuedSongId = NO_SONG;
+        if (shuffle == null) {
+            index = index + 1 == playlist.size() ? 0 : index + 1;
+        } else {
+            index = currentShuffle().next();
+        }
+        return index;
+    }
+
+    /**
+     * Moves the cursor to the previous song, wrapping around to the end.
+     *
+     * @return The new position.
+     */
+    public int previous() {
+        if (shuffle == null) {
+            index = index == 0 ? playlist.size() - 1 : index - 1;
+        } else {
+            index = currentShuffle().previous();
+        }
+        return index;
     }
-    public CurrentlyPlaying(final int playlistId, final int songId) {
-        this.playlistId = playlistId;
-        this.songId = songId;
+
+    /**
+     * Keeps the cursor on the same song after the song at {@code removedIndex} was removed from the playlist.
+     * If the current song itself was removed, the cursor moves on to the song that followed it, wrapping
+     * around to the start of the playlist.
+     *
+     * @param removedIndex The position the song was removed from.
+     */
+    public void songRemovedAt(int removedIndex) {
+        if (removedIndex < index) {
+            index--;
+        } else if (removedIndex == index && index >= playlist.size()) {
+            index = 0;
+        }
+    }
+
+    /**
+     * Returns the shuffle order the next move will follow: the current one, or, if the playlist changed since it
+     * was made, the new one from the cursor that the move will replace it with. The current order is kept.
+     *
+     * @return The order, or null in playlist order.
+     */
+    public ShuffleOrder getUpcomingShuffle() {
+        if (shuffle == null || playlist.size() == 0 || shuffle.isValidFor(playlist)) {
+            return shuffle;
+        }
+        return ShuffleOrder.startingAt(playlist, index, shuffle.getState());
     }
+
+    /**
+     * Returns the shuffle order, replaced by a new one from the cursor if the playlist changed since it was made.
+     */
+    private ShuffleOrder currentShuffle() {
+        if (!shuffle.isValidFor(playlist)) {
+            shuffle = ShuffleOrder.startingAt(playlist, index, shuffle.getState());
+        }
+        return shuffle;
+    }
+
     @Override
     public String toString() {
-        return "CurrentlyPlaying [playlistId=" + playlistId + ", songId=" + songId + "]";
+        return "CurrentlyPlaying [playlistId=" + playlist.getId() + ", index=" + index + "]";
     }
 
-    
+
 }
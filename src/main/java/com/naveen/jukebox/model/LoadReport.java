@@ -0,0 +1,59 @@
+package com.naveen.jukebox.model;
+
+/**
+ * Statistics of a single catalog load: how many rows were accepted, how many were rejected, how long the load
+ * took and, for a load that replaced the catalog, how the new catalog differs from the old one.
+ */
+public class LoadReport {
+    private final long rowsLoaded;
+    private final long rowsRejected;
+    private final long elapsedNanos;
+    private final CatalogDiff diff;
+
+    public LoadReport(long rowsLoaded, long rowsRejected, long elapsedNanos) {
+        this(rowsLoaded, rowsRejected, elapsedNanos, null);
+    }
+
+    public LoadReport(long rowsLoaded, long rowsRejected, long elapsedNanos, CatalogDiff diff) {
+        this.rowsLoaded = rowsLoaded;
+        this.rowsRejected = rowsRejected;
+        this.elapsedNanos = elapsedNanos;
+        this.diff = diff;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The changes to the catalog, or null if the load did not replace the catalog.
+     */
+    public CatalogDiff getDiff() {
+        return diff;
+    }
+
+    /**
+     * @return The number of rows, accepted or rejected, processed per second.
+     */
+    public long getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (rowsLoaded + rowsRejected) * 1_000_000_000L / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Loaded " + rowsLoaded + " rows, rejected " + rowsRejected + " rows in "
+                + (elapsedNanos / 1_000_000) + " ms (" + getRowsPerSecond() + " rows/s)"
+                + (diff == null ? "" : ": " + diff);
+    }
+}
@@ -1,11 +1,40 @@
 package com.naveen.jukebox.model;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
+import com.naveen.jukebox.utility.IntIntHashMap;
+
+/**
+ * A user's playlist.
+ * <p>
+ * The songs of a playlist are kept as a growable {@code int[]} of song IDs, so the position of every track is
+ * known and moving between tracks is a plain array access. The position of a song ID within the playlist is
+ * answered in constant time from an index that is built on first use, extended on every append and refilled in
+ * place lazily after a removal.
+ * </p>
+ * <p>
+ * The song IDs are also kept as the text that responses list them in. The text is built the first time it is
+ * needed and then edited along with the playlist, so showing a long playlist after adding or removing a song
+ * does not format every ID again.
+ * </p>
+ */
 public class Playlist {
+    private static final int DEFAULT_CAPACITY = 8;
+
     private int id;
     private String title;
-    private List<Songs> songs;
+    private int[] songIds;
+    private int size;
+    private IntIntHashMap positions;
+    private boolean positionsStale;
+    private int version;
+    private byte[] renderedIds;
+    private int renderedLength;
+
     public int getId() {
         return id;
     }
@@ -18,22 +47,257 @@ public class Playlist {
     public void setTitle(String title) {
         this.title = title;
     }
-    public List<Songs> getSongs() {
-        return songs;
-    }
-    public void setSongs(List<Songs> songs) {
-        this.songs = songs;
-    }
     public Playlist(int id, String title, List<Songs> songs) {
+        this(id, title, songs.size());
+        for (Songs song : songs) {
+            addSong(song.getId());
+        }
+    }
+    public Playlist(int id, String title, int capacity) {
         this.id = id;
         this.title = title;
-        this.songs = songs;
+        this.songIds = new int[Math.max(capacity, 1)];
+    }
+    public Playlist() {
+        this.songIds = new int[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * @return The number of songs in the playlist.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return A counter that changes whenever a song is added or removed, so that state derived from the song
+     *         positions can tell whether it is still current.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if the playlist holds no songs.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the ID of the song at the given position.
+     *
+     * @param index The position in the playlist, starting at 0.
+     * @return The song ID at that position.
+     * @throws IndexOutOfBoundsException if the index is outside the playlist.
+     */
+    public int getSongIdAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for playlist of size " + size);
+        }
+        return songIds[index];
+    }
+
+    /**
+     * @return A copy of the song IDs of the playlist, in playlist order.
+     */
+    public int[] getSongIds() {
+        return Arrays.copyOf(songIds, size);
+    }
+
+    /**
+     * @return A new playlist with the same ID, title and songs, which does not change along with this one. The
+     *         rendered song IDs are copied too, so the copy does not format them again.
+     */
+    public Playlist copy() {
+        Playlist copy = new Playlist(id, title, size);
+        System.arraycopy(songIds, 0, copy.songIds, 0, size);
+        copy.size = size;
+        if (renderedIds != null) {
+            copy.renderedIds = Arrays.copyOf(renderedIds, renderedLength);
+            copy.renderedLength = renderedLength;
+        }
+        return copy;
+    }
+
+    /**
+     * Appends a song to the end of the playlist, growing the backing array when it is full.
+     *
+     * @param songId The ID of the song to append.
+     */
+    public void addSong(int songId) {
+        if (size == songIds.length) {
+            songIds = Arrays.copyOf(songIds, songIds.length + (songIds.length >> 1) + 1);
+        }
+        songIds[size] = songId;
+        if (positions != null && !positionsStale) {
+            positions.putIfAbsent(songId, size);
+        }
+        if (renderedIds != null) {
+            appendRendered(songId);
+        }
+        size++;
+        version++;
+    }
+
+    /**
+     * Removes the first occurrence of a song from the playlist.
+     *
+     * @param songId The ID of the song to remove.
+     * @return The position the song was removed from, or -1 if the song is not in the playlist.
+     */
+    public int removeSong(int songId) {
+        int index = indexOf(songId);
+        if (index == -1) {
+            return -1;
+        }
+        System.arraycopy(songIds, index + 1, songIds, index, size - index - 1);
+        size--;
+        version++;
+        // Every later position has shifted; refill the index the next time it is needed.
+        positionsStale = true;
+        if (renderedIds != null) {
+            removeRendered(index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the position of the first occurrence of a song in the playlist.
+     *
+     * @param songId The ID of the song to look for.
+     * @return The position of the song, or -1 if the song is not in the playlist.
+     */
+    public int indexOf(int songId) {
+        return positions().getOrDefault(songId, -1);
+    }
+
+    /**
+     * @return The number of different songs in the playlist.
+     */
+    public int distinctSongCount() {
+        return positions().size();
+    }
+
+    /**
+     * Checks whether the playlist holds the given song.
+     *
+     * @param songId The ID of the song to look for.
+     * @return true if the song is in the playlist at least once.
+     */
+    public boolean containsSong(int songId) {
+        return indexOf(songId) != -1;
+    }
+
+    /**
+     * Returns the song IDs of the playlist in playlist order, separated by spaces.
+     *
+     * @return The IDs as text, copied from the text kept with the playlist.
+     */
+    public String renderSongIds() {
+        render();
+        return new String(renderedIds, 0, renderedLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes the song IDs of the playlist in playlist order, separated by spaces, straight from the text kept with
+     * the playlist.
+     *
+     * @param out    The writer to write to.
+     * @param buffer A buffer to pass the text through; any length will do.
+     * @throws IOException if the writer fails.
+     */
+    public void writeSongIds(Writer out, char[] buffer) throws IOException {
+        render();
+        for (int offset = 0; offset < renderedLength; ) {
+            int length = Math.min(buffer.length, renderedLength - offset);
+            for (int i = 0; i < length; i++) {
+                buffer[i] = (char) renderedIds[offset + i];
+            }
+            out.write(buffer, 0, length);
+            offset += length;
+        }
     }
-    public Playlist() {}
+
+    private void render() {
+        if (renderedIds == null) {
+            renderedIds = new byte[Math.max(size * 8, 16)];
+            for (int i = 0; i < size; i++) {
+                appendRendered(songIds[i]);
+            }
+        }
+    }
+
+    private IntIntHashMap positions() {
+        if (positions == null) {
+            positions = new IntIntHashMap(size);
+            positionsStale = true;
+        }
+        if (positionsStale) {
+            // the map keeps its capacity, so refilling it after a removal allocates nothing
+            positions.clear();
+            for (int i = 0; i < size; i++) {
+                positions.putIfAbsent(songIds[i], i);
+            }
+            positionsStale = false;
+        }
+        return positions;
+    }
+
+    /**
+     * Writes a song ID at the end of the rendered text, preceded by a separator unless it is the first.
+     */
+    private void appendRendered(int songId) {
+        // a separator, a sign and ten digits at most
+        if (renderedLength + 12 > renderedIds.length) {
+            renderedIds = Arrays.copyOf(renderedIds, renderedIds.length + (renderedIds.length >> 1) + 12);
+        }
+        if (renderedLength > 0) {
+            renderedIds[renderedLength++] = ' ';
+        }
+        long value = songId;
+        if (value < 0) {
+            renderedIds[renderedLength++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long bound = 10; bound <= value; bound *= 10) {
+            digits++;
+        }
+        for (int i = renderedLength + digits - 1; i >= renderedLength; i--) {
+            renderedIds[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        renderedLength += digits;
+    }
+
+    /**
+     * Cuts the song ID at the given position out of the rendered text, together with one separator.
+     */
+    private void removeRendered(int index) {
+        int start = 0;
+        for (int skipped = 0; skipped < index; start++) {
+            if (renderedIds[start] == ' ') {
+                skipped++;
+            }
+        }
+        int end = start;
+        while (end < renderedLength && renderedIds[end] != ' ') {
+            end++;
+        }
+        if (end < renderedLength) {
+            end++;
+        } else if (start > 0) {
+            start--;
+        }
+        System.arraycopy(renderedIds, end, renderedIds, start, renderedLength - end);
+        renderedLength -= end - start;
+    }
+
     @Override
     public String toString() {
-        return "Playlist [id=" + id + ", songs=" + songs + ", title=" + title + "]";
+        return "Playlist [id=" + id + ", songs=" + Arrays.toString(getSongIds()) + ", title=" + title + "]";
     }
-    
-    
+
+
 }
@@ -0,0 +1,176 @@
+package com.naveen.jukebox.model;
+
+/**
+ * A random order of the positions of a playlist, drawn one step at a time as playback reaches it.
+ * <p>
+ * The order is a Fisher-Yates shuffle held in an {@code int[]} that starts out as the identity; a zero entry
+ * stands for its own position, so creating an order for a huge playlist costs one zeroed array and no loop.
+ * Positions are drawn from both ends: moving forward past the drawn front takes a random undrawn position for the
+ * next slot, moving backward past the drawn back takes one for the slot before it. Every move is therefore
+ * {@code O(1)}, the order is uniformly random, and moving back and forth replays the same songs.
+ * </p>
+ * <p>
+ * The random numbers come from a SplitMix64 sequence whose state is part of the order, so an order can be saved
+ * and restored exactly, and the same seed always gives the same order.
+ * </p>
+ */
+public class ShuffleOrder {
+
+    private final int[] order;
+    private final int playlistVersion;
+    private int front;
+    private int back;
+    private int position;
+    private long state;
+
+    private ShuffleOrder(int[] order, int playlistVersion, int front, int back, int position, long state) {
+        this.order = order;
+        this.playlistVersion = playlistVersion;
+        this.front = front;
+        this.back = back;
+        this.position = position;
+        this.state = state;
+    }
+
+    /**
+     * Creates an order for a playlist that starts with the given position.
+     *
+     * @param playlist The playlist to shuffle. Must not be empty.
+     * @param first    The position of the song that comes first in the order.
+     * @param seed     The seed of the random sequence.
+     * @return The new order, positioned on its first song.
+     */
+    public static ShuffleOrder startingAt(Playlist playlist, int first, long seed) {
+        ShuffleOrder shuffle = new ShuffleOrder(new int[playlist.size()], playlist.getVersion(), 0, playlist.size(), 0,
+                seed);
+        shuffle.swap(0, first);
+        shuffle.front = 1;
+        return shuffle;
+    }
+
+    /**
+     * Creates an order for a playlist that starts with a random song.
+     *
+     * @param playlist The playlist to shuffle. Must not be empty.
+     * @param seed     The seed of the random sequence.
+     * @return The new order, positioned on its first song.
+     */
+    public static ShuffleOrder random(Playlist playlist, long seed) {
+        ShuffleOrder shuffle = new ShuffleOrder(new int[playlist.size()], playlist.getVersion(), 0, playlist.size(), 0,
+                seed);
+        shuffle.drawFront();
+        return shuffle;
+    }
+
+    /**
+     * Restores an order saved with {@link #getEntries()} and the other getters. The order is taken to fit the
+     * playlist, so an order that no longer did when it was saved must be replaced before saving, see
+     * {@link CurrentlyPlaying#getUpcomingShuffle()}.
+     *
+     * @param playlist The shuffled playlist.
+     * @param entries  The raw entries of the order.
+     * @param front    The number of positions drawn at the front.
+     * @param back     The first position drawn at the back.
+     * @param position The current position in the order.
+     * @param state    The state of the random sequence.
+     * @return The restored order.
+     */
+    public static ShuffleOrder restore(Playlist playlist, int[] entries, int front, int back, int position,
+            long state) {
+        return new ShuffleOrder(entries, playlist.getVersion(), front, back, position, state);
+    }
+
+    /**
+     * Tells whether the order still fits the playlist. Any song added or removed since the order was made shifts
+     * the positions, and the order must be replaced.
+     *
+     * @param playlist The shuffled playlist.
+     * @return true if the playlist was not changed since the order was made.
+     */
+    public boolean isValidFor(Playlist playlist) {
+        return playlist.getVersion() == playlistVersion && playlist.size() == order.length;
+    }
+
+    /**
+     * @return The playlist position of the current song.
+     */
+    public int current() {
+        return valueAt(position);
+    }
+
+    /**
+     * Moves to the next song, starting over with the same order after the last one.
+     *
+     * @return The playlist position of the new current song.
+     */
+    public int next() {
+        position = position + 1 == order.length ? 0 : position + 1;
+        if (position == front && front < back) {
+            drawFront();
+        }
+        return valueAt(position);
+    }
+
+    /**
+     * Moves to the previous song, continuing from the end of the order before the first one.
+     *
+     * @return The playlist position of the new current song.
+     */
+    public int previous() {
+        position = position == 0 ? order.length - 1 : position - 1;
+        if (position == back - 1 && front < back) {
+            drawBack();
+        }
+        return valueAt(position);
+    }
+
+    public int[] getEntries() {
+        return order;
+    }
+    public int getFront() {
+        return front;
+    }
+    public int getBack() {
+        return back;
+    }
+    public int getPosition() {
+        return position;
+    }
+    public long getState() {
+        return state;
+    }
+
+    private void drawFront() {
+        swap(front, front + nextInt(back - front));
+        front++;
+    }
+
+    private void drawBack() {
+        swap(back - 1, front + nextInt(back - front));
+        back--;
+    }
+
+    private int valueAt(int slot) {
+        int entry = order[slot];
+        return entry == 0 ? slot : entry - 1;
+    }
+
+    private void swap(int a, int b) {
+        int valueA = valueAt(a);
+        int valueB = valueAt(b);
+        order[a] = valueB + 1;
+        order[b] = valueA + 1;
+    }
+
+    /**
+     * Returns a random number below the bound from the SplitMix64 sequence, by multiplying rather than dividing.
+     */
+    private int nextInt(int bound) {
+        state += 0x9E3779B97F4A7C15L;
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+}
@@ -0,0 +1,104 @@
+package com.naveen.jukebox.model;
+
+import java.util.Arrays;
+
+import com.naveen.jukebox.utility.IntObjectHashMap;
+
+/**
+ * A reverse index from a song ID to the playlists of one user that hold the song.
+ * <p>
+ * For every song the index keeps a small array with one playlist ID per occurrence of the song, so a song
+ * that appears twice in a playlist is listed twice. Songs are added and removed one occurrence at a time as
+ * playlists change, which keeps the index exact without ever rescanning a playlist. A song is usually held by
+ * only a few playlists of a user, so both membership checks are constant time in practice.
+ * </p>
+ */
+public class SongPlaylistIndex {
+    private static final int[] NONE = new int[0];
+
+    private final IntObjectHashMap<int[]> playlistsBySong = new IntObjectHashMap<>();
+
+    /**
+     * Records one occurrence of a song in a playlist.
+     *
+     * @param songId     The ID of the song.
+     * @param playlistId The ID of the playlist holding the song.
+     */
+    public void add(int songId, int playlistId) {
+        int[] playlists = playlistsBySong.get(songId);
+        int[] updated = playlists == null ? new int[1] : Arrays.copyOf(playlists, playlists.length + 1);
+        updated[updated.length - 1] = playlistId;
+        playlistsBySong.put(songId, updated);
+    }
+
+    /**
+     * Forgets one occurrence of a song in a playlist.
+     *
+     * @param songId     The ID of the song.
+     * @param playlistId The ID of the playlist the song was removed from.
+     */
+    public void remove(int songId, int playlistId) {
+        int[] playlists = playlistsBySong.get(songId);
+        if (playlists == null) {
+            return;
+        }
+        for (int i = 0; i < playlists.length; i++) {
+            if (playlists[i] == playlistId) {
+                if (playlists.length == 1) {
+                    playlistsBySong.remove(songId);
+                } else {
+                    int[] updated = new int[playlists.length - 1];
+                    System.arraycopy(playlists, 0, updated, 0, i);
+                    System.arraycopy(playlists, i + 1, updated, i, updated.length - i);
+                    playlistsBySong.put(songId, updated);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records every song of a playlist.
+     *
+     * @param playlist The playlist to index.
+     */
+    public void addPlaylist(Playlist playlist) {
+        for (int i = 0; i < playlist.size(); i++) {
+            add(playlist.getSongIdAt(i), playlist.getId());
+        }
+    }
+
+    /**
+     * Forgets every song of a playlist.
+     *
+     * @param playlist The playlist to remove from the index.
+     */
+    public void removePlaylist(Playlist playlist) {
+        for (int i = 0; i < playlist.size(); i++) {
+            remove(playlist.getSongIdAt(i), playlist.getId());
+        }
+    }
+
+    /**
+     * @param songId The ID of the song.
+     * @return true if any playlist of the user holds the song.
+     */
+    public boolean contains(int songId) {
+        return playlistsBySong.containsKey(songId);
+    }
+
+    /**
+     * @param songId     The ID of the song.
+     * @param playlistId The ID of the playlist.
+     * @return true if the given playlist holds the song.
+     */
+    public boolean contains(int songId, int playlistId) {
+        int[] playlists = playlistsBySong.get(songId);
+        for (int id : playlists == null ? NONE : playlists) {
+            if (id == playlistId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
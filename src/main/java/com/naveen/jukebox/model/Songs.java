@@ -1,15 +1,32 @@
 package com.naveen.jukebox.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
+import com.naveen.jukebox.utility.SymbolTable;
+
+/**
+ * A song of the catalog.
+ * <p>
+ * Genre, album, owner and collaborators repeat across many songs, so they are stored as codes of the shared
+ * {@link SymbolTable#GLOBAL} dictionary instead of as separate strings. The getters decode them on access.
+ * </p>
+ * <p>
+ * The response shown when the song is played is built on the first play and kept with the song, so playing a
+ * song again does not decode and join its names again. Changing any field drops it.
+ * </p>
+ */
 public class Songs {
     private int id;
     private String title;
-    private String genre;
-    private String album;
-    private String owner;
-    private List<String> collaboration;
-    
+    private int genre = SymbolTable.NO_SYMBOL;
+    private int album = SymbolTable.NO_SYMBOL;
+    private int owner = SymbolTable.NO_SYMBOL;
+    private int[] collaboration;
+    private String playingResponse;
+
     public int getId() {
         return id;
     }
@@ -18,51 +35,136 @@ public class Songs {
             List<String> collaboration) {
         this.id = id;
         this.title = title;
-        this.genre = genre;
-        this.album = album;
-        this.owner = owner;
-        this.collaboration = collaboration;
+        setGenre(genre);
+        setAlbum(album);
+        setOwner(owner);
+        setCollaboration(collaboration);
     }
     public Songs() {}
-    
+
     public void setId(int id) {
         this.id = id;
+        playingResponse = null;
     }
     public String getTitle() {
         return title;
     }
     public void setTitle(String title) {
         this.title = title;
+        playingResponse = null;
     }
     public String getGenre() {
-        return genre;
+        return SymbolTable.GLOBAL.decode(genre);
     }
     public void setGenre(String genre) {
-        this.genre = genre;
+        this.genre = SymbolTable.GLOBAL.encode(genre);
+        playingResponse = null;
     }
     public String getAlbum() {
-        return album;
+        return SymbolTable.GLOBAL.decode(album);
     }
     public void setAlbum(String album) {
-        this.album = album;
+        this.album = SymbolTable.GLOBAL.encode(album);
+        playingResponse = null;
     }
     public String getOwner() {
-        return owner;
+        return SymbolTable.GLOBAL.decode(owner);
     }
     public void setOwner(String owner) {
-        this.owner = owner;
+        this.owner = SymbolTable.GLOBAL.encode(owner);
+        playingResponse = null;
+    }
+
+    /**
+     * @return The {@link SymbolTable#GLOBAL} code of the album.
+     */
+    public int getAlbumCode() {
+        return album;
+    }
+
+    /**
+     * @return The {@link SymbolTable#GLOBAL} code of the owner.
+     */
+    public int getOwnerCode() {
+        return owner;
     }
+
+    /**
+     * Decodes the collaborators of the song into a new list.
+     *
+     * @return The collaborator names, or null if the song has no collaborator field.
+     */
     public List<String> getCollaboration() {
-        return collaboration;
+        if (collaboration == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(collaboration.length);
+        for (int code : collaboration) {
+            names.add(SymbolTable.GLOBAL.decode(code));
+        }
+        return names;
     }
     public void setCollaboration(List<String> collaboration) {
+        playingResponse = null;
+        if (collaboration == null) {
+            this.collaboration = null;
+            return;
+        }
+        int[] codes = new int[collaboration.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = SymbolTable.GLOBAL.encode(collaboration.get(i));
+        }
+        this.collaboration = codes;
+    }
+
+    /**
+     * @return The {@link SymbolTable#GLOBAL} codes of the collaborators. The array must not be modified.
+     */
+    public int[] getCollaborationCodes() {
+        return collaboration;
+    }
+    public void setCollaborationCodes(int[] collaboration) {
         this.collaboration = collaboration;
+        playingResponse = null;
+    }
+
+    /**
+     * @return The response shown when the song is played, or null if it has not been built yet.
+     */
+    public String getPlayingResponse() {
+        return playingResponse;
+    }
+
+    /**
+     * Keeps the response shown when the song is played. Songs are shared by all users, so several threads may
+     * build and set it at the same time; they all build the same text and any of them may win.
+     *
+     * @param playingResponse The response built from the current fields of the song.
+     */
+    public void setPlayingResponse(String playingResponse) {
+        this.playingResponse = playingResponse;
+    }
+
+    /**
+     * Compares every field of two songs. Unlike {@code equals}, this is meant for telling a changed catalog entry
+     * from an unchanged one, and songs stay compared by identity everywhere else.
+     *
+     * @param other The song to compare with.
+     * @return true if both songs have the same ID and the same metadata.
+     */
+    public boolean sameContent(Songs other) {
+        return id == other.id
+                && genre == other.genre
+                && album == other.album
+                && owner == other.owner
+                && Objects.equals(title, other.title)
+                && Arrays.equals(collaboration, other.collaboration);
     }
 
     @Override
     public String toString() {
         return "Song - "+this.title+"\n"+
-        "Album - "+this.album+"\n"+
-        "Artists - "+this.owner+"\n";
+        "Album - "+getAlbum()+"\n"+
+        "Artists - "+getOwner()+"\n";
     }
 }
@@ -1,37 +1,184 @@
 package com.naveen.jukebox.model;
 
+import java.util.Collections;
 import java.util.List;
 
+import com.naveen.jukebox.utility.IntObjectHashMap;
+import com.naveen.jukebox.utility.IntRingDeque;
+
+/**
+ * A jukebox user with their playlists and playback state.
+ * <p>
+ * Besides the ordered list of playlists, a user keeps an index of playlists by ID and a
+ * {@link SongPlaylistIndex} from song IDs to the playlists holding them. Playlists and their songs must be
+ * changed through the methods of this class so that both indexes stay in step with the playlists.
+ * </p>
+ */
 public class User {
-    private int id;
-    private String name;
-    private List<Playlist> playlists;
-    private CurrentlyPlaying currentlyPlaying;
-    
+    private final int id;
+    private final String name;
+    private final List<Playlist> playlists;
+    private final IntObjectHashMap<Playlist> playlistsById = new IntObjectHashMap<>();
+    private final SongPlaylistIndex songIndex = new SongPlaylistIndex();
+    private int lastPlaylistId;
+    private volatile CurrentlyPlaying currentlyPlaying;
+    private final IntRingDeque upNext = new IntRingDeque();
+    private boolean shuffle;
+    private int shuffleCount;
+
     public CurrentlyPlaying getCurrentlyPlaying() {
         return currentlyPlaying;
     }
     public void setCurrentlyPlaying(CurrentlyPlaying currentlyPlaying) {
         this.currentlyPlaying = currentlyPlaying;
     }
+    public boolean isShuffle() {
+        return shuffle;
+    }
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+    public int getShuffleCount() {
+        return shuffleCount;
+    }
+    public void setShuffleCount(int shuffleCount) {
+        this.shuffleCount = shuffleCount;
+    }
+
+    /**
+     * @return The songs the user queued to play next, in the order they will play.
+     */
+    public IntRingDeque getUpNext() {
+        return upNext;
+    }
+
+    /**
+     * Returns the seed for the user's next shuffle order. Seeds are derived from the user, the playlist and the
+     * number of orders made so far, so replaying the same commands shuffles the same way.
+     *
+     * @param playlistId The ID of the playlist to shuffle.
+     * @return A new seed.
+     */
+    public long nextShuffleSeed(int playlistId) {
+        shuffleCount++;
+        return ((long) id << 32 | playlistId) * 0x9E3779B97F4A7C15L + shuffleCount;
+    }
     public int getId() {
         return id;
     }
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return A read-only view of the user's playlists, in creation order.
+     */
     public List<Playlist> getPlaylists() {
-        return playlists;
+        return Collections.unmodifiableList(playlists);
+    }
+
+    /**
+     * @param playlistId The ID of the playlist.
+     * @return The user's playlist with the given ID, or null if the user has no such playlist.
+     */
+    public Playlist getPlaylistById(int playlistId) {
+        return playlistsById.get(playlistId);
+    }
+
+    /**
+     * @return The reverse index from song IDs to the user's playlists holding them.
+     */
+    public SongPlaylistIndex getSongIndex() {
+        return songIndex;
+    }
+
+    /**
+     * Hands out the ID for the user's next playlist. IDs are never reused, even after a playlist is deleted.
+     *
+     * @return A new playlist ID.
+     */
+    public int nextPlaylistId() {
+        return lastPlaylistId + 1;
+    }
+
+    /**
+     * Makes sure that new playlists get IDs above the given one, for example after a recovery.
+     *
+     * @param lastPlaylistId The highest playlist ID that must not be handed out again.
+     */
+    public void reservePlaylistIds(int lastPlaylistId) {
+        this.lastPlaylistId = Math.max(this.lastPlaylistId, lastPlaylistId);
+    }
+
+    /**
+     * Adds a playlist and indexes its songs.
+     *
+     * @param playlist The playlist to add.
+     */
+    public void addPlaylist(Playlist playlist) {
+        playlists.add(playlist);
+        playlistsById.put(playlist.getId(), playlist);
+        songIndex.addPlaylist(playlist);
+        lastPlaylistId = Math.max(lastPlaylistId, playlist.getId());
     }
+
+    /**
+     * Removes a playlist and its songs from the indexes.
+     *
+     * @param playlistId The ID of the playlist to remove.
+     * @return The removed playlist, or null if the user has no such playlist.
+     */
+    public Playlist removePlaylist(int playlistId) {
+        Playlist playlist = playlistsById.remove(playlistId);
+        if (playlist != null) {
+            playlists.remove(playlist);
+            songIndex.removePlaylist(playlist);
+        }
+        return playlist;
+    }
+
+    /**
+     * Appends a song to one of the user's playlists.
+     *
+     * @param playlist The playlist to change.
+     * @param songId   The ID of the song to append.
+     */
+    public void addSongToPlaylist(Playlist playlist, int songId) {
+        playlist.addSong(songId);
+        songIndex.add(songId, playlist.getId());
+    }
+
+    /**
+     * Removes the first occurrence of a song from one of the user's playlists.
+     *
+     * @param playlist The playlist to change.
+     * @param songId   The ID of the song to remove.
+     * @return The position the song was removed from, or -1 if the playlist does not hold the song.
+     */
+    public int removeSongFromPlaylist(Playlist playlist, int songId) {
+        int index = playlist.removeSong(songId);
+        if (index != -1) {
+            songIndex.remove(songId, playlist.getId());
+        }
+        return index;
+    }
+
     public User(int id, String name, List<Playlist> playlists, CurrentlyPlaying currentlyPlaying) {
         this.id = id;
         this.name = name;
         this.playlists = playlists;
         this.currentlyPlaying = currentlyPlaying;
+        for (Playlist playlist : playlists) {
+            playlistsById.put(playlist.getId(), playlist);
+            songIndex.addPlaylist(playlist);
+            lastPlaylistId = Math.max(lastPlaylistId, playlist.getId());
+        }
     }
-    public User() {}
     @Override
     public String toString() {
         return "User [currentlyPlaying=" + currentlyPlaying + ", id=" + id + ", name=" + name
                 + ", playlists=" + playlists + "]";
     }
 
-    
+
 }
@@ -0,0 +1,330 @@
+package com.naveen.jukebox.output;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+
+/**
+ * Hands records from the thread executing commands to a writer thread that writes them to another sink, so that a
+ * slow or blocked output stalls the writer rather than the commands.
+ * <p>
+ * The two threads share a single-producer, single-consumer ring of preallocated slots. The producer fills the next
+ * free slot and publishes it by advancing its sequence; the writer takes the published slots in order, writes them
+ * to the target and frees them by advancing its own sequence. Neither side takes a lock, and a record allocates
+ * nothing in the ring. A playlist is copied into its slot, as later commands may change it before it is written;
+ * nothing else a record refers to changes.
+ * </p>
+ * <p>
+ * A side that has nothing to do, the writer without records or the producer facing a full ring, waits with the
+ * configured {@link WaitStrategy}. A full ring is backpressure: the producer counts how often and how long it had
+ * to wait, and keeps the most slots ever in use, the high-water mark, which shows how close the ring came to
+ * filling up. {@link #report()} renders the counters.
+ * </p>
+ * <p>
+ * Diagnostics passed to {@link #diagnostic(String)} go through the ring as well and are printed by the writer.
+ * Records must be produced by one thread at a time. If the target fails, the error is rethrown to the producer
+ * by its next call and the records after it are dropped.
+ * </p>
+ */
+public class AsyncOutputSink implements OutputSink {
+
+    /**
+     * The number of slots of a ring unless configured otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final byte MESSAGE = 0;
+    private static final byte PLAYING = 1;
+    private static final byte PLAYLIST = 2;
+    private static final byte SONG_LIST = 3;
+    private static final byte DIAGNOSTIC = 4;
+    private static final byte FLUSH = 5;
+
+    private final OutputSink target;
+    private final PrintStream diagnostics;
+    private final WaitStrategy waitStrategy;
+    private final Slot[] slots;
+    private final int mask;
+    private final Thread writer;
+
+    /**
+     * The number of records published by the producer.
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * The number of records taken by the writer, whose slots may be reused.
+     */
+    private final AtomicLong consumed = new AtomicLong();
+
+    // producer state; the counters are volatile only to be read by other threads
+    private long next;
+    private long consumedSeen;
+    private volatile long highWaterMark;
+    private volatile long fullWaits;
+    private volatile long fullWaitNanos;
+
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param target       The sink the writer writes to. Only the writer uses it from now on.
+     * @param diagnostics  Where the writer prints diagnostics.
+     * @param capacity     The number of slots, rounded up to a power of two.
+     * @param waitStrategy How both threads wait.
+     */
+    public AsyncOutputSink(OutputSink target, PrintStream diagnostics, int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        this.target = target;
+        this.diagnostics = diagnostics;
+        this.waitStrategy = waitStrategy;
+        this.slots = new Slot[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        this.mask = slots.length - 1;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        this.writer = new Thread(this::writeLoop, "jukebox-output");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void message(Opcode opcode, String text) throws IOException {
+        Slot slot = claim(MESSAGE, opcode);
+        slot.text = text;
+        publish();
+    }
+
+    @Override
+    public void playing(Opcode opcode, Songs song) throws IOException {
+        Slot slot = claim(PLAYING, opcode);
+        slot.song = song;
+        publish();
+    }
+
+    @Override
+    public void playlist(Opcode opcode, Playlist playlist) throws IOException {
+        Slot slot = claim(PLAYLIST, opcode);
+        slot.playlist = playlist.copy();
+        publish();
+    }
+
+    @Override
+    public void songs(Opcode opcode, String header, List<Songs> songs) throws IOException {
+        Slot slot = claim(SONG_LIST, opcode);
+        slot.text = header;
+        slot.songs = songs;
+        publish();
+    }
+
+    /**
+     * Prints a diagnostic line on the writer thread.
+     *
+     * @param message The diagnostic message.
+     */
+    public void diagnostic(String message) throws IOException {
+        Slot slot = claim(DIAGNOSTIC, Opcode.INVALID);
+        slot.text = message;
+        publish();
+    }
+
+    /**
+     * Waits until the writer has written and flushed every record published so far.
+     */
+    @Override
+    public void flush() throws IOException {
+        claim(FLUSH, Opcode.INVALID);
+        publish();
+        long written = next;
+        for (int round = 0; consumed.get() < written; round++) {
+            if (!writer.isAlive()) {
+                break;
+            }
+            waitStrategy.idle(round);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Flushes the records and stops the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            closed = true;
+            LockSupport.unpark(writer);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The number of slots of the ring.
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return The most slots that were ever in use at once.
+     */
+    public long highWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * @return The number of records the producer had to wait for a free slot for.
+     */
+    public long fullWaits() {
+        return fullWaits;
+    }
+
+    /**
+     * @return The total time the producer waited for free slots, in nanoseconds.
+     */
+    public long fullWaitNanos() {
+        return fullWaitNanos;
+    }
+
+    /**
+     * @return The number of records and flushes the writer has taken from the ring.
+     */
+    public long written() {
+        return consumed.get();
+    }
+
+    /**
+     * @return The state of the ring and its backpressure counters as one line of text.
+     */
+    public String report() {
+        return String.format("Output Ring - %d slots, %s, high-water mark %d, records %d, full waits %d (%.1fms)",
+                capacity(), waitStrategy, highWaterMark(), written(), fullWaits(), fullWaitNanos() / 1_000_000.0);
+    }
+
+    private Slot claim(byte kind, Opcode opcode) throws IOException {
+        checkFailure();
+        if (next - consumedSeen >= slots.length) {
+            consumedSeen = consumed.get();
+            if (next - consumedSeen >= slots.length) {
+                awaitFreeSlot();
+            }
+        }
+        Slot slot = slots[(int) next & mask];
+        slot.kind = kind;
+        slot.opcode = opcode;
+        return slot;
+    }
+
+    private void awaitFreeSlot() throws IOException {
+        long start = System.nanoTime();
+        for (int round = 0; next - consumedSeen >= slots.length; round++) {
+            if (!writer.isAlive()) {
+                checkFailure();
+                throw new IOException("The output writer has stopped.");
+            }
+            waitStrategy.idle(round);
+            consumedSeen = consumed.get();
+        }
+        fullWaits = fullWaits + 1;
+        fullWaitNanos = fullWaitNanos + System.nanoTime() - start;
+    }
+
+    private void publish() {
+        next++;
+        published.setRelease(next);
+        long inUse = next - consumed.getAcquire();
+        if (inUse > highWaterMark) {
+            highWaterMark = inUse;
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("Writing the output failed.", error);
+        }
+    }
+
+    private void writeLoop() {
+        long read = 0;
+        int round = 0;
+        while (true) {
+            long available = published.getAcquire();
+            if (available == read) {
+                if (closed) {
+                    return;
+                }
+                waitStrategy.idle(round);
+                // saturate, so that a long idle spell does not wrap around to the busy-spinning rounds
+                if (round < Integer.MAX_VALUE) {
+                    round++;
+                }
+                continue;
+            }
+            round = 0;
+            while (read < available) {
+                Slot slot = slots[(int) read & mask];
+                write(slot);
+                slot.clear();
+                read++;
+                consumed.setRelease(read);
+            }
+        }
+    }
+
+    private void write(Slot slot) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            switch (slot.kind) {
+                case MESSAGE -> target.message(slot.opcode, slot.text);
+                case PLAYING -> target.playing(slot.opcode, slot.song);
+                case PLAYLIST -> target.playlist(slot.opcode, slot.playlist);
+                case SONG_LIST -> target.songs(slot.opcode, slot.text, slot.songs);
+                case DIAGNOSTIC -> diagnostics.println(slot.text);
+                case FLUSH -> target.flush();
+                default -> throw new IllegalStateException("Unknown record kind " + slot.kind);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+    }
+
+    /**
+     * One preallocated record of the ring. Only the fields of its kind are set.
+     */
+    private static final class Slot {
+        private byte kind;
+        private Opcode opcode;
+        private String text;
+        private Songs song;
+        private Playlist playlist;
+        private List<Songs> songs;
+
+        void clear() {
+            opcode = null;
+            text = null;
+            song = null;
+            playlist = null;
+            songs = null;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.naveen.jukebox.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.SymbolTable;
+
+/**
+ * Writes results in a compact binary format of length-prefixed records.
+ * <p>
+ * Lengths and counts are unsigned varints, seven bits per byte with the high bit set on all but the last byte,
+ * and IDs are zigzag varints, so the small numbers that make up most of the output take a byte or two. Lengths
+ * and counts that may stand for null are written plus one, with 0 for null.
+ * </p>
+ * <p>
+ * The stream starts with the big-endian int {@value #MAGIC}, the byte {@value #VERSION} and the table of opcodes:
+ * a count followed by the verb of every opcode in ordinal order. Each record then is
+ * </p>
+ * <pre>
+ * varint length of the rest of the record
+ * byte   type: 0 message, 1 playing song, 2 playlist, 3 song list
+ * byte   opcode ordinal, an index into the opcode table
+ * ...    payload
+ * </pre>
+ * <p>
+ * The payload of a message is the text; of a playing song, the song; of a playlist, the ID, the name, a count and
+ * that many song IDs; of a song list, a count and that many songs. A song is its ID, title, genre, album and owner
+ * followed by the collaborators, a count that may stand for null and that many names. A string is its length in
+ * bytes, which may stand for null, followed by UTF-8.
+ * </p>
+ * <p>
+ * A record is encoded into a reusable buffer, so its length is known before it is written.
+ * </p>
+ */
+public class BinarySink implements OutputSink {
+
+    public static final int MAGIC = 0x4A4B4258;
+    public static final byte VERSION = 1;
+
+    public static final byte MESSAGE = 0;
+    public static final byte PLAYING = 1;
+    public static final byte PLAYLIST = 2;
+    public static final byte SONG_LIST = 3;
+
+    private final OutputStream out;
+    private final byte[] header = new byte[5];
+    private byte[] record = new byte[1 << 12];
+    private int length;
+
+    /**
+     * Writes the stream header.
+     *
+     * @param out The stream to write to. It should be buffered; it is flushed but never closed by the sink.
+     */
+    public BinarySink(OutputStream out) throws IOException {
+        this.out = out;
+        ensureCapacity(5);
+        record[length++] = (byte) (MAGIC >>> 24);
+        record[length++] = (byte) (MAGIC >>> 16);
+        record[length++] = (byte) (MAGIC >>> 8);
+        record[length++] = (byte) MAGIC;
+        record[length++] = VERSION;
+        Opcode[] opcodes = Opcode.values();
+        writeVarInt(opcodes.length);
+        for (Opcode opcode : opcodes) {
+            writeString(opcode.getVerb());
+        }
+        out.write(record, 0, length);
+        length = 0;
+    }
+
+    @Override
+    public void message(Opcode opcode, String text) throws IOException {
+        start(MESSAGE, opcode);
+        writeString(text);
+        end();
+    }
+
+    @Override
+    public void playing(Opcode opcode, Songs song) throws IOException {
+        start(PLAYING, opcode);
+        writeSong(song);
+        end();
+    }
+
+    @Override
+    public void playlist(Opcode opcode, Playlist playlist) throws IOException {
+        start(PLAYLIST, opcode);
+        writeId(playlist.getId());
+        writeString(playlist.getTitle());
+        int size = playlist.size();
+        writeVarInt(size);
+        for (int i = 0; i < size; i++) {
+            writeId(playlist.getSongIdAt(i));
+        }
+        end();
+    }
+
+    @Override
+    public void songs(Opcode opcode, String header, List<Songs> songs) throws IOException {
+        start(SONG_LIST, opcode);
+        writeVarInt(songs.size());
+        for (Songs song : songs) {
+            writeSong(song);
+        }
+        end();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void start(byte type, Opcode opcode) {
+        length = 0;
+        ensureCapacity(2);
+        record[length++] = type;
+        record[length++] = (byte) opcode.ordinal();
+    }
+
+    private void end() throws IOException {
+        int headerLength = 0;
+        int value = length;
+        while ((value & ~0x7F) != 0) {
+            header[headerLength++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        header[headerLength++] = (byte) value;
+        out.write(header, 0, headerLength);
+        out.write(record, 0, length);
+        length = 0;
+    }
+
+    private void writeSong(Songs song) {
+        writeId(song.getId());
+        writeString(song.getTitle());
+        writeString(song.getGenre());
+        writeString(song.getAlbum());
+        writeString(song.getOwner());
+        int[] collaborators = song.getCollaborationCodes();
+        if (collaborators == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(collaborators.length + 1);
+        for (int code : collaborators) {
+            writeString(SymbolTable.GLOBAL.decode(code));
+        }
+    }
+
+    private void writeId(int id) {
+        writeVarInt(id << 1 ^ id >> 31);
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            record[length++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        record[length++] = (byte) value;
+    }
+
+    /**
+     * Encodes a string as UTF-8 straight into the record. An unpaired surrogate is written as '?', as
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(utf8Length(value) + 1);
+        // a char takes three bytes at most, a surrogate pair four for its two chars
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                record[length++] = (byte) c;
+            } else if (c < 0x800) {
+                record[length++] = (byte) (0xC0 | c >> 6);
+                record[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                record[length++] = (byte) (0xF0 | codePoint >> 18);
+                record[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                record[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                record[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                record[length++] = '?';
+            } else {
+                record[length++] = (byte) (0xE0 | c >> 12);
+                record[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                record[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (isSurrogatePair(value, i)) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (length + bytes > record.length) {
+            record = Arrays.copyOf(record, Math.max(length + bytes, record.length * 2));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.naveen.jukebox.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.SymbolTable;
+
+/**
+ * Writes results as JSON, one object per line, through a streaming Jackson generator.
+ * <p>
+ * Every record names the command it answers and holds exactly one of the fields {@code message}, {@code song},
+ * {@code playlist} or {@code songs}:
+ * </p>
+ * <pre>
+ * {"command":"CREATE-PLAYLIST","message":"Playlist ID - 1"}
+ * {"command":"PLAY-SONG","song":{"id":5,"title":"...","genre":"...","album":"...","owner":"...","collaborators":["..."]}}
+ * {"command":"MODIFY-PLAYLIST","playlist":{"id":1,"name":"...","songIds":[1,4,5]}}
+ * {"command":"SEARCH","songs":[{"id":5,...}]}
+ * </pre>
+ * <p>
+ * A message that answers no command has a null command. The generator encodes straight into its own buffer, so
+ * no String of a record is built.
+ * </p>
+ */
+public class JsonSink implements OutputSink {
+
+    private static final JsonFactory FACTORY = new JsonFactoryBuilder()
+            .rootValueSeparator((String) null)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JsonGenerator json;
+
+    /**
+     * @param out The stream to write to. It is flushed but never closed by the sink.
+     */
+    public JsonSink(OutputStream out) throws IOException {
+        this.json = FACTORY.createGenerator(out);
+    }
+
+    @Override
+    public void message(Opcode opcode, String text) throws IOException {
+        start(opcode);
+        json.writeStringField("message", text);
+        end();
+    }
+
+    @Override
+    public void playing(Opcode opcode, Songs song) throws IOException {
+        start(opcode);
+        json.writeFieldName("song");
+        writeSong(song);
+        end();
+    }
+
+    @Override
+    public void playlist(Opcode opcode, Playlist playlist) throws IOException {
+        start(opcode);
+        json.writeObjectFieldStart("playlist");
+        json.writeNumberField("id", playlist.getId());
+        json.writeStringField("name", playlist.getTitle());
+        json.writeArrayFieldStart("songIds");
+        for (int i = 0; i < playlist.size(); i++) {
+            json.writeNumber(playlist.getSongIdAt(i));
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        end();
+    }
+
+    @Override
+    public void songs(Opcode opcode, String header, List<Songs> songs) throws IOException {
+        start(opcode);
+        json.writeArrayFieldStart("songs");
+        for (Songs song : songs) {
+            writeSong(song);
+        }
+        json.writeEndArray();
+        end();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        json.flush();
+    }
+
+    private void start(Opcode opcode) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("command", opcode.getVerb());
+    }
+
+    private void end() throws IOException {
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeSong(Songs song) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", song.getId());
+        json.writeStringField("title", song.getTitle());
+        json.writeStringField("genre", song.getGenre());
+        json.writeStringField("album", song.getAlbum());
+        json.writeStringField("owner", song.getOwner());
+        int[] collaborators = song.getCollaborationCodes();
+        if (collaborators != null) {
+            json.writeArrayFieldStart("collaborators");
+            for (int code : collaborators) {
+                json.writeString(SymbolTable.GLOBAL.decode(code));
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+}
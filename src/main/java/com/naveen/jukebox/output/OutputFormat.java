@@ -0,0 +1,60 @@
+package com.naveen.jukebox.output;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+/**
+ * The formats command results can be written in, selected with the {@code OUTPUT-FORMAT} argument.
+ */
+public enum OutputFormat {
+    /**
+     * Free text, as printed by earlier versions. See {@link TextSink}.
+     */
+    TEXT,
+    /**
+     * One JSON object per line. See {@link JsonSink}.
+     */
+    JSON,
+    /**
+     * Length-prefixed binary records. See {@link BinarySink}.
+     */
+    BINARY;
+
+    /**
+     * Size in bytes or characters of the buffer that collects results before they are written out.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Opens a sink of this format on top of a stream. The sink buffers its output; flushing it flushes the
+     * stream, and the stream is never closed.
+     *
+     * @param out The stream to write to.
+     * @return The new sink.
+     */
+    public OutputSink open(OutputStream out) throws IOException {
+        return switch (this) {
+            case TEXT -> new TextSink(new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()),
+                    BUFFER_SIZE));
+            case JSON -> new JsonSink(new BufferedOutputStream(out, BUFFER_SIZE));
+            case BINARY -> new BinarySink(new BufferedOutputStream(out, BUFFER_SIZE));
+        };
+    }
+
+    /**
+     * @param name The name of a format, in any case.
+     * @return The format, or null if there is none of that name.
+     */
+    public static OutputFormat fromName(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.naveen.jukebox.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+
+/**
+ * Where the results of commands are written, one record per result, in the format of the implementation.
+ * <p>
+ * A sink receives a result as the objects it is about rather than as text, and writes the record straight from
+ * them, so no String of the whole record is built on the way. Records may be buffered until {@link #flush()}.
+ * A sink is driven by one thread at a time. Closing a sink flushes it but leaves the stream underneath open.
+ * </p>
+ *
+ * @see OutputFormat
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes a plain message, such as a confirmation or an error.
+     *
+     * @param opcode The command the message answers, or {@link Opcode#INVALID} if it answers no command.
+     * @param text   The message.
+     */
+    void message(Opcode opcode, String text) throws IOException;
+
+    /**
+     * Writes the song that started playing.
+     *
+     * @param opcode The command that started it.
+     * @param song   The song.
+     */
+    void playing(Opcode opcode, Songs song) throws IOException;
+
+    /**
+     * Writes a playlist with all its song IDs.
+     *
+     * @param opcode   The command that changed the playlist.
+     * @param playlist The playlist.
+     */
+    void playlist(Opcode opcode, Playlist playlist) throws IOException;
+
+    /**
+     * Writes a list of songs, such as search results.
+     *
+     * @param opcode The command that found the songs.
+     * @param header The text preceding the number of songs in the text format, for example "Songs Found - ".
+     * @param songs  The songs, in order.
+     */
+    void songs(Opcode opcode, String header, List<Songs> songs) throws IOException;
+
+    /**
+     * Writes out every record written so far.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Writes out every record written so far and releases what the sink holds. The sink must not be used
+     * afterwards.
+     */
+    @Override
+    default void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,140 @@
+package com.naveen.jukebox.output;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.DataUtility;
+
+/**
+ * The result of a command, kept as the objects it describes until it is written to an {@link OutputSink}.
+ * <p>
+ * {@link #toText()} renders the result in the text format for callers that need a String, such as the server.
+ * </p>
+ */
+public interface Response {
+
+    /**
+     * Writes the result as one record.
+     *
+     * @param sink   The sink to write to.
+     * @param opcode The command that produced the result.
+     */
+    void writeTo(OutputSink sink, Opcode opcode) throws IOException;
+
+    /**
+     * @return The result in the text format.
+     */
+    String toText();
+
+    /**
+     * Returns a response that stays the same when the objects it was made from change later. A result that is
+     * written only after later commands have run, as {@link com.naveen.jukebox.command.ShardedCommandExecutor}
+     * does, must be detached when it is produced.
+     *
+     * @return This response, or a copy of it that does not share mutable state.
+     */
+    default Response detach() {
+        return this;
+    }
+
+    /**
+     * @param text The message, or null for a command without a result.
+     * @return A plain message, or null if the text is null.
+     */
+    static Response message(String text) {
+        return text == null ? null : new Message(text);
+    }
+
+    /**
+     * @param song The song that started playing.
+     * @return The response showing the song.
+     */
+    static Response playing(Songs song) {
+        return new Playing(song);
+    }
+
+    /**
+     * @param playlist The playlist to show.
+     * @return The response showing the playlist and its song IDs.
+     */
+    static Response playlist(Playlist playlist) {
+        return new PlaylistDetails(playlist);
+    }
+
+    /**
+     * @param header The text preceding the number of songs, for example "Songs Found - ".
+     * @param songs  The songs to list.
+     * @return The response listing the songs.
+     */
+    static Response songs(String header, List<Songs> songs) {
+        return new SongList(header, songs);
+    }
+
+    /**
+     * A confirmation or an error message.
+     */
+    record Message(String text) implements Response {
+        @Override
+        public void writeTo(OutputSink sink, Opcode opcode) throws IOException {
+            sink.message(opcode, text);
+        }
+
+        @Override
+        public String toText() {
+            return text;
+        }
+    }
+
+    /**
+     * A song that started playing.
+     */
+    record Playing(Songs song) implements Response {
+        @Override
+        public void writeTo(OutputSink sink, Opcode opcode) throws IOException {
+            sink.playing(opcode, song);
+        }
+
+        @Override
+        public String toText() {
+            return DataUtility.constructSongResponse(song);
+        }
+    }
+
+    /**
+     * A playlist with its song IDs.
+     */
+    record PlaylistDetails(Playlist playlist) implements Response {
+        @Override
+        public void writeTo(OutputSink sink, Opcode opcode) throws IOException {
+            sink.playlist(opcode, playlist);
+        }
+
+        @Override
+        public String toText() {
+            return DataUtility.constructPlaylistResponse(playlist);
+        }
+
+        @Override
+        public Response detach() {
+            return new PlaylistDetails(playlist.copy());
+        }
+    }
+
+    /**
+     * A list of songs under a header.
+     */
+    record SongList(String header, List<Songs> songs) implements Response {
+        @Override
+        public void writeTo(OutputSink sink, Opcode opcode) throws IOException {
+            sink.songs(opcode, header, songs);
+        }
+
+        @Override
+        public String toText() {
+            return DataUtility.constructSongListResponse(header, songs);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.naveen.jukebox.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.DataUtility;
+
+/**
+ * Writes results as the free text the jukebox has always printed, each followed by a line separator.
+ * <p>
+ * The parts of a record are written to the writer one after another; numbers are formatted into a reusable
+ * character buffer. A playing song is written from the response kept with the song, see
+ * {@link DataUtility#constructSongResponse(Songs)}, and the song IDs of a playlist from the text kept with the
+ * playlist, see {@link Playlist#writeSongIds(Writer, char[])}.
+ * </p>
+ */
+public class TextSink implements OutputSink {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final char[] digits = new char[1 << 10];
+
+    /**
+     * @param out The writer to write to. It should be buffered.
+     */
+    public TextSink(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void message(Opcode opcode, String text) throws IOException {
+        out.write(text);
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void playing(Opcode opcode, Songs song) throws IOException {
+        out.write(DataUtility.constructSongResponse(song));
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void playlist(Opcode opcode, Playlist playlist) throws IOException {
+        out.write("Playlist ID - ");
+        writeNumber(playlist.getId());
+        out.write("\nPlaylist Name - ");
+        out.write(String.valueOf(playlist.getTitle()));
+        out.write("\nSong IDs - ");
+        playlist.writeSongIds(out, digits);
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void songs(Opcode opcode, String header, List<Songs> songs) throws IOException {
+        out.write(header);
+        writeNumber(songs.size());
+        for (Songs song : songs) {
+            out.write("\nSong ID - ");
+            writeNumber(song.getId());
+            out.write(", Song - ");
+            out.write(String.valueOf(song.getTitle()));
+            out.write(", Album - ");
+            out.write(String.valueOf(song.getAlbum()));
+            out.write(", Artists - ");
+            out.write(String.valueOf(song.getOwner()));
+        }
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeNumber(int value) throws IOException {
+        out.write(digits, 0, format(value, 0));
+    }
+
+    /**
+     * Formats a number into the digit buffer at the given offset and returns the offset after it.
+     */
+    private int format(int value, int offset) {
+        long remaining = value;
+        if (remaining < 0) {
+            digits[offset++] = '-';
+            remaining = -remaining;
+        }
+        int count = 1;
+        for (long bound = 10; bound <= remaining; bound *= 10) {
+            count++;
+        }
+        for (int i = offset + count - 1; i >= offset; i--) {
+            digits[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return offset + count;
+    }
+}
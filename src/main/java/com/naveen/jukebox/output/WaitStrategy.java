@@ -0,0 +1,60 @@
+package com.naveen.jukebox.output;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread of {@link AsyncOutputSink} waits for the other one: the writer for new records, and the producer
+ * for a free slot when the ring is full.
+ * <p>
+ * Spinning reacts fastest but keeps a core busy; parking frees the core but may add up to {@value #PARK_NANOS}
+ * nanoseconds before the wait notices progress. The strategies back off in steps, counted by the rounds a wait
+ * has already gone through.
+ * </p>
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU all the time. Lowest latency, for machines with a core to spare for the writer.
+     */
+    BUSY_SPIN,
+    /**
+     * Spins for a while, then yields the CPU to other threads between checks.
+     */
+    YIELD,
+    /**
+     * Spins and yields for a while, then parks the thread between checks. The default, and the only sensible
+     * choice when there are fewer cores than busy threads.
+     */
+    PARK;
+
+    private static final int SPIN_ROUNDS = 100;
+    private static final int YIELD_ROUNDS = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    /**
+     * Waits once.
+     *
+     * @param round The number of times this wait has already waited, starting at 0.
+     */
+    public void idle(int round) {
+        if (this == BUSY_SPIN || round < SPIN_ROUNDS) {
+            Thread.onSpinWait();
+        } else if (this == YIELD || round < YIELD_ROUNDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * @param name The name of a strategy in any case, with a hyphen or an underscore, for example "busy-spin".
+     * @return The strategy, or null if there is none of that name.
+     */
+    public static WaitStrategy fromName(String name) {
+        for (WaitStrategy strategy : values()) {
+            if (strategy.name().equalsIgnoreCase(name.replace('-', '_'))) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,314 @@
+package com.naveen.jukebox.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal segment of command lines with group commit.
+ * <p>
+ * A segment starts with a header holding {@link #MAGIC} and the base sequence number; the n-th record in the
+ * segment has the log sequence number (LSN) base + n. Each record is an {@code int} length, the CRC32C of the
+ * payload and the payload, a command line in UTF-8. A record that is cut short or fails its checksum marks the end
+ * of the segment: it is the torn tail of a write that was never acknowledged, and it is cut off when the segment is
+ * reopened.
+ * </p>
+ * <p>
+ * {@link #append} only copies the record into a memory buffer and returns its LSN. A single writer thread takes
+ * everything appended so far, writes it with one call and forces it to disk with one {@code fsync}, so many
+ * concurrent commands share the cost of a sync. {@link #awaitDurable} blocks until a given LSN is on disk; only
+ * then may the command be acknowledged. Waiting uses a {@link ReentrantLock}, so waiting virtual threads do not
+ * pin their carriers.
+ * </p>
+ */
+public class Journal implements AutoCloseable {
+
+    static final int MAGIC = 0x4A424A4C;
+    private static final int HEADER_BYTES = 12;
+    private static final int MAX_RECORD_BYTES = 1 << 24;
+
+    private final Path path;
+    private final long baseLsn;
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final Thread writer;
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private long appendedLsn;
+    private long durableLsn;
+    private IOException failure;
+    private boolean closed;
+
+    private Journal(Path path, long baseLsn, long lastLsn, FileChannel channel) {
+        this.path = path;
+        this.baseLsn = baseLsn;
+        this.channel = channel;
+        this.appendedLsn = lastLsn;
+        this.durableLsn = lastLsn;
+        this.writer = new Thread(this::writeLoop, "jukebox-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Creates a new, empty segment.
+     *
+     * @param path    The segment file. It must not exist.
+     * @param baseLsn The LSN preceding the first record of the segment.
+     * @return The segment, open for appending.
+     * @throws IOException if the file cannot be created.
+     */
+    public static Journal create(Path path, long baseLsn) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(baseLsn).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        return new Journal(path, baseLsn, baseLsn, channel);
+    }
+
+    /**
+     * Opens an existing segment for appending, cutting off a torn tail.
+     *
+     * @param path The segment file.
+     * @return The segment, open for appending after its last intact record.
+     * @throws IOException if the file cannot be read or is not a journal segment.
+     */
+    public static Journal openForAppend(Path path) throws IOException {
+        ReadResult result = read(path, (lsn, line) -> { });
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.truncate(result.validBytes);
+        channel.position(result.validBytes);
+        channel.force(true);
+        return new Journal(path, result.baseLsn, result.lastLsn, channel);
+    }
+
+    /**
+     * Reads every intact record of a segment in order.
+     *
+     * @param path     The segment file.
+     * @param consumer Receives the LSN and the command line of each record.
+     * @return The base LSN, the LSN of the last intact record and the length of the intact part of the file.
+     * @throws IOException if the file cannot be read or is not a journal segment.
+     */
+    public static ReadResult read(Path path, RecordConsumer consumer) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+            long baseLsn = in.readLong();
+            long lsn = baseLsn;
+            long validBytes = HEADER_BYTES;
+            CRC32C crc = new CRC32C();
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    if (payload.length < length) {
+                        payload = new byte[Math.max(length, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                lsn++;
+                validBytes += 8 + length;
+                consumer.accept(lsn, new String(payload, 0, length, StandardCharsets.UTF_8));
+            }
+            return new ReadResult(baseLsn, lsn, validBytes);
+        }
+    }
+
+    /**
+     * @return The segment file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return The LSN preceding the first record of this segment.
+     */
+    public long getBaseLsn() {
+        return baseLsn;
+    }
+
+    /**
+     * @return The LSN of the last appended record, durable or not.
+     */
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record to the in-memory buffer. The record is not durable until {@link #awaitDurable} returns.
+     *
+     * @param line The command line.
+     * @return The LSN of the record.
+     */
+    public long append(CharSequence line) {
+        byte[] payload = line.toString().getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(payload, 0, payload.length);
+        lock.lock();
+        try {
+            checkFailure();
+            if (closed) {
+                throw new IllegalStateException("Journal is closed: " + path);
+            }
+            if (pending.remaining() < payload.length + 8) {
+                int capacity = Math.max(pending.capacity() * 2, pending.position() + payload.length + 8);
+                pending = ByteBuffer.allocate(capacity).put(pending.flip());
+            }
+            pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            appended.signal();
+            return ++appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record and all records before it are forced to disk.
+     *
+     * @param lsn The LSN returned by {@link #append}.
+     * @throws UncheckedIOException if the journal could not be written; the record is then not durable.
+     */
+    public void awaitDurable(long lsn) {
+        lock.lock();
+        try {
+            while (durableLsn < lsn) {
+                checkFailure();
+                synced.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces all appended records to disk and closes the segment.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed: " + path, failure);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long batchLsn;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                batchLsn = appendedLsn;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                writing.clear();
+                channel.force(false);
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                durableLsn = batchLsn;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Receives the records of a segment.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long lsn, String line);
+    }
+
+    /**
+     * What reading a segment found.
+     *
+     * @param baseLsn    The LSN preceding the first record.
+     * @param lastLsn    The LSN of the last intact record, or the base LSN if the segment is empty.
+     * @param validBytes The length of the intact part of the file.
+     */
+    public record ReadResult(long baseLsn, long lastLsn, long validBytes) {
+    }
+}
@@ -0,0 +1,245 @@
+package com.naveen.jukebox.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.naveen.jukebox.command.CommandParser;
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.utility.DataUtility;
+
+/**
+ * Makes the user state durable with a write-ahead journal and periodic snapshots in one directory.
+ * <p>
+ * Every command that changes state is appended to the current {@link Journal} segment after it has been executed
+ * and before its result is returned, so an acknowledged command is always on disk. The journal is logical: it holds
+ * the command lines, and recovery executes them again. A checkpoint writes a {@link StateSnapshot} of all users at
+ * the last LSN, starts a new journal segment there and deletes the older segments and snapshots, so recovery only
+ * loads the latest snapshot and replays the records after it.
+ * </p>
+ * <p>
+ * Files are named after the LSN they start from: {@code snapshot-<lsn>.snap} holds the state up to and including
+ * that record, and {@code journal-<lsn>.log} holds the records after it.
+ * </p>
+ */
+public class Persistence implements AutoCloseable {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long checkpointInterval;
+    private final List<String> catalogCommands = new ArrayList<>();
+    private final CommandParser parser = new CommandParser();
+    private volatile Journal journal;
+    private volatile long checkpointLsn;
+
+    /**
+     * @param directory          The directory holding the journal and the snapshots. It is created if missing.
+     * @param checkpointInterval The number of journal records after which a checkpoint is due.
+     */
+    public Persistence(Path directory, long checkpointInterval) {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Restores the state from the latest snapshot and the journal after it, and opens the journal for appending.
+     * Must be called once, before any command runs.
+     *
+     * @param replay Executes a recovered command line without journaling it again.
+     * @return A summary of what was recovered.
+     * @throws IOException if the directory cannot be read or a file is damaged beyond its torn tail.
+     */
+    public String recover(Consumer<String> replay) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Long, Path> segments = list(JOURNAL_PREFIX, JOURNAL_SUFFIX);
+
+        long snapshotLsn = 0;
+        if (!snapshots.isEmpty()) {
+            snapshotLsn = StateSnapshot.restore(snapshots.lastEntry().getValue(), command -> {
+                recordCatalogCommand(command);
+                replay.accept(command);
+            });
+        }
+        long lastLsn = snapshotLsn;
+        long[] replayed = new long[1];
+        for (Path segment : segments.values()) {
+            long[] expected = {lastLsn};
+            Journal.ReadResult result = Journal.read(segment, (lsn, line) -> {
+                if (lsn > expected[0]) {
+                    recordCatalogCommand(line);
+                    replay.accept(line);
+                    expected[0] = lsn;
+                    replayed[0]++;
+                }
+            });
+            if (result.baseLsn() > lastLsn) {
+                throw new IOException("Journal records " + (lastLsn + 1) + " to " + result.baseLsn() + " are missing");
+            }
+            lastLsn = Math.max(lastLsn, result.lastLsn());
+        }
+
+        checkpointLsn = snapshotLsn;
+        if (segments.isEmpty() || segments.lastKey() < snapshotLsn) {
+            journal = Journal.create(journalPath(lastLsn), lastLsn);
+            syncDirectory();
+        } else {
+            journal = Journal.openForAppend(segments.lastEntry().getValue());
+        }
+        return String.format("Recovered state at LSN %d: snapshot at LSN %d, %d journal records replayed in %d ms",
+                lastLsn, snapshotLsn, replayed[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Tells whether a command has to be journaled.
+     *
+     * @param opcode The opcode of the command.
+     * @return true if the command may change state.
+     */
+    public boolean isJournaled(Opcode opcode) {
+        return switch (opcode) {
+            case INVALID, SAVE_SNAPSHOT, STATS, CHECKPOINT, SEARCH, RECOMMEND, TRENDING -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * Appends an executed command to the journal. The command must not be acknowledged before
+     * {@link #awaitDurable(long)} returns for the returned LSN.
+     *
+     * @param opcode The opcode of the command.
+     * @param line   The command line.
+     * @return The LSN of the record.
+     */
+    public long append(Opcode opcode, CharSequence line) {
+        if (opcode == Opcode.LOAD_DATA || opcode == Opcode.LOAD_SNAPSHOT) {
+            recordCatalogCommand(line.toString());
+        }
+        return journal.append(line);
+    }
+
+    /**
+     * Waits until a journal record is on disk.
+     *
+     * @param lsn The LSN returned by {@link #append}.
+     */
+    public void awaitDurable(long lsn) {
+        journal.awaitDurable(lsn);
+    }
+
+    /**
+     * @return true if enough records were journaled since the last checkpoint to take a new one.
+     */
+    public boolean isCheckpointDue() {
+        return journal.getLastLsn() - checkpointLsn >= checkpointInterval;
+    }
+
+    /**
+     * Writes a snapshot of the current state, starts a new journal segment and deletes the files the snapshot
+     * makes obsolete. No command may run during a checkpoint.
+     *
+     * @return The LSN of the snapshot.
+     */
+    public long checkpoint() {
+        try {
+            Journal current = journal;
+            long lsn = current.getLastLsn();
+            if (lsn == checkpointLsn) {
+                return lsn;
+            }
+            List<String> commands;
+            synchronized (catalogCommands) {
+                commands = new ArrayList<>(catalogCommands);
+            }
+            StateSnapshot.write(snapshotPath(lsn), lsn, commands);
+            current.close();
+            journal = Journal.create(journalPath(lsn), lsn);
+            syncDirectory();
+            checkpointLsn = lsn;
+            for (Path old : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(lsn).values()) {
+                Files.deleteIfExists(old);
+            }
+            for (Path old : list(JOURNAL_PREFIX, JOURNAL_SUFFIX).headMap(lsn).values()) {
+                Files.deleteIfExists(old);
+            }
+            return lsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces the journal to disk and closes it.
+     */
+    @Override
+    public void close() {
+        Journal current = journal;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Keeps a catalog command for the next snapshot in place of the earlier one of the same kind. LOAD-DATA
+     * replaces the songs loaded before and LOAD-SNAPSHOT the snapshot opened before, so only the latest of each
+     * still shapes the catalog, and a file replaced since need not be read again on recovery.
+     */
+    private void recordCatalogCommand(String line) {
+        synchronized (catalogCommands) {
+            Opcode opcode = parser.parse(line);
+            if (opcode != Opcode.LOAD_DATA && opcode != Opcode.LOAD_SNAPSHOT) {
+                return;
+            }
+            catalogCommands.removeIf(command -> parser.parse(command) == opcode);
+            catalogCommands.add(line);
+        }
+    }
+
+    private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+                } catch (NumberFormatException e) {
+                    DataUtility.printDiagnostic("Ignoring unexpected file " + file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private Path snapshotPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+    }
+
+    private Path journalPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", JOURNAL_PREFIX, lsn, JOURNAL_SUFFIX));
+    }
+
+    /**
+     * Makes a newly created or renamed file in the directory durable. Not every platform can open a directory;
+     * there the rename is left to the file system.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not supported on this platform
+        }
+    }
+}
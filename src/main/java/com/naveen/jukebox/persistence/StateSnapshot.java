@@ -0,0 +1,249 @@
+package com.naveen.jukebox.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.naveen.jukebox.model.CurrentlyPlaying;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.ShuffleOrder;
+import com.naveen.jukebox.model.User;
+import com.naveen.jukebox.repository.UserRepository;
+
+/**
+ * A compact binary snapshot of all users, their playlists and their playback state at one journal position.
+ * <p>
+ * Layout, big-endian:
+ * </p>
+ * <ul>
+ *   <li>header: {@link #MAGIC}, version, the LSN of the last journal record included, the last user ID</li>
+ *   <li>the catalog commands that still shape the catalog, as a count followed by the command lines</li>
+ *   <li>the user count, then per user: ID, name, last playlist ID, playlist count, and per playlist its ID, name,
+ *       song count and song IDs; then the ID of the active playlist, or -1, and the playback position</li>
+ *   <li>since version 2, per user also: the shuffle flag and order count, the up-next queue as a count followed by
+ *       song IDs, and if a playlist is active the queued song playing, or -1, and a flag followed by the shuffle
+ *       order: its entries, front, back, position and random state</li>
+ *   <li>the CRC32C of everything before it</li>
+ * </ul>
+ * <p>
+ * Songs are not part of the snapshot; recovery re-runs the catalog commands instead. A snapshot is written to a
+ * temporary file, forced to disk and then renamed into place, so a crash never leaves a partial snapshot behind.
+ * </p>
+ */
+public final class StateSnapshot {
+
+    static final int MAGIC = 0x4A425355;
+    private static final int VERSION = 2;
+    private static final int FIRST_VERSION = 1;
+    private static final int NO_PLAYLIST = -1;
+
+    private StateSnapshot() {
+    }
+
+    /**
+     * Writes the current user state. No command may run while the snapshot is written.
+     *
+     * @param path            The snapshot file.
+     * @param lsn             The LSN of the last journal record reflected in the state.
+     * @param catalogCommands The latest LOAD-DATA and LOAD-SNAPSHOT commands, in the order they were executed.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Path path, long lsn, List<String> catalogCommands) throws IOException {
+        UserRepository repository = UserRepository.GLOBAL;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temporary);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 20), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(repository.getLastUserId());
+            out.writeInt(catalogCommands.size());
+            for (String command : catalogCommands) {
+                out.writeUTF(command);
+            }
+            out.writeInt(repository.countUsers());
+            IOException[] failure = new IOException[1];
+            repository.forEachUser(user -> {
+                if (failure[0] == null) {
+                    try {
+                        writeUser(out, user);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot and registers its users in {@link UserRepository#GLOBAL}, which must be empty.
+     *
+     * @param path           The snapshot file.
+     * @param catalogCommand Receives the catalog commands to re-run, in order, before the users are restored.
+     * @return The LSN of the last journal record reflected in the snapshot.
+     * @throws IOException if the snapshot cannot be read or is damaged.
+     */
+    public static long restore(Path path, CatalogCommandConsumer catalogCommand) throws IOException {
+        UserRepository repository = UserRepository.GLOBAL;
+        CRC32C crc = new CRC32C();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 20);
+             CheckedInputStream checked = new CheckedInputStream(file, crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a state snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version < FIRST_VERSION || version > VERSION) {
+                throw new IOException("Not a state snapshot: " + path);
+            }
+            long lsn = in.readLong();
+            int lastUserId = in.readInt();
+            int commandCount = in.readInt();
+            List<String> commands = new ArrayList<>(commandCount);
+            for (int i = 0; i < commandCount; i++) {
+                commands.add(in.readUTF());
+            }
+            int userCount = in.readInt();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(readUser(in, version));
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("State snapshot is damaged: " + path);
+            }
+            for (String command : commands) {
+                catalogCommand.accept(command);
+            }
+            for (User user : users) {
+                repository.restoreUser(user);
+            }
+            repository.reserveUserIds(lastUserId);
+            return lsn;
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeInt(user.getId());
+        out.writeUTF(user.getName());
+        out.writeInt(user.nextPlaylistId() - 1);
+        List<Playlist> playlists = user.getPlaylists();
+        out.writeInt(playlists.size());
+        for (Playlist playlist : playlists) {
+            out.writeInt(playlist.getId());
+            out.writeUTF(playlist.getTitle());
+            out.writeInt(playlist.size());
+            for (int i = 0; i < playlist.size(); i++) {
+                out.writeInt(playlist.getSongIdAt(i));
+            }
+        }
+        CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+        out.writeInt(currentlyPlaying == null ? NO_PLAYLIST : currentlyPlaying.getPlaylistId());
+        out.writeInt(currentlyPlaying == null ? 0 : currentlyPlaying.getIndex());
+        out.writeBoolean(user.isShuffle());
+        out.writeInt(user.getShuffleCount());
+        int[] upNext = user.getUpNext().toArray();
+        out.writeInt(upNext.length);
+        for (int songId : upNext) {
+            out.writeInt(songId);
+        }
+        if (currentlyPlaying != null) {
+            out.writeInt(currentlyPlaying.getQueuedSongId());
+            // a restored order is taken to fit its playlist, so a stale one is saved as its replacement
+            ShuffleOrder shuffle = currentlyPlaying.getUpcomingShuffle();
+            out.writeBoolean(shuffle != null);
+            if (shuffle != null) {
+                int[] entries = shuffle.getEntries();
+                out.writeInt(entries.length);
+                for (int entry : entries) {
+                    out.writeInt(entry);
+                }
+                out.writeInt(shuffle.getFront());
+                out.writeInt(shuffle.getBack());
+                out.writeInt(shuffle.getPosition());
+                out.writeLong(shuffle.getState());
+            }
+        }
+    }
+
+    private static User readUser(DataInputStream in, int version) throws IOException {
+        int id = in.readInt();
+        String name = in.readUTF();
+        int lastPlaylistId = in.readInt();
+        int playlistCount = in.readInt();
+        List<Playlist> playlists = new ArrayList<>(playlistCount);
+        for (int p = 0; p < playlistCount; p++) {
+            int playlistId = in.readInt();
+            String title = in.readUTF();
+            int size = in.readInt();
+            Playlist playlist = new Playlist(playlistId, title, size);
+            for (int i = 0; i < size; i++) {
+                playlist.addSong(in.readInt());
+            }
+            playlists.add(playlist);
+        }
+        User user = new User(id, name, playlists, null);
+        user.reservePlaylistIds(lastPlaylistId);
+        int activePlaylistId = in.readInt();
+        int index = in.readInt();
+        CurrentlyPlaying currentlyPlaying = null;
+        if (activePlaylistId != NO_PLAYLIST) {
+            currentlyPlaying = new CurrentlyPlaying(user.getPlaylistById(activePlaylistId), index);
+            user.setCurrentlyPlaying(currentlyPlaying);
+        }
+        if (version == FIRST_VERSION) {
+            return user;
+        }
+        user.setShuffle(in.readBoolean());
+        user.setShuffleCount(in.readInt());
+        int queued = in.readInt();
+        for (int i = 0; i < queued; i++) {
+            user.getUpNext().addLast(in.readInt());
+        }
+        if (currentlyPlaying != null) {
+            currentlyPlaying.playQueued(in.readInt());
+            if (in.readBoolean()) {
+                int[] entries = new int[in.readInt()];
+                for (int i = 0; i < entries.length; i++) {
+                    entries[i] = in.readInt();
+                }
+                currentlyPlaying.setShuffle(ShuffleOrder.restore(currentlyPlaying.getPlaylist(), entries,
+                        in.readInt(), in.readInt(), in.readInt(), in.readLong()));
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Re-runs a catalog command read from a snapshot.
+     */
+    @FunctionalInterface
+    public interface CatalogCommandConsumer {
+        void accept(String command) throws IOException;
+    }
+}
@@ -0,0 +1,50 @@
+package com.naveen.jukebox.repository;
+
+import java.util.List;
+
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.IntObjectHashMap;
+
+/**
+ * The songs of a catalog version that is still being loaded, invisible to readers until it is published with
+ * {@link SongsRepository#publish(CatalogBuilder)}.
+ * <p>
+ * The builder indexes its songs for search as they are added, so the new version can be searched as soon as it is
+ * published. If the repository serves a memory-mapped snapshot, the search index has to cover the snapshot's songs
+ * as well and is left to be built on the first search instead.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class CatalogBuilder {
+
+    final IntObjectHashMap<Songs> songs = new IntObjectHashMap<>();
+    final SongSearchIndex searchIndex;
+
+    CatalogBuilder(boolean indexed) {
+        this.searchIndex = indexed ? new SongSearchIndex() : null;
+    }
+
+    /**
+     * Adds songs to the new version. A song replaces an earlier song with the same ID.
+     *
+     * @param batch The songs to add.
+     */
+    public void addAll(List<Songs> batch) {
+        songs.ensureCapacity(songs.size() + batch.size());
+        for (Songs song : batch) {
+            songs.put(song.getId(), song);
+        }
+        if (searchIndex != null) {
+            searchIndex.addAll(batch);
+        }
+    }
+
+    /**
+     * @return The number of distinct songs added so far.
+     */
+    public int size() {
+        return songs.size();
+    }
+}
@@ -0,0 +1,253 @@
+package com.naveen.jukebox.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.naveen.jukebox.model.Songs;
+
+/**
+ * A read-only song catalog stored in a compact binary file and accessed through a memory mapping.
+ * <p>
+ * The snapshot is written once from an already loaded catalog with {@link #write(Path, Collection)} and then
+ * opened with {@link #open(Path)}. Opening only maps the file: no song is decoded up front, and the catalog data
+ * stays in the page cache instead of the Java heap. A {@link Songs} object is decoded on every
+ * {@link #get(int)} call, so callers should not rely on object identity.
+ * </p>
+ * <p>
+ * File layout (all integers big-endian):
+ * </p>
+ * <ul>
+ *   <li>Header: magic, version, song count, then the offsets of the index, record, collaborator and string sections.</li>
+ *   <li>ID index: one {@code (songId, recordNumber)} pair per song, sorted by song ID for binary search.</li>
+ *   <li>Records: one fixed-width record per song holding the ID, the string references for title, genre, album and
+ *       owner, and the start and length of its collaborators in the collaborator section.</li>
+ *   <li>Collaborators: string references, one int each.</li>
+ *   <li>String table: every distinct string once, as a length followed by its UTF-8 bytes.</li>
+ * </ul>
+ */
+public class CatalogSnapshot {
+
+    private static final int MAGIC = 0x4A42_5843; // "JBXC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int INDEX_ENTRY_BYTES = 8;
+    private static final int RECORD_BYTES = 28;
+    private static final int NULL_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int indexOffset;
+    private final int recordsOffset;
+    private final int collaboratorsOffset;
+    private final int stringsOffset;
+
+    private CatalogSnapshot(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a catalog snapshot file or unsupported version.");
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.indexOffset = (int) buffer.getLong(16);
+        this.recordsOffset = (int) buffer.getLong(24);
+        this.collaboratorsOffset = (int) buffer.getLong(32);
+        this.stringsOffset = (int) buffer.getLong(40);
+    }
+
+    /**
+     * Maps a snapshot file into memory.
+     *
+     * @param path The snapshot file written by {@link #write(Path, Collection)}.
+     * @return The opened snapshot.
+     * @throws IOException if the file cannot be read or is larger than a single mapping allows.
+     * @throws IllegalArgumentException if the file is not a catalog snapshot.
+     */
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot is larger than 2 GB: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogSnapshot(mapped);
+        }
+    }
+
+    /**
+     * Writes the given songs to a snapshot file, replacing the file if it exists.
+     * <p>
+     * Strings are de-duplicated, so a genre, album or artist name shared by many songs is stored once.
+     * If several songs share an ID, the last one wins.
+     * </p>
+     *
+     * @param path  The file to write.
+     * @param songs The songs to store.
+     * @throws IOException if the file cannot be written or the snapshot would exceed 2 GB.
+     */
+    public static void write(Path path, Collection<Songs> songs) throws IOException {
+        Map<Integer, Songs> byId = new HashMap<>(songs.size() * 2);
+        for (Songs song : songs) {
+            byId.put(song.getId(), song);
+        }
+        List<Songs> sorted = new ArrayList<>(byId.values());
+        sorted.sort(Comparator.comparingInt(Songs::getId));
+
+        StringTable strings = new StringTable();
+        ByteBuffer records = ByteBuffer.allocate(sorted.size() * RECORD_BYTES);
+        ByteArrayOutputStream collaboratorBytes = new ByteArrayOutputStream();
+        DataOutputStream collaborators = new DataOutputStream(collaboratorBytes);
+        int collaboratorCount = 0;
+        for (Songs song : sorted) {
+            List<String> collabs = song.getCollaboration() == null ? List.of() : song.getCollaboration();
+            records.putInt(song.getId())
+                    .putInt(strings.reference(song.getTitle()))
+                    .putInt(strings.reference(song.getGenre()))
+                    .putInt(strings.reference(song.getAlbum()))
+                    .putInt(strings.reference(song.getOwner()))
+                    .putInt(collaboratorCount)
+                    .putInt(collabs.size());
+            for (String collab : collabs) {
+                collaborators.writeInt(strings.reference(collab));
+            }
+            collaboratorCount += collabs.size();
+        }
+
+        long indexOffset = HEADER_BYTES;
+        long recordsOffset = indexOffset + (long) sorted.size() * INDEX_ENTRY_BYTES;
+        long collaboratorsOffset = recordsOffset + records.capacity();
+        long stringsOffset = collaboratorsOffset + collaboratorBytes.size();
+        if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Catalog snapshot would be larger than 2 GB.");
+        }
+
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(0);
+            out.writeLong(indexOffset);
+            out.writeLong(recordsOffset);
+            out.writeLong(collaboratorsOffset);
+            out.writeLong(stringsOffset);
+            for (int i = 0; i < sorted.size(); i++) {
+                out.writeInt(sorted.get(i).getId());
+                out.writeInt(i);
+            }
+            out.write(records.array());
+            collaboratorBytes.writeTo(out);
+            strings.writeTo(out);
+        }
+    }
+
+    /**
+     * Decodes the song with the given ID.
+     *
+     * @param id The unique identifier of the song.
+     * @return A newly decoded {@link Songs} object, or null if the snapshot does not contain the ID.
+     */
+    public Songs get(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = buffer.getInt(indexOffset + mid * INDEX_ENTRY_BYTES);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return decode(buffer.getInt(indexOffset + mid * INDEX_ENTRY_BYTES + 4));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes every song in the snapshot, in ascending ID order, and passes it to the action.
+     *
+     * @param action The action to be performed for each song.
+     */
+    public void forEach(Consumer<? super Songs> action) {
+        for (int record = 0; record < count; record++) {
+            action.accept(decode(record));
+        }
+    }
+
+    /**
+     * @return The number of songs in the snapshot.
+     */
+    public int size() {
+        return count;
+    }
+
+    private Songs decode(int record) {
+        int at = recordsOffset + record * RECORD_BYTES;
+        int collabStart = buffer.getInt(at + 20);
+        int collabCount = buffer.getInt(at + 24);
+        String[] collabs = new String[collabCount];
+        for (int i = 0; i < collabCount; i++) {
+            collabs[i] = string(buffer.getInt(collaboratorsOffset + (collabStart + i) * 4));
+        }
+        return new Songs(buffer.getInt(at), string(buffer.getInt(at + 4)), string(buffer.getInt(at + 8)),
+                string(buffer.getInt(at + 12)), string(buffer.getInt(at + 16)), Arrays.asList(collabs));
+    }
+
+    private String string(int reference) {
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        int at = stringsOffset + reference;
+        byte[] bytes = new byte[buffer.getInt(at)];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collects distinct strings while a snapshot is written and hands out their offsets in the string section.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        int reference(String value) throws IOException {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                offset = bytes.size();
+                byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+                offsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(OutputStream target) throws IOException {
+            bytes.writeTo(target);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.naveen.jukebox.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.naveen.jukebox.utility.ConcurrentIntIndex;
+import com.naveen.jukebox.utility.IntIntHashMap;
+import com.naveen.jukebox.utility.TopK;
+
+/**
+ * Counts, for every pair of songs, how many playlists hold both, and keeps each song's most frequent companions.
+ * <p>
+ * Each song that shares a playlist with another gets an entry with a primitive {@link IntIntHashMap} from
+ * companion song ID to count, so the model only takes space for pairs that actually occur. Counts are stored on
+ * both sides of a pair. Next to the counts, each entry keeps its best {@code k} companions in two small arrays
+ * sorted by count, updated on every increment, so asking for recommendations is a copy of at most {@code k} IDs.
+ * A decrement of a kept companion may let a companion that was not kept overtake it; the entry is then marked and
+ * its list rebuilt from the counts by the next query.
+ * </p>
+ * <p>
+ * Playlists are treated as sets: a song that appears twice in a playlist counts once. Callers pass the distinct
+ * songs of the playlist, see {@link #distinct(int[])}.
+ * </p>
+ * <p>
+ * Playlists of more than {@value #MAX_PLAYLIST_SONGS} distinct songs are not counted. Their pairs grow with the
+ * square of their length, so a single long playlist would outweigh every other in both memory and time, while
+ * telling little about which songs belong together. A playlist that grows past the limit is uncounted as a whole,
+ * and counted again once it shrinks back to it.
+ * </p>
+ * <p>
+ * All methods may be called from any number of threads. Each entry is guarded by one of {@value #LOCK_STRIPES}
+ * locks picked by song ID, and no method holds two of them at once, so edits of unrelated songs run in parallel.
+ * </p>
+ */
+public class CoOccurrenceIndex {
+
+    /**
+     * The number of companions kept per song unless configured otherwise.
+     */
+    public static final int DEFAULT_NEIGHBOURS = 20;
+
+    /**
+     * The largest number of distinct songs of a playlist that is counted.
+     */
+    public static final int MAX_PLAYLIST_SONGS = 1000;
+
+    private static final int LOCK_STRIPES = 1024;
+    private static final int[] NONE = new int[0];
+
+    private final ConcurrentIntIndex<Neighbours> songs = new ConcurrentIntIndex<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final int neighbours;
+
+    public CoOccurrenceIndex() {
+        this(DEFAULT_NEIGHBOURS);
+    }
+
+    /**
+     * @param neighbours The number of companions kept per song, and so the largest number of recommendations.
+     */
+    public CoOccurrenceIndex(int neighbours) {
+        this.neighbours = neighbours;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the distinct song IDs of a playlist.
+     *
+     * @param songIds The song IDs, possibly with repetitions.
+     * @return The distinct IDs in ascending order.
+     */
+    public static int[] distinct(int[] songIds) {
+        int[] sorted = songIds.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * @param distinctSongs The number of distinct songs of a playlist.
+     * @return true if the pairs of the playlist are counted.
+     */
+    public static boolean isCounted(int distinctSongs) {
+        return distinctSongs <= MAX_PLAYLIST_SONGS;
+    }
+
+    /**
+     * Counts every pair of songs of a new playlist.
+     *
+     * @param songIds The distinct songs of the playlist.
+     */
+    public void addPlaylist(int[] songIds) {
+        if (!isCounted(songIds.length)) {
+            return;
+        }
+        for (int songId : songIds) {
+            update(songId, songIds, 1);
+        }
+    }
+
+    /**
+     * Counts every pair of songs of a batch of new playlists, as a bulk import does.
+     * <p>
+     * The counts are added without keeping the best companions in order; each entry that changed is marked and
+     * its list rebuilt by its next query instead, once for the whole batch rather than on every increment.
+     * </p>
+     *
+     * @param playlists The distinct songs of each playlist.
+     */
+    public void addPlaylists(List<int[]> playlists) {
+        for (int[] songIds : playlists) {
+            if (songIds.length < 2 || !isCounted(songIds.length)) {
+                continue;
+            }
+            for (int songId : songIds) {
+                ReentrantLock lock = lockOf(songId);
+                lock.lock();
+                try {
+                    Neighbours entry = songs.get(songId);
+                    if (entry == null) {
+                        entry = new Neighbours(neighbours);
+                        songs.put(songId, entry);
+                    }
+                    entry.addAll(songId, songIds);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Uncounts every pair of songs of a deleted playlist.
+     *
+     * @param songIds The distinct songs of the playlist.
+     */
+    public void removePlaylist(int[] songIds) {
+        if (!isCounted(songIds.length)) {
+            return;
+        }
+        for (int songId : songIds) {
+            update(songId, songIds, -1);
+        }
+    }
+
+    /**
+     * Counts a song added to a playlist that did not hold it yet. If the song takes the playlist past
+     * {@value #MAX_PLAYLIST_SONGS} distinct songs, the whole playlist is uncounted instead.
+     *
+     * @param songId  The added song.
+     * @param others  The distinct songs the playlist held before.
+     */
+    public void addSong(int songId, int[] others) {
+        if (others.length == MAX_PLAYLIST_SONGS) {
+            removePlaylist(others);
+        } else if (isCounted(others.length)) {
+            change(songId, others, 1);
+        }
+    }
+
+    /**
+     * Uncounts a song removed from a playlist that no longer holds it. If the playlist is back to
+     * {@value #MAX_PLAYLIST_SONGS} distinct songs, the whole playlist is counted instead.
+     *
+     * @param songId The removed song.
+     * @param others The distinct songs the playlist still holds.
+     */
+    public void removeSong(int songId, int[] others) {
+        if (others.length == MAX_PLAYLIST_SONGS) {
+            addPlaylist(others);
+        } else if (isCounted(others.length)) {
+            change(songId, others, -1);
+        }
+    }
+
+    /**
+     * Returns the songs that share the most playlists with a song, most shared first and ties by ascending ID.
+     *
+     * @param songId The song.
+     * @param limit  The maximum number of songs to return. At most the configured number of companions is kept.
+     * @return The IDs of the companions, possibly none.
+     */
+    public int[] recommend(int songId, int limit) {
+        Neighbours entry = songs.get(songId);
+        if (entry == null) {
+            return NONE;
+        }
+        ReentrantLock lock = lockOf(songId);
+        lock.lock();
+        try {
+            if (entry.stale) {
+                entry.rebuild();
+            }
+            return Arrays.copyOf(entry.topIds, Math.min(limit, entry.topSize));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param songId  One song.
+     * @param otherId Another song.
+     * @return The number of playlists holding both songs.
+     */
+    public int count(int songId, int otherId) {
+        Neighbours entry = songs.get(songId);
+        if (entry == null) {
+            return 0;
+        }
+        ReentrantLock lock = lockOf(songId);
+        lock.lock();
+        try {
+            return entry.counts.getOrDefault(otherId, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void change(int songId, int[] others, int delta) {
+        update(songId, others, delta);
+        int[] single = {songId};
+        for (int other : others) {
+            update(other, single, delta);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the counts of one song with each of the others, skipping the song itself.
+     */
+    private void update(int songId, int[] others, int delta) {
+        if (others.length == 0 || (others.length == 1 && others[0] == songId)) {
+            return;
+        }
+        ReentrantLock lock = lockOf(songId);
+        lock.lock();
+        try {
+            Neighbours entry = songs.get(songId);
+            if (entry == null) {
+                if (delta < 0) {
+                    return;
+                }
+                entry = new Neighbours(neighbours);
+                songs.put(songId, entry);
+            }
+            for (int other : others) {
+                if (other != songId) {
+                    entry.add(other, delta);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockOf(int songId) {
+        return locks[(songId ^ (songId >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * The companions of one song: all counts, and the best ones in descending order.
+     */
+    private static final class Neighbours {
+        private final IntIntHashMap counts = new IntIntHashMap(4);
+        private final int[] topIds;
+        private final int[] topCounts;
+        private int topSize;
+        private boolean stale;
+
+        Neighbours(int capacity) {
+            topIds = new int[capacity];
+            topCounts = new int[capacity];
+        }
+
+        void add(int other, int delta) {
+            int count = counts.addTo(other, delta);
+            if (count <= 0) {
+                counts.remove(other, 0);
+            }
+            if (stale) {
+                return;
+            }
+            int position = indexOf(other);
+            if (delta > 0) {
+                if (position < 0) {
+                    if (topSize < topIds.length) {
+                        position = topSize++;
+                    } else if (before(other, count, topIds[topSize - 1], topCounts[topSize - 1])) {
+                        position = topSize - 1;
+                    } else {
+                        return;
+                    }
+                }
+                topIds[position] = other;
+                topCounts[position] = count;
+                moveUp(position);
+            } else if (position >= 0) {
+                if (counts.size() > topSize) {
+                    // a companion that is not kept may now rank higher
+                    stale = true;
+                    return;
+                }
+                topCounts[position] = count;
+                if (count <= 0) {
+                    System.arraycopy(topIds, position + 1, topIds, position, topSize - position - 1);
+                    System.arraycopy(topCounts, position + 1, topCounts, position, topSize - position - 1);
+                    topSize--;
+                } else {
+                    moveDown(position);
+                }
+            }
+        }
+
+        void addAll(int songId, int[] others) {
+            for (int other : others) {
+                if (other != songId) {
+                    counts.addTo(other, 1);
+                }
+            }
+            stale = true;
+        }
+
+        void rebuild() {
+            TopK best = new TopK(topIds.length);
+            counts.forEach((other, count) -> best.offer(other, count));
+            int[] sorted = best.toSortedIds();
+            topSize = sorted.length;
+            for (int i = 0; i < topSize; i++) {
+                topIds[i] = sorted[i];
+                topCounts[i] = counts.getOrDefault(sorted[i], 0);
+            }
+            stale = false;
+        }
+
+        private int indexOf(int other) {
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == other) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void moveUp(int position) {
+            while (position > 0
+                    && before(topIds[position], topCounts[position], topIds[position - 1], topCounts[position - 1])) {
+                swap(position, position - 1);
+                position--;
+            }
+        }
+
+        private void moveDown(int position) {
+            while (position + 1 < topSize
+                    && before(topIds[position + 1], topCounts[position + 1], topIds[position], topCounts[position])) {
+                swap(position, position + 1);
+                position++;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = topIds[a];
+            int count = topCounts[a];
+            topIds[a] = topIds[b];
+            topCounts[a] = topCounts[b];
+            topIds[b] = id;
+            topCounts[b] = count;
+        }
+
+        private static boolean before(int id, int count, int otherId, int otherCount) {
+            return count > otherCount || (count == otherCount && id < otherId);
+        }
+    }
+}
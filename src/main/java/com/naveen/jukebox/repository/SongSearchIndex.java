@@ -0,0 +1,438 @@
+package com.naveen.jukebox.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.IntIntHashMap;
+import com.naveen.jukebox.utility.IntObjectHashMap;
+import com.naveen.jukebox.utility.SymbolTable;
+import com.naveen.jukebox.utility.TopK;
+
+/**
+ * An in-memory inverted index over the title, album, owner and collaborators of the catalog songs.
+ * <p>
+ * Text is split into terms at every character that is not a letter or a digit, and each term is case-folded.
+ * Every indexed song gets the next document number, and each term keeps a posting list of the documents containing
+ * it in ascending order. A posting is the gap to the previous document as a variable-length integer followed by one
+ * byte telling which fields contain the term, so a posting usually takes two bytes. Every {@value #SKIP_INTERVAL}
+ * postings a skip entry records where the next block starts, which lets an intersection jump over whole blocks.
+ * </p>
+ * <p>
+ * Album and artist names repeat across many songs and are already {@link SymbolTable} codes, so their terms are
+ * worked out once per distinct name and cached by code. Indexing a song that is already indexed supersedes the old
+ * document; its postings stay in place but the document is marked in a bit set that queries check.
+ * </p>
+ * <p>
+ * A query matches the songs containing all of its terms. Matches are ranked by the sum over the query terms of
+ * the term's inverse document frequency times the weight of the fields it was found in, title before artist before
+ * album, and the best are kept in a bounded {@link TopK}. The intersection is driven by the rarest term, so a
+ * query costs about as much as the shortest posting list, not the catalog size.
+ * </p>
+ * <p>
+ * This class is not thread-safe for writers: indexing must not overlap with other indexing or with queries, which
+ * {@link SongsRepository} guarantees by indexing each catalog version before it is published. Queries may run
+ * concurrently.
+ * </p>
+ */
+public class SongSearchIndex {
+
+    static final int TITLE = 1;
+    static final int ALBUM = 2;
+    static final int ARTIST = 4;
+
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double ARTIST_WEIGHT = 2.0;
+    private static final double ALBUM_WEIGHT = 1.0;
+    private static final double[] FIELD_WEIGHTS = new double[8];
+    private static final int SKIP_INTERVAL = 64;
+    private static final int NO_DOCUMENT = -1;
+    private static final int[] EMPTY = new int[0];
+
+    static {
+        for (int fields = 0; fields < FIELD_WEIGHTS.length; fields++) {
+            FIELD_WEIGHTS[fields] = ((fields & TITLE) != 0 ? TITLE_WEIGHT : 0)
+                    + ((fields & ARTIST) != 0 ? ARTIST_WEIGHT : 0)
+                    + ((fields & ALBUM) != 0 ? ALBUM_WEIGHT : 0);
+        }
+    }
+
+    private final Map<String, Integer> terms = new HashMap<>();
+    private final IntObjectHashMap<int[]> symbolTerms = new IntObjectHashMap<>();
+    private final IntIntHashMap songDocuments = new IntIntHashMap();
+    private PostingList[] postings = new PostingList[1024];
+    private int[] documentSongIds = new int[1024];
+    private long[] superseded = new long[16];
+    private int documentCount;
+    private long termCharacters;
+
+    // the distinct terms of the song being indexed and the fields they occur in
+    private int[] songTerms = new int[32];
+    private int[] songFields = new int[32];
+    private int songTermCount;
+
+    /**
+     * Splits text into case-folded terms. Letters and digits form terms; everything else separates them.
+     *
+     * @param text The text to split. May be null.
+     * @return The terms in the order they appear, including repeated ones.
+     */
+    static List<String> tokenize(CharSequence text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(Character.toUpperCase(codePoint)));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Indexes a list of songs in order.
+     *
+     * @param songs The songs to index.
+     */
+    public void addAll(List<Songs> songs) {
+        for (Songs song : songs) {
+            add(song);
+        }
+    }
+
+    /**
+     * Indexes a song, superseding an earlier song with the same ID.
+     *
+     * @param song The song to index.
+     */
+    public void add(Songs song) {
+        songTermCount = 0;
+        addTerms(termsOf(song.getTitle()), TITLE);
+        addTerms(symbolTermsOf(song.getAlbumCode()), ALBUM);
+        addTerms(symbolTermsOf(song.getOwnerCode()), ARTIST);
+        int[] collaborators = song.getCollaborationCodes();
+        if (collaborators != null) {
+            for (int code : collaborators) {
+                addTerms(symbolTermsOf(code), ARTIST);
+            }
+        }
+
+        int document = documentCount;
+        if (document == documentSongIds.length) {
+            documentSongIds = Arrays.copyOf(documentSongIds, document * 2);
+        }
+        for (int i = 0; i < songTermCount; i++) {
+            postings[songTerms[i]].add(document, songFields[i]);
+        }
+        documentSongIds[document] = song.getId();
+        documentCount++;
+        int previous = songDocuments.getOrDefault(song.getId(), NO_DOCUMENT);
+        if (previous != NO_DOCUMENT) {
+            if (previous >>> 6 >= superseded.length) {
+                superseded = Arrays.copyOf(superseded, Math.max(superseded.length * 2, (previous >>> 6) + 1));
+            }
+            superseded[previous >>> 6] |= 1L << previous;
+        }
+        songDocuments.put(song.getId(), document);
+    }
+
+    /**
+     * Finds the songs containing every term of a query, best match first.
+     *
+     * @param query The query text. It is split into terms like the indexed text.
+     * @param limit The maximum number of songs to return. Must be at least 1.
+     * @return The IDs of the best matching songs, or an empty array if no song contains all terms.
+     */
+    public int[] search(CharSequence query, int limit) {
+        List<String> words = tokenize(query);
+        List<PostingCursor> cursors = new ArrayList<>(words.size());
+        for (String word : words) {
+            Integer term = terms.get(word);
+            if (term == null) {
+                return EMPTY;
+            }
+            PostingList list = postings[term];
+            if (cursors.stream().noneMatch(cursor -> cursor.list == list)) {
+                cursors.add(new PostingCursor(list));
+            }
+        }
+        if (cursors.isEmpty()) {
+            return EMPTY;
+        }
+        cursors.sort((a, b) -> Integer.compare(a.list.count, b.list.count));
+        double[] idf = new double[cursors.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1.0 + (double) documentCount / cursors.get(i).list.count);
+        }
+
+        TopK best = new TopK(limit);
+        PostingCursor lead = cursors.get(0);
+        if (!lead.next()) {
+            return EMPTY;
+        }
+        while (true) {
+            int target = lead.document;
+            boolean matched = true;
+            for (int i = 1; i < cursors.size(); i++) {
+                PostingCursor cursor = cursors.get(i);
+                if (!cursor.advance(target)) {
+                    return best.toSortedIds();
+                }
+                if (cursor.document > target) {
+                    if (!lead.advance(cursor.document)) {
+                        return best.toSortedIds();
+                    }
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                collect(target, cursors, idf, best);
+                if (!lead.next()) {
+                    return best.toSortedIds();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of distinct terms.
+     */
+    public int termCount() {
+        return terms.size();
+    }
+
+    /**
+     * @return The number of songs that can be found, not counting superseded ones.
+     */
+    public int songCount() {
+        return songDocuments.size();
+    }
+
+    /**
+     * Estimates the heap taken by the index from the sizes of its arrays and an average per-entry cost of the hash
+     * tables. The estimate leaves out the term strings' share of the heap that the JVM rounds up for alignment.
+     *
+     * @return The estimated size of the index in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 16L + 8L * postings.length + 16L + 4L * documentSongIds.length + 16L + 8L * superseded.length;
+        for (int term = 0; term < terms.size(); term++) {
+            bytes += postings[term].estimateBytes();
+        }
+        // HashMap node, boxed term number and String with its byte array, per term
+        bytes += terms.size() * (32L + 16L + 24L + 16L + 8L) + termCharacters;
+        // open addressing at most half full: key, value and flag per slot, two slots per song
+        bytes += songDocuments.size() * 2L * 9L;
+        bytes += symbolTerms.size() * (2L * 5L + 16L) + 4L * termReferences();
+        return bytes;
+    }
+
+    private long termReferences() {
+        long[] references = new long[1];
+        symbolTerms.forEachValue(cached -> references[0] += cached.length);
+        return references[0];
+    }
+
+    private void collect(int document, List<PostingCursor> cursors, double[] idf, TopK best) {
+        int word = document >>> 6;
+        if (word < superseded.length && (superseded[word] & (1L << document)) != 0) {
+            return;
+        }
+        double score = 0;
+        for (int i = 0; i < idf.length; i++) {
+            score += idf[i] * FIELD_WEIGHTS[cursors.get(i).fields];
+        }
+        best.offer(documentSongIds[document], score);
+    }
+
+    private void addTerms(int[] termIds, int field) {
+        for (int term : termIds) {
+            int i = 0;
+            while (i < songTermCount && songTerms[i] != term) {
+                i++;
+            }
+            if (i == songTermCount) {
+                if (i == songTerms.length) {
+                    songTerms = Arrays.copyOf(songTerms, i * 2);
+                    songFields = Arrays.copyOf(songFields, i * 2);
+                }
+                songTerms[i] = term;
+                songFields[i] = 0;
+                songTermCount++;
+            }
+            songFields[i] |= field;
+        }
+    }
+
+    private int[] symbolTermsOf(int code) {
+        if (code == SymbolTable.NO_SYMBOL) {
+            return EMPTY;
+        }
+        int[] cached = symbolTerms.get(code);
+        if (cached == null) {
+            cached = termsOf(SymbolTable.GLOBAL.decode(code));
+            symbolTerms.put(code, cached);
+        }
+        return cached;
+    }
+
+    private int[] termsOf(String text) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            return EMPTY;
+        }
+        int[] termIds = new int[words.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = termOf(words.get(i));
+        }
+        return termIds;
+    }
+
+    private int termOf(String word) {
+        Integer term = terms.get(word);
+        if (term != null) {
+            return term;
+        }
+        int created = terms.size();
+        if (created == postings.length) {
+            postings = Arrays.copyOf(postings, created * 2);
+        }
+        postings[created] = new PostingList();
+        terms.put(word, created);
+        termCharacters += word.length();
+        return created;
+    }
+
+    /**
+     * The documents containing one term, delta- and varint-encoded, with a skip entry per block.
+     */
+    private static final class PostingList {
+        private byte[] data = new byte[8];
+        private int length;
+        private int count;
+        private int lastDocument = NO_DOCUMENT;
+        // skip entry b: the last document before block b + 1 and the offset where that block starts
+        private int[] skipDocuments = EMPTY;
+        private int[] skipOffsets = EMPTY;
+        private int skipCount;
+
+        void add(int document, int fields) {
+            if (count > 0 && count % SKIP_INTERVAL == 0) {
+                if (skipCount == skipDocuments.length) {
+                    int capacity = Math.max(4, skipCount * 2);
+                    skipDocuments = Arrays.copyOf(skipDocuments, capacity);
+                    skipOffsets = Arrays.copyOf(skipOffsets, capacity);
+                }
+                skipDocuments[skipCount] = lastDocument;
+                skipOffsets[skipCount] = length;
+                skipCount++;
+            }
+            if (length + 6 > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + 6, data.length + (data.length >> 1)));
+            }
+            int gap = document - lastDocument;
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            data[length++] = (byte) fields;
+            lastDocument = document;
+            count++;
+        }
+
+        long estimateBytes() {
+            return 48L + 16L + data.length + 32L + 8L * skipDocuments.length;
+        }
+    }
+
+    /**
+     * Walks one posting list forward.
+     */
+    private static final class PostingCursor {
+        private final PostingList list;
+        private int offset;
+        private int consumed;
+        private int document = NO_DOCUMENT;
+        private int fields;
+
+        PostingCursor(PostingList list) {
+            this.list = list;
+        }
+
+        /**
+         * Moves to the next posting.
+         *
+         * @return false if the list is exhausted.
+         */
+        boolean next() {
+            if (consumed == list.count) {
+                return false;
+            }
+            byte[] data = list.data;
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            document += gap;
+            fields = data[offset++];
+            consumed++;
+            return true;
+        }
+
+        /**
+         * Moves to the first posting at or after a document, skipping whole blocks where possible.
+         *
+         * @param target The document to move to.
+         * @return false if no posting at or after the document exists.
+         */
+        boolean advance(int target) {
+            if (document >= target) {
+                return true;
+            }
+            // skip entry b leads to the posting at (b + 1) * SKIP_INTERVAL; find the last one before the target
+            int low = consumed / SKIP_INTERVAL;
+            int high = list.skipCount - 1;
+            int skip = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (list.skipDocuments[mid] < target) {
+                    skip = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (skip >= 0 && (skip + 1) * SKIP_INTERVAL > consumed) {
+                consumed = (skip + 1) * SKIP_INTERVAL;
+                offset = list.skipOffsets[skip];
+                document = list.skipDocuments[skip];
+            }
+            while (document < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,40 +1,157 @@
 package com.naveen.jukebox.repository;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+
+import com.naveen.jukebox.model.CatalogDiff;
 import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.utility.IntObjectHashMap;
 
 /**
  * A repository class for managing a collection of songs.
  * <p>
  * This class acts as an in-memory repository that stores and retrieves song information.
- * It provides methods to access the entire list of songs, add a collection of songs,
- * and retrieve a specific song by its ID.
+ * It provides methods to add a collection of songs and retrieve a specific song by its ID.
+ * Songs are indexed by their ID in an {@link IntObjectHashMap}, so a lookup costs the same
+ * whether the catalog holds a handful of songs or several million.
+ * </p>
+ * <p>
+ * The catalog is copy-on-write. Readers see an immutable catalog version through a single volatile reference and
+ * never lock. A change builds a new version next to the published one, a reload through a {@link CatalogBuilder},
+ * and publishes it by replacing that reference, so a reader sees either the whole old catalog or the whole new one.
+ * Playlists refer to songs by ID and pick up the new version's records on their next lookup. Writers are serialized
+ * among themselves only while they publish.
+ * </p>
+ * <p>
+ * The repository can also serve songs from a memory-mapped {@link CatalogSnapshot}. In that mode the
+ * snapshot is consulted for every ID that is not held in the heap index, and songs are decoded lazily on
+ * access, so a large catalog is available right after startup without being parsed.
+ * </p>
+ * <p>
+ * Songs are also reachable by text through a {@link SongSearchIndex}. A reloaded catalog is indexed while it is
+ * built; the songs of a snapshot are indexed by the first search after the snapshot was opened, so opening stays
+ * cheap.
  * </p>
  */
 public class SongsRepository {
+
     /**
-     * A list that holds all the songs.
+     * The published catalog version.
+     */
+    private static volatile Catalog catalog = new Catalog(new IntObjectHashMap<>(), null, new SongSearchIndex());
+
+    /**
+     * Starts a new catalog version that replaces the songs held in the heap index once it is published.
+     *
+     * @return An empty builder for the new version.
+     */
+    public CatalogBuilder newCatalog() {
+        return new CatalogBuilder(catalog.snapshot == null);
+    }
+
+    /**
+     * Replaces the songs held in the heap index by the songs of a builder, in one atomic step.
+     * <p>
+     * The new version is compared with the published one by song ID. A song whose metadata did not change keeps
+     * its published record, so the new version holds only the records that changed; songs missing from the builder
+     * are removed. Songs of an opened snapshot stay available. The builder must not be used afterwards.
+     * </p>
+     *
+     * @param builder The songs of the new version.
+     * @return How the new version differs from the replaced one.
      */
-    private static final List<Songs> songs = new ArrayList<>();
+    public CatalogDiff publish(CatalogBuilder builder) {
+        synchronized (SongsRepository.class) {
+            Catalog current = catalog;
+            IntObjectHashMap<Songs> next = builder.songs;
+            int[] counts = new int[3];
+            // replacing the value of an existing key does not move entries, so the map can be updated as it is walked
+            next.forEachValue(song -> {
+                Songs published = current.songs.get(song.getId());
+                if (published == null) {
+                    counts[0]++;
+                } else if (!published.sameContent(song)) {
+                    counts[1]++;
+                } else {
+                    counts[2]++;
+                    next.put(song.getId(), published);
+                }
+            });
+            SongSearchIndex index = current.snapshot == null ? builder.searchIndex : null;
+            catalog = new Catalog(next, current.snapshot, index);
+            int removed = current.songs.size() - counts[1] - counts[2];
+            return new CatalogDiff(counts[0], counts[1], removed, counts[2]);
+        }
+    }
 
     /**
      * Adds a list of songs to the repository.
      * <p>
-     * This method appends all songs in the given list to the current list of songs in the repository.
-     * If the list contains existing songs, they will be duplicated.
+     * This method adds all songs in the given list to the repository index. If a song with the same ID
+     * already exists, it is replaced by the new one. The songs are added to a copy of the published catalog,
+     * which costs time in proportion to the catalog size; large catalogs are loaded with {@link #newCatalog()}
+     * instead.
      * </p>
      *
      * @param songs A list of {@link Songs} to be added to the repository.
      */
     public void loadSongs(List<Songs> songs) {
-        SongsRepository.songs.addAll(songs);
+        synchronized (SongsRepository.class) {
+            Catalog current = catalog;
+            IntObjectHashMap<Songs> next = new IntObjectHashMap<>(current.songs.size() + songs.size());
+            current.songs.forEachValue(song -> next.put(song.getId(), song));
+            for (Songs song : songs) {
+                next.put(song.getId(), song);
+            }
+            catalog = new Catalog(next, current.snapshot, null);
+        }
+    }
+
+    /**
+     * Finds songs by the words of their title, album, owner or collaborators.
+     *
+     * @param query The words to look for. A song must contain all of them.
+     * @param limit The maximum number of songs to return.
+     * @return The IDs of the best matching songs, best first.
+     */
+    public int[] searchSongIds(CharSequence query, int limit) {
+        return catalog.searchIndex().search(query, limit);
+    }
+
+    /**
+     * Finds songs by the words of their title, album, owner or collaborators, reading the IDs and the songs from
+     * the same catalog version.
+     *
+     * @param query The words to look for. A song must contain all of them.
+     * @param limit The maximum number of songs to return.
+     * @return The best matching songs, best first.
+     */
+    public List<Songs> searchSongs(CharSequence query, int limit) {
+        Catalog current = catalog;
+        int[] songIds = current.searchIndex().search(query, limit);
+        List<Songs> found = new ArrayList<>(songIds.length);
+        for (int songId : songIds) {
+            found.add(current.get(songId));
+        }
+        return found;
+    }
+
+    /**
+     * Returns the full-text index, building it first if a snapshot was opened since it was last used.
+     *
+     * @return The search index covering every available song.
+     */
+    public SongSearchIndex getSearchIndex() {
+        return catalog.searchIndex();
     }
 
     /**
      * Retrieves a song by its unique ID.
      * <p>
-     * Searches through the stored songs and returns the first song that matches the given ID.
+     * Looks the ID up in the song index in constant time and falls back to the opened snapshot, if any.
      * If no song matches the ID, this method returns null.
      * </p>
      *
@@ -42,11 +159,107 @@ public class SongsRepository {
      * @return The {@link Songs} object with the specified ID, or null if no such song exists in the repository.
      */
     public Songs getSongBySongId(int id) {
-        for (Songs song : SongsRepository.songs) {
-            if (song.getId() == id) {
-                return song;
+        return catalog.get(id);
+    }
+
+    /**
+     * @return The number of songs held in the heap index.
+     */
+    public int countLoadedSongs() {
+        return catalog.songs.size();
+    }
+
+    /**
+     * @return The number of songs in the opened snapshot, or 0 if no snapshot is open.
+     */
+    public int countSnapshotSongs() {
+        CatalogSnapshot mapped = catalog.snapshot;
+        return mapped == null ? 0 : mapped.size();
+    }
+
+    /**
+     * Opens a catalog snapshot and serves songs from it from now on.
+     * <p>
+     * Songs already held in the heap index take precedence over songs with the same ID in the snapshot.
+     * Opening a new snapshot replaces the previously opened one.
+     * </p>
+     *
+     * @param path The snapshot file to open.
+     * @return The number of songs in the snapshot.
+     * @throws IOException if the snapshot cannot be read.
+     */
+    public int openSnapshot(Path path) throws IOException {
+        CatalogSnapshot opened = CatalogSnapshot.open(path);
+        synchronized (SongsRepository.class) {
+            catalog = new Catalog(catalog.songs, opened, null);
+        }
+        return opened.size();
+    }
+
+    /**
+     * Writes every song currently available in the repository to a catalog snapshot file.
+     *
+     * @param path The snapshot file to write.
+     * @return The number of songs written.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public int writeSnapshot(Path path) throws IOException {
+        List<Songs> all = new ArrayList<>();
+        catalog.forEach(all::add);
+        CatalogSnapshot.write(path, all);
+        return all.size();
+    }
+
+    /**
+     * One published version of the catalog: the songs held in the heap index, the opened snapshot, if any, and
+     * the search index over both. The songs are never modified once the version is published.
+     */
+    private static final class Catalog {
+        private final IntObjectHashMap<Songs> songs;
+        private final CatalogSnapshot snapshot;
+        private volatile SongSearchIndex searchIndex;
+
+        Catalog(IntObjectHashMap<Songs> songs, CatalogSnapshot snapshot, SongSearchIndex searchIndex) {
+            this.songs = songs;
+            this.snapshot = snapshot;
+            this.searchIndex = searchIndex;
+        }
+
+        Songs get(int id) {
+            Songs song = songs.get(id);
+            if (song == null && snapshot != null) {
+                song = snapshot.get(id);
+            }
+            return song;
+        }
+
+        /**
+         * Visits every available song once, the snapshot songs that are not shadowed by the heap index first.
+         */
+        void forEach(Consumer<Songs> action) {
+            if (snapshot != null) {
+                snapshot.forEach(song -> {
+                    if (!songs.containsKey(song.getId())) {
+                        action.accept(song);
+                    }
+                });
+            }
+            songs.forEachValue(action);
+        }
+
+        SongSearchIndex searchIndex() {
+            SongSearchIndex index = searchIndex;
+            return index != null ? index : buildSearchIndex();
+        }
+
+        private synchronized SongSearchIndex buildSearchIndex() {
+            SongSearchIndex index = searchIndex;
+            if (index == null) {
+                SongSearchIndex built = new SongSearchIndex();
+                forEach(built::add);
+                searchIndex = index = built;
             }
+            return index;
         }
-        return null;
     }
 }
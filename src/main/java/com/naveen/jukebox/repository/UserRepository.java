@@ -2,10 +2,16 @@ package com.naveen.jukebox.repository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.naveen.jukebox.model.Constants;
 import com.naveen.jukebox.model.CurrentlyPlaying;
 import com.naveen.jukebox.model.Playlist;
-import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.model.ShuffleOrder;
 import com.naveen.jukebox.model.User;
+import com.naveen.jukebox.utility.ConcurrentIntIndex;
+import com.naveen.jukebox.utility.IntRingDeque;
 
 /**
  * A repository class for managing user data within the Jukebox application.
@@ -14,10 +20,30 @@ import com.naveen.jukebox.model.User;
  * including playlists and playback states. It provides methods to handle creation, retrieval,
  * modification, and deletion of user and playlist data.
  * </p>
+ * <p>
+ * Users are kept in a {@link ConcurrentIntIndex} keyed by user ID, and new IDs come from an atomic
+ * sequence, so many sessions can create and look up users at the same time in constant time.
+ * Changes to a single user's playlists are made while holding that user's monitor.
+ * </p>
+ * <p>
+ * Every change to a playlist is also counted in a {@link CoOccurrenceIndex} of the songs that share playlists,
+ * which answers song recommendations.
+ * </p>
+ * <p>
+ * The users of the process live in {@link #GLOBAL}. A new repository starts empty and shares nothing with it,
+ * which isolates the users of one session from all others.
+ * </p>
  */
 public class UserRepository {
 
-    static List<User> users =  new ArrayList<>();
+    /**
+     * The users of the process, served by the input file, the server and the journal.
+     */
+    public static final UserRepository GLOBAL = new UserRepository();
+
+    private final ConcurrentIntIndex<User> users = new ConcurrentIntIndex<>();
+    private final AtomicInteger userIdSequence = new AtomicInteger();
+    private final CoOccurrenceIndex coOccurrences = new CoOccurrenceIndex();
 
     /**
      * Retrieves a user by their unique ID.
@@ -26,12 +52,58 @@ public class UserRepository {
      * @return The {@link User} object if found, or null if no user with the given ID exists.
      */
     public User getUserByUserId(int id){
-        for (User user2 : users) {
-            if(user2.getId() == id){
-                return user2;
+        return users.get(id);
+    }
+
+    /**
+     * @return The number of registered users.
+     */
+    public int countUsers(){
+        return users.size();
+    }
+
+    /**
+     * @return The highest user ID handed out so far.
+     */
+    public int getLastUserId(){
+        return userIdSequence.get();
+    }
+
+    /**
+     * Passes every user to the consumer, in ID order.
+     *
+     * @param consumer Receives the users.
+     */
+    public void forEachUser(Consumer<User> consumer){
+        int lastUserId = userIdSequence.get();
+        for (int id = 1; id <= lastUserId; id++) {
+            User user = users.get(id);
+            if (user != null) {
+                consumer.accept(user);
             }
         }
-        return null;
+    }
+
+    /**
+     * Registers a user recovered from a snapshot under its original ID.
+     *
+     * @param user The recovered user.
+     */
+    public void restoreUser(User user){
+        for (Playlist playlist : user.getPlaylists()) {
+            coOccurrences.addPlaylist(CoOccurrenceIndex.distinct(playlist.getSongIds()));
+        }
+        users.put(user.getId(), user);
+        reserveUserIds(user.getId());
+    }
+
+    /**
+     * Makes sure that new users get IDs above the given one.
+     *
+     * @param lastUserId The highest user ID that must not be handed out again.
+     */
+    public void reserveUserIds(int lastUserId){
+        userIdSequence.accumulateAndGet(lastUserId, Math::max);
     }
 
     /**
@@ -41,12 +113,33 @@ public class UserRepository {
      * @return A string containing the user ID and username, indicating successful creation.
      */
     public String createUser(String username){
-        int userId = users.size() + 1; // Simplistic way to generate a new user ID
+        int userId = userIdSequence.incrementAndGet();
         User user = new User(userId, username, new ArrayList<>(), null);
-        users.add(user);
+        users.put(userId, user);
         return userId + " " + username;
     }
 
+    /**
+     * Creates a batch of users with consecutive IDs.
+     * <p>
+     * The IDs are taken from the sequence in one step and the user index is sized for them up front, so a batch
+     * costs one atomic update and no index growth however many users it holds.
+     * </p>
+     *
+     * @param usernames The names of the new users, in the order their IDs are handed out.
+     * @return The ID of the first new user; the others follow it.
+     */
+    public int createUsers(List<String> usernames){
+        int firstUserId = userIdSequence.getAndAdd(usernames.size()) + 1;
+        users.reserve(firstUserId + usernames.size() - 1);
+        int userId = firstUserId;
+        for (String username : usernames) {
+            users.put(userId, new User(userId, username, new ArrayList<>(), null));
+            userId++;
+        }
+        return firstUserId;
+    }
+
     /**
      * Adds a new playlist to a specific user's account.
      *
@@ -55,13 +148,33 @@ public class UserRepository {
      * @return A string indicating the playlist ID if the operation is successful, or null if the user is not found.
      */
     public String createPlaylist(int userId, Playlist playlist){
-        for (User user : users) {
-            if(user.getId() == userId){
-                user.getPlaylists().add(playlist);
-                return "Playlist ID - " + playlist.getId();
+        User user = getUserByUserId(userId);
+        if (user == null) {
+            return null;
+        }
+        synchronized (user) {
+            user.addPlaylist(playlist);
+            coOccurrences.addPlaylist(CoOccurrenceIndex.distinct(playlist.getSongIds()));
+        }
+        return "Playlist ID - " + playlist.getId();
+    }
+
+    /**
+     * Adds a batch of playlists to one user, giving them the user's next playlist IDs in order.
+     *
+     * @param user The owner of the playlists.
+     * @param playlists The new playlists. Their IDs are assigned here.
+     */
+    public void createPlaylists(User user, List<Playlist> playlists){
+        List<int[]> songSets = new ArrayList<>(playlists.size());
+        synchronized (user) {
+            for (Playlist playlist : playlists) {
+                playlist.setId(user.nextPlaylistId());
+                user.addPlaylist(playlist);
+                songSets.add(CoOccurrenceIndex.distinct(playlist.getSongIds()));
             }
+            coOccurrences.addPlaylists(songSets);
         }
-        return null;
     }
 
     /**
@@ -69,67 +182,221 @@ public class UserRepository {
      *
      * @param userId The ID of the user whose playlist is to be deleted.
      * @param playlistId The ID of the playlist to be removed.
-     * @return A message indicating whether the deletion was successful or if the playlist was not found.
+     * @return A message indicating whether the deletion was successful or if the user or playlist was not found.
      */
     public String deletePlaylist(int userId, int playlistId){
-        List<Playlist> playlists = getUserByUserId(userId).getPlaylists();
-        for (Playlist playlist : playlists) {
-            if (playlist.getId() == playlistId) {
-                playlists.remove(playlist);
-                return "Delete Successful";
+        User user = getUserByUserId(userId);
+        if (user == null) {
+            return Constants.USER_NOT_FOUND;
+        }
+        synchronized (user) {
+            Playlist playlist = user.removePlaylist(playlistId);
+            if (playlist == null) {
+                return "NO PLAYLIST FOUND WITH THE GIVEN PLAYLISTID";
+            }
+            coOccurrences.removePlaylist(CoOccurrenceIndex.distinct(playlist.getSongIds()));
+            CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+            if (currentlyPlaying != null && currentlyPlaying.getPlaylist() == playlist) {
+                user.setCurrentlyPlaying(null);
+            }
+            return "Delete Successful";
+        }
+    }
+
+    /**
+     * Appends a song to one of the user's playlists and records it in the user's song index.
+     *
+     * @param user The owner of the playlist.
+     * @param playlist The playlist to change.
+     * @param songId The ID of the song to add.
+     */
+    public void addSongInPlaylist(User user, Playlist playlist, int songId){
+        synchronized (user) {
+            // a playlist past the counting limit is not copied and sorted on every edit
+            if (!playlist.containsSong(songId) && CoOccurrenceIndex.isCounted(playlist.distinctSongCount())) {
+                coOccurrences.addSong(songId, CoOccurrenceIndex.distinct(playlist.getSongIds()));
+            }
+            user.addSongToPlaylist(playlist, songId);
+        }
+    }
+
+    /**
+     * Removes the first occurrence of a song from one of the user's playlists and from the user's song index.
+     * If the playlist is being played, the playback cursor is kept on the same song.
+     *
+     * @param user The owner of the playlist.
+     * @param playlist The playlist to change.
+     * @param songId The ID of the song to remove.
+     * @return true if the song was removed, false if the playlist does not hold the song.
+     */
+    public boolean deleteSongInPlaylist(User user, Playlist playlist, int songId){
+        synchronized (user) {
+            int index = user.removeSongFromPlaylist(playlist, songId);
+            if (index == -1) {
+                return false;
+            }
+            if (!playlist.containsSong(songId) && CoOccurrenceIndex.isCounted(playlist.distinctSongCount())) {
+                coOccurrences.removeSong(songId, CoOccurrenceIndex.distinct(playlist.getSongIds()));
+            }
+            CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+            if (currentlyPlaying != null && currentlyPlaying.getPlaylist() == playlist) {
+                currentlyPlaying.songRemovedAt(index);
             }
+            return true;
         }
-        return "NO PLAYLIST FOUND WITH THE GIVEN PLAYLISTID";
     }
 
     /**
-     * Sets a song as currently playing for a user.
+     * Returns the songs that share the most playlists with a song, across all users.
+     *
+     * @param songId The song to find companions for.
+     * @param limit  The maximum number of songs to return.
+     * @return The IDs of the companion songs, most shared first.
+     */
+    public int[] recommendSongIds(int songId, int limit){
+        return coOccurrences.recommend(songId, limit);
+    }
+
+    /**
+     * Moves the user's playback cursor to another position of the active playlist.
      *
      * @param userId The user ID.
-     * @param playlistId The playlist ID from which the song is played.
-     * @param songId The song ID that is to be played.
-     * @return The song ID of the currently playing song.
+     * @param index The position within the active playlist to play.
+     * @return The song ID at the new position.
      */
-    public int playSong(int userId, int playlistId, int songId){
-        CurrentlyPlaying currentlyPlaying = new CurrentlyPlaying(playlistId, songId);
-        getUserByUserId(userId).setCurrentlyPlaying(currentlyPlaying);
-        return songId;
+    public int playSong(int userId, int index){
+        CurrentlyPlaying currentlyPlaying = getUserByUserId(userId).getCurrentlyPlaying();
+        currentlyPlaying.moveTo(index);
+        return currentlyPlaying.getSongId();
     }
 
     /**
-     * Initiates playback of the first song in a specified playlist for a user.
+     * Initiates playback of a specified playlist for a user: from the first song, or in shuffle mode from a
+     * random song of a new shuffle order.
      *
      * @param userId The ID of the user.
      * @param playlistId The ID of the playlist.
      * @return The song ID of the first song that is played from the playlist.
      */
     public int playPlaylist(int userId, int playlistId){
-        Playlist playlist = getUserByUserId(userId).getPlaylists().stream()
-                .filter(plylst -> plylst.getId() == playlistId)
-                .findFirst()
-                .orElse(null);
-        if (playlist == null || playlist.getSongs().isEmpty()) {
+        User user = getUserByUserId(userId);
+        Playlist playlist = user.getPlaylistById(playlistId);
+        if (playlist == null || playlist.isEmpty()) {
             throw new IllegalStateException("Playlist is empty or not found.");
         }
-        return playSong(userId, playlistId, playlist.getSongs().get(0).getId());
+        synchronized (user) {
+            CurrentlyPlaying currentlyPlaying = user.isShuffle()
+                    ? new CurrentlyPlaying(playlist, ShuffleOrder.random(playlist, user.nextShuffleSeed(playlistId)))
+                    : new CurrentlyPlaying(playlist, 0);
+            user.setCurrentlyPlaying(currentlyPlaying);
+            return currentlyPlaying.getSongId();
+        }
+    }
+
+    /**
+     * Moves the user's playback on: to the next song of the up-next queue if there is one, otherwise to the next
+     * song of the active playlist, in shuffle order when shuffle is on.
+     *
+     * @param user The user, who must be playing a non-empty playlist.
+     * @return The ID of the song now playing.
+     */
+    public int playNext(User user){
+        synchronized (user) {
+            CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+            IntRingDeque upNext = user.getUpNext();
+            if (upNext.isEmpty()) {
+                currentlyPlaying.next();
+            } else {
+                currentlyPlaying.playQueued(upNext.pollFirst());
+            }
+            return currentlyPlaying.getSongId();
+        }
+    }
+
+    /**
+     * Moves the user's playback back. A queued song that is playing goes back to the front of the up-next queue
+     * and the song at the cursor plays again; otherwise the previous song of the active playlist plays.
+     *
+     * @param user The user, who must be playing a non-empty playlist.
+     * @return The ID of the song now playing.
+     */
+    public int playPrevious(User user){
+        synchronized (user) {
+            CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+            if (currentlyPlaying.isPlayingQueued()) {
+                user.getUpNext().addFirst(currentlyPlaying.getQueuedSongId());
+                currentlyPlaying.playQueued(CurrentlyPlaying.NO_SONG);
+            } else {
+                currentlyPlaying.previous();
+            }
+            return currentlyPlaying.getSongId();
+        }
+    }
+
+    /**
+     * Turns shuffle mode on or off for a user. A playlist being played switches order right away, continuing from
+     * the current song.
+     *
+     * @param user The user.
+     * @param shuffle true to shuffle, false to play in playlist order.
+     */
+    public void setShuffle(User user, boolean shuffle){
+        synchronized (user) {
+            user.setShuffle(shuffle);
+            CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+            if (currentlyPlaying == null || currentlyPlaying.getPlaylist().isEmpty()) {
+                return;
+            }
+            if (!shuffle) {
+                currentlyPlaying.setShuffle(null);
+            } else if (currentlyPlaying.getShuffle() == null) {
+                Playlist playlist = currentlyPlaying.getPlaylist();
+                currentlyPlaying.setShuffle(ShuffleOrder.startingAt(playlist, currentlyPlaying.getIndex(),
+                        user.nextShuffleSeed(playlist.getId())));
+            }
+        }
+    }
+
+    /**
+     * Appends a song to the user's up-next queue.
+     *
+     * @param user The user.
+     * @param songId The ID of the song to queue.
+     * @return The queued song IDs, in the order they will play.
+     */
+    public int[] enqueue(User user, int songId){
+        synchronized (user) {
+            user.getUpNext().addLast(songId);
+            return user.getUpNext().toArray();
+        }
     }
 
     /**
      * Checks if a specific song is part of any playlist belonging to a user.
+     * <p>
+     * The check is a single lookup in the user's song index, independent of the number and size of the playlists.
+     * </p>
      *
      * @param userId The user's ID.
      * @param songId The song's ID to check.
      * @return true if the song is part of at least one of the user's playlists, false otherwise.
      */
     public boolean isSongPartOfPlaylist(int userId, int songId){
-        for (Playlist playlist : getUserByUserId(userId).getPlaylists()) {
-            for(Songs song : playlist.getSongs()){
-                if(song.getId() == songId){
-                    return true;
-                }
-            }
-        }
-        return false;
+        return getUserByUserId(userId).getSongIndex().contains(songId);
+    }
+
+    /**
+     * Checks if a specific song is part of the playlist the user is currently playing.
+     *
+     * @param userId The user's ID.
+     * @param songId The song's ID to check.
+     * @return true if the user is playing a playlist that holds the song, false otherwise.
+     */
+    public boolean isSongPartOfActivePlaylist(int userId, int songId){
+        User user = getUserByUserId(userId);
+        CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+        return currentlyPlaying != null
+                && user.getSongIndex().contains(songId, currentlyPlaying.getPlaylistId());
     }
 
 }
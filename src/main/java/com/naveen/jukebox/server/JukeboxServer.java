@@ -0,0 +1,246 @@
+package com.naveen.jukebox.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.naveen.jukebox.command.ConcurrentCommandExecutor;
+import com.naveen.jukebox.utility.DataUtility;
+import com.naveen.jukebox.utility.VirtualThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the jukebox command language over the network.
+ * <p>
+ * Over TCP a client sends one command per line and receives, for every command and in the same order, the text
+ * the command prints followed by an empty line, which marks the end of the response. Commands without output are
+ * answered by the empty line alone. Blank command lines are ignored. A client may pipeline several commands;
+ * responses are flushed whenever no further command is waiting on the connection.
+ * </p>
+ * <p>
+ * The optional HTTP endpoint accepts {@code POST /command} with one or more command lines in the body and answers
+ * with the responses in the same framing. {@code GET /health} answers {@code OK}.
+ * </p>
+ * <p>
+ * Each connection and each HTTP exchange runs on its own virtual thread, so a blocked client costs a few
+ * kilobytes rather than a platform thread; see {@link VirtualThreads} for runtimes without them. Commands are
+ * executed by a {@link ConcurrentCommandExecutor}, which serializes the commands of each user.
+ * </p>
+ */
+public class JukeboxServer implements AutoCloseable {
+
+    /**
+     * The port value that disables a listener.
+     */
+    public static final int DISABLED = -1;
+
+    private static final int BACKLOG = 4096;
+    private static final String COMMAND_PATH = "/command";
+    private static final String HEALTH_PATH = "/health";
+
+    private final ConcurrentCommandExecutor executor;
+    private final ExecutorService connectionThreads = VirtualThreads.newThreadPerTaskExecutor("jukebox-connection-");
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final int requestedTcpPort;
+    private final int requestedHttpPort;
+    private ServerSocket serverSocket;
+    private HttpServer httpServer;
+    private Thread acceptThread;
+
+    /**
+     * Creates a server. Nothing is bound until {@link #start()} is called.
+     *
+     * @param executor The executor running the commands.
+     * @param tcpPort  The TCP port, 0 for any free port, or {@link #DISABLED}.
+     * @param httpPort The HTTP port, 0 for any free port, or {@link #DISABLED}.
+     */
+    public JukeboxServer(ConcurrentCommandExecutor executor, int tcpPort, int httpPort) {
+        this.executor = executor;
+        this.requestedTcpPort = tcpPort;
+        this.requestedHttpPort = httpPort;
+    }
+
+    /**
+     * Binds the listeners and starts accepting connections.
+     *
+     * @throws IOException if a port cannot be bound.
+     */
+    public void start() throws IOException {
+        if (requestedTcpPort != DISABLED) {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(new InetSocketAddress(requestedTcpPort), BACKLOG);
+            acceptThread = new Thread(this::acceptConnections, "jukebox-accept");
+            acceptThread.start();
+        }
+        if (requestedHttpPort != DISABLED) {
+            httpServer = HttpServer.create(new InetSocketAddress(requestedHttpPort), BACKLOG);
+            httpServer.createContext(COMMAND_PATH, this::handleCommands);
+            httpServer.createContext(HEALTH_PATH, exchange -> respond(exchange, 200, "OK"));
+            httpServer.setExecutor(connectionThreads);
+            httpServer.start();
+        }
+        DataUtility.printDiagnostic("Jukebox server listening on TCP port " + getTcpPort() + ", HTTP port "
+                + getHttpPort() + (VirtualThreads.isAvailable() ? " (virtual threads)" : " (platform threads)"));
+    }
+
+    /**
+     * @return The bound TCP port, or {@link #DISABLED} if TCP is disabled or the server is not started.
+     */
+    public int getTcpPort() {
+        return serverSocket == null ? DISABLED : serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The bound HTTP port, or {@link #DISABLED} if HTTP is disabled or the server is not started.
+     */
+    public int getHttpPort() {
+        return httpServer == null ? DISABLED : httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Blocks until the TCP listener stops, which is when the server is closed.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted.
+     */
+    public void awaitTermination() throws InterruptedException {
+        if (acceptThread != null) {
+            acceptThread.join();
+        } else if (httpServer != null) {
+            Thread.currentThread().join();
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        connectionThreads.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                connectionThreads.execute(() -> serve(socket));
+            } catch (RejectedExecutionException | SocketException e) {
+                // the server is closing
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Answers the commands of one TCP connection until the client closes it.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                writeResponse(out, line);
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // the client went away
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void handleCommands(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Allow", "POST");
+            respond(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (BufferedReader in = new BufferedReader(new StringReader(body));
+             Writer out = new OutputStreamWriter(response, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isBlank()) {
+                    writeResponse(out, line);
+                }
+            }
+        }
+        respond(exchange, 200, response.toByteArray());
+    }
+
+    private void writeResponse(Writer out, String command) throws IOException {
+        String result;
+        try {
+            result = executor.execute(command);
+        } catch (RuntimeException e) {
+            // a malformed command must not take the connection down
+            result = "Invalid Operation";
+        }
+        if (result != null) {
+            out.write(result);
+            out.write('\n');
+        }
+        out.write('\n');
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.naveen.jukebox.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.naveen.jukebox.model.Constants;
+import com.naveen.jukebox.utility.DataUtility;
+import com.naveen.jukebox.utility.VirtualThreads;
+
+/**
+ * A load generator for {@link JukeboxServer}.
+ * <p>
+ * Every simulated client opens its own TCP connection, creates a user and a playlist of the given songs, and
+ * waits until all clients are connected. Then each client sends its requests one at a time, cycling through
+ * {@code PLAY-SONG NEXT}, {@code PLAY-SONG BACK} and {@code PLAY-PLAYLIST}, and records the round-trip time of
+ * every request. The setup commands are not measured. At the end the client prints the throughput and the latency
+ * percentiles over all requests.
+ * </p>
+ * <p>
+ * Arguments, all optional: {@code HOST=localhost PORT=7070 CONNECTIONS=1000 REQUESTS=100 SONGS=1,2,3}.
+ * The songs must exist in the catalog the server has loaded.
+ * </p>
+ */
+public class LoadTestClient {
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final int requests;
+    private final String songs;
+
+    public LoadTestClient(String host, int port, int connections, int requests, String songs) {
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.requests = requests;
+        this.songs = songs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 7070;
+        int connections = 1000;
+        int requests = 100;
+        String songs = "1,2,3";
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            switch (pair[0]) {
+                case "HOST" -> host = pair[1];
+                case "PORT" -> port = Integer.parseInt(pair[1]);
+                case "CONNECTIONS" -> connections = Integer.parseInt(pair[1]);
+                case "REQUESTS" -> requests = Integer.parseInt(pair[1]);
+                case "SONGS" -> songs = pair[1];
+                default -> {
+                    DataUtility.printOutput("Error: Unknown argument " + arg
+                            + ". Expecting HOST=host PORT=n CONNECTIONS=n REQUESTS=n SONGS=id,id,...");
+                    return;
+                }
+            }
+        }
+        DataUtility.printOutput(new LoadTestClient(host, port, connections, requests, songs).run().toString());
+    }
+
+    /**
+     * Runs the load test.
+     *
+     * @return The measured latencies and throughput.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the clients.
+     */
+    public Report run() throws InterruptedException {
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<long[]>> results = new ArrayList<>(connections);
+        ExecutorService clients = VirtualThreads.newThreadPerTaskExecutor("jukebox-load-");
+        try {
+            for (int i = 0; i < connections; i++) {
+                int client = i;
+                results.add(clients.submit(() -> runClient(client, connected, go, failures)));
+            }
+            connected.await();
+            long start = System.nanoTime();
+            go.countDown();
+            long[][] latencies = new long[connections][];
+            for (int i = 0; i < connections; i++) {
+                try {
+                    latencies[i] = results.get(i).get();
+                } catch (Exception e) {
+                    latencies[i] = new long[0];
+                }
+            }
+            return new Report(latencies, System.nanoTime() - start, failures.get());
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Runs one simulated client. A client that fails counts itself as connected, so the others are not blocked.
+     *
+     * @return The round-trip times of the client's requests in nanoseconds.
+     */
+    private long[] runClient(int client, CountDownLatch connected, CountDownLatch go, AtomicInteger failures)
+            throws InterruptedException {
+        boolean counted = false;
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String user = call(in, out, Constants.CREATE_USER_OPERATION + " load" + client).split(" ")[0];
+            String playlist = call(in, out, Constants.CREATE_PLAYLIST_OPERATION + " " + user + " LOAD"
+                    + client + " " + songs.replace(',', ' '));
+            String playlistId = playlist.startsWith("Playlist ID - ") ? playlist.substring(14).trim() : "1";
+            String[] workload = {
+                    Constants.PLAY_PLAYLIST_OPERATION + " " + user + " " + playlistId,
+                    Constants.PLAY_SONG_OPERATION + " " + user + " " + Constants.PLAY_NEXT_SONG_OPERATION,
+                    Constants.PLAY_SONG_OPERATION + " " + user + " " + Constants.PLAY_NEXT_SONG_OPERATION,
+                    Constants.PLAY_SONG_OPERATION + " " + user + " " + Constants.PLAY_PREVIOUS_SONG_OPERATION,
+            };
+            connected.countDown();
+            counted = true;
+            go.await();
+            long[] latencies = new long[requests];
+            for (int i = 0; i < requests; i++) {
+                long start = System.nanoTime();
+                call(in, out, workload[i % workload.length]);
+                latencies[i] = System.nanoTime() - start;
+            }
+            return latencies;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            return new long[0];
+        } finally {
+            if (!counted) {
+                connected.countDown();
+            }
+        }
+    }
+
+    /**
+     * Sends one command and reads its response up to the terminating empty line.
+     */
+    private static String call(BufferedReader in, Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            response.append(line).append('\n');
+        }
+        if (line == null) {
+            throw new IOException("Connection closed by the server.");
+        }
+        return response.toString();
+    }
+
+    /**
+     * The outcome of a load test.
+     */
+    public static class Report {
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final int failedConnections;
+
+        Report(long[][] latencies, long elapsedNanos, int failedConnections) {
+            int total = 0;
+            for (long[] client : latencies) {
+                total += client.length;
+            }
+            long[] all = new long[total];
+            int position = 0;
+            for (long[] client : latencies) {
+                System.arraycopy(client, 0, all, position, client.length);
+                position += client.length;
+            }
+            Arrays.sort(all);
+            this.sortedLatencies = all;
+            this.elapsedNanos = elapsedNanos;
+            this.failedConnections = failedConnections;
+        }
+
+        public int getRequests() {
+            return sortedLatencies.length;
+        }
+
+        public int getFailedConnections() {
+            return failedConnections;
+        }
+
+        public double getRequestsPerSecond() {
+            return elapsedNanos == 0 ? 0 : sortedLatencies.length * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /**
+         * @param quantile A quantile between 0 and 1, for example 0.99.
+         * @return The latency at the quantile in nanoseconds, or 0 if no request completed.
+         */
+        public long getLatencyNanos(double quantile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sortedLatencies.length);
+            return sortedLatencies[Math.min(sortedLatencies.length, Math.max(1, rank)) - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Requests: %d, failed connections: %d, throughput: %.0f requests/s%n"
+                            + "Latency (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+                    getRequests(), failedConnections, getRequestsPerSecond(),
+                    getLatencyNanos(0.5) / 1000.0, getLatencyNanos(0.9) / 1000.0, getLatencyNanos(0.99) / 1000.0,
+                    getLatencyNanos(0.999) / 1000.0, getLatencyNanos(1.0) / 1000.0);
+        }
+    }
+}
@@ -1,8 +1,19 @@
 package com.naveen.jukebox.service;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
+import com.naveen.jukebox.model.CatalogDiff;
+import com.naveen.jukebox.model.LoadReport;
 import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.repository.CatalogBuilder;
 import com.naveen.jukebox.repository.SongsRepository;
 import com.naveen.jukebox.utility.DataUtility;
 import com.opencsv.exceptions.CsvException;
@@ -17,22 +28,104 @@ import com.opencsv.exceptions.CsvException;
  */
 public class SongsService {
 
+    /**
+     * Number of CSV rows parsed by a single fork-join task.
+     */
+    static final int LOAD_CHUNK_SIZE = 8192;
+
+    /**
+     * Number of fields a song row must have to be accepted.
+     */
+    private static final int SONG_FIELDS = 6;
+
     private final SongsRepository repository = new SongsRepository();
 
     /**
-     * Loads songs into the repository from a CSV file.
+     * Loads songs into the repository from a CSV file, replacing the songs loaded before.
      * <p>
-     * This method reads songs from a specified CSV file path, converts them into song objects,
-     * and loads them into the repository. It handles CSV-related exceptions and passes
-     * them up to the caller.
+     * The file is streamed in chunks of {@value #LOAD_CHUNK_SIZE} rows. Each chunk is converted into song objects
+     * on the common {@link ForkJoinPool}, while the calling thread keeps reading the file and adds the parsed
+     * chunks to a new catalog version in file order. At most two chunks per pool thread are in flight at any time,
+     * so the memory taken besides the new catalog stays bounded no matter how large the file is.
+     * </p>
+     * <p>
+     * Readers keep using the published catalog while the file is loaded. Once the whole file is read, the new
+     * version is compared with the published one and replaces it in one atomic step, so a reload can run under
+     * live traffic and no reader ever sees a partly loaded catalog. Songs that are missing from the file are
+     * removed; playlists keep their IDs, and they are reported as not found until a later catalog brings them
+     * back.
+     * </p>
+     * <p>
+     * Rows that have fewer than six fields or a non-numeric ID are skipped and counted as rejected instead of
+     * failing the whole load. CSV-related exceptions are passed up to the caller.
      * </p>
      *
      * @param filepath the path to the CSV file containing song data.
+     * @return a {@link LoadReport} with the number of loaded and rejected rows, the load throughput and the
+     *         changes to the catalog.
      * @throws CsvException if an error occurs during CSV file parsing.
      */
-    public void loadSongs(String filepath) throws CsvException {
-        List<String[]> res = DataUtility.readCsvFile(filepath);
-        repository.loadSongs(DataUtility.convertDataSongs(res));
+    public LoadReport loadSongs(String filepath) throws CsvException {
+        return loadSongs(filepath, Runnable::run);
+    }
+
+    /**
+     * Loads songs like {@link #loadSongs(String)}, but publishes the new catalog through the caller.
+     * <p>
+     * Once the file is read, the step that swaps in the new catalog is handed to {@code publisher}, which must run
+     * it exactly once. The caller can run it under a lock and record the load in the same step, so that nothing
+     * the lock excludes sees the new catalog before the load is recorded. A load that fails never reaches the
+     * publisher.
+     * </p>
+     *
+     * @param filepath  the path to the CSV file containing song data.
+     * @param publisher runs the step that publishes the new catalog.
+     * @return a {@link LoadReport} like {@link #loadSongs(String)}.
+     * @throws CsvException if an error occurs during CSV file parsing.
+     */
+    public LoadReport loadSongs(String filepath, Consumer<Runnable> publisher) throws CsvException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        Deque<ForkJoinTask<ParsedChunk>> inFlight = new ArrayDeque<>(maxInFlight);
+        long[] totals = new long[2];
+        CatalogBuilder catalog = repository.newCatalog();
+
+        DataUtility.readCsvFileInChunks(filepath, LOAD_CHUNK_SIZE, chunk -> {
+            inFlight.addLast(pool.submit(() -> parseChunk(chunk)));
+            if (inFlight.size() >= maxInFlight) {
+                store(inFlight.removeFirst().join(), catalog, totals);
+            }
+        });
+        while (!inFlight.isEmpty()) {
+            store(inFlight.removeFirst().join(), catalog, totals);
+        }
+        CatalogDiff[] diff = new CatalogDiff[1];
+        publisher.accept(() -> diff[0] = repository.publish(catalog));
+        return new LoadReport(totals[0], totals[1], System.nanoTime() - start, diff[0]);
+    }
+
+    /**
+     * Opens a binary catalog snapshot so that songs are served from it without parsing any CSV.
+     *
+     * @param filepath the path to the snapshot file.
+     * @return the number of songs available in the snapshot.
+     * @throws IOException if the snapshot cannot be opened.
+     */
+    public int loadSnapshot(String filepath) throws IOException {
+        return repository.openSnapshot(Paths.get(filepath));
+    }
+
+    /**
+     * Writes the currently loaded catalog to a binary snapshot file, which can later be opened with
+     * {@link #loadSnapshot(String)} for a fast startup.
+     *
+     * @param filepath the path of the snapshot file to write.
+     * @return the number of songs written.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public int saveSnapshot(String filepath) throws IOException {
+        return repository.writeSnapshot(Paths.get(filepath));
     }
 
     /**
@@ -49,4 +142,58 @@ public class SongsService {
         return repository.getSongBySongId(songId);
     }
 
+    /**
+     * Searches the catalog for songs whose title, album or artists contain all the words of a query.
+     *
+     * @param query the words to look for, in any case.
+     * @param limit the maximum number of songs to return.
+     * @return the best matching songs, best first, or an empty list if no song matches.
+     */
+    public List<Songs> searchSongs(CharSequence query, int limit) {
+        return repository.searchSongs(query, limit);
+    }
+
+    /**
+     * @return the number of songs loaded from CSV files and held in memory.
+     */
+    public int countLoadedSongs() {
+        return repository.countLoadedSongs();
+    }
+
+    /**
+     * @return the number of songs in the opened snapshot, or 0 if no snapshot is open.
+     */
+    public int countSnapshotSongs() {
+        return repository.countSnapshotSongs();
+    }
+
+    private static void store(ParsedChunk parsed, CatalogBuilder catalog, long[] totals) {
+        catalog.addAll(parsed.songs());
+        totals[0] += parsed.songs().size();
+        totals[1] += parsed.rejected();
+    }
+
+    private static ParsedChunk parseChunk(List<String[]> rows) {
+        List<Songs> songs = new ArrayList<>(rows.size());
+        int rejected = 0;
+        for (String[] row : rows) {
+            if (row.length < SONG_FIELDS) {
+                rejected++;
+                continue;
+            }
+            try {
+                songs.add(DataUtility.convertDataSong(row));
+            } catch (NumberFormatException e) {
+                rejected++;
+            }
+        }
+        return new ParsedChunk(songs, rejected);
+    }
+
+    /**
+     * The songs parsed from one chunk of CSV rows, together with the number of rows that were rejected.
+     */
+    private record ParsedChunk(List<Songs> songs, int rejected) {
+    }
+
 }
@@ -1,20 +1,63 @@
 package com.naveen.jukebox.service;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.IntStream;
 
+import com.naveen.jukebox.metrics.TrendingSongs;
 import com.naveen.jukebox.model.Constants;
+import com.naveen.jukebox.model.CurrentlyPlaying;
 import com.naveen.jukebox.model.Playlist;
 import com.naveen.jukebox.model.Songs;
 import com.naveen.jukebox.model.User;
+import com.naveen.jukebox.output.Response;
 import com.naveen.jukebox.repository.UserRepository;
 import com.naveen.jukebox.utility.DataUtility;
+import com.naveen.jukebox.utility.IntIntHashMap;
+import com.naveen.jukebox.utility.IntObjectHashMap;
+import com.opencsv.exceptions.CsvException;
 
 public class UserService {
 
-    private final UserRepository userRepository = new UserRepository();
+    /**
+     * The largest number of trending songs one command may ask for.
+     */
+    private static final int MAX_TRENDING = 100;
+
+    /**
+     * The number of batch file rows validated and inserted together.
+     */
+    private static final int BULK_CHUNK_SIZE = 10_000;
+
+    /**
+     * The number of rejected rows a batch command lists individually.
+     */
+    private static final int MAX_REPORTED_ROWS = 20;
+
+    private static final String BATCH_FILE_NOT_FOUND = "Batch file not found - ";
+    private static final String BATCH_FILE_UNREADABLE = "Batch file could not be read - ";
+
+    private final UserRepository userRepository;
     private final SongsService songsService = new SongsService();
+    private final TrendingSongs trending;
+
+    /**
+     * Serves the users of the process, {@link UserRepository#GLOBAL}, and counts their plays in
+     * {@link TrendingSongs#GLOBAL}.
+     */
+    public UserService() {
+        this(UserRepository.GLOBAL, TrendingSongs.GLOBAL);
+    }
+
+    /**
+     * @param userRepository The users to serve.
+     * @param trending       Where the plays of these users are counted.
+     */
+    public UserService(UserRepository userRepository, TrendingSongs trending) {
+        this.userRepository = userRepository;
+        this.trending = trending;
+    }
 
     /**
      * Attempts to create a new user with the specified username.
@@ -40,6 +83,198 @@ public class UserService {
         return userRepository.createUser(username);
     }
 
+    /**
+     * Creates one user per row of a CSV batch file, for onboarding many users at once.
+     * <p>
+     * The first field of each row is the username. The file is read in chunks, and each chunk of valid rows is
+     * registered with one block of consecutive user IDs. A row with an empty username is reported and skipped
+     * without stopping the batch; blank lines are ignored.
+     * </p>
+     *
+     * @param filepath The path of the batch file.
+     * @return The number of users created and their ID range, the number of rows rejected, and a line per rejected
+     *         row, or an error message if the file cannot be read.
+     */
+    public String bulkCreateUsers(String filepath) {
+        if (!Files.isReadable(Paths.get(filepath))) {
+            return BATCH_FILE_NOT_FOUND + filepath;
+        }
+        BatchReport report = new BatchReport();
+        int[] range = {0, 0};
+        try {
+            DataUtility.readCsvFileInChunks(filepath, BULK_CHUNK_SIZE, rows -> {
+                List<String> usernames = new ArrayList<>(rows.size());
+                for (String[] row : rows) {
+                    report.row++;
+                    if (isBlank(row)) {
+                        continue;
+                    }
+                    String username = row[0].trim();
+                    if (username.isEmpty()) {
+                        report.reject("Username cannot be empty or null.");
+                        continue;
+                    }
+                    usernames.add(username);
+                }
+                if (!usernames.isEmpty()) {
+                    int first = userRepository.createUsers(usernames);
+                    range[0] = range[0] == 0 ? first : range[0];
+                    range[1] = first + usernames.size() - 1;
+                    report.created += usernames.size();
+                }
+            });
+        } catch (CsvException e) {
+            return BATCH_FILE_UNREADABLE + e.getMessage();
+        }
+        String ids = report.created == 0 ? "" : ", User IDs - " + range[0] + " to " + range[1];
+        return report.render("Users Created - " + report.created + ids);
+    }
+
+    /**
+     * Creates one playlist per row of a CSV batch file, for onboarding many playlists at once.
+     * <p>
+     * Each row holds the user ID, the playlist name and the song IDs, one per field or several in a field
+     * separated by {@code #}. Every distinct song ID of the batch is checked against the catalog only once, the
+     * rows of a chunk are grouped by user, and each user's playlists are added while holding the user once. A row
+     * that names an unknown user or song, or lacks a name or songs, is reported and skipped without stopping the
+     * batch, with the same message CREATE-PLAYLIST would give; blank lines are ignored.
+     * </p>
+     *
+     * @param filepath The path of the batch file.
+     * @return The number of playlists created, the number of rows rejected, and a line per rejected row, or an
+     *         error message if the file cannot be read.
+     */
+    public String bulkCreatePlaylists(String filepath) {
+        if (!Files.isReadable(Paths.get(filepath))) {
+            return BATCH_FILE_NOT_FOUND + filepath;
+        }
+        BatchReport report = new BatchReport();
+        // 1 for a song in the catalog and 0 for an unknown one, so each ID is looked up once per batch
+        IntIntHashMap knownSongs = new IntIntHashMap();
+        try {
+            DataUtility.readCsvFileInChunks(filepath, BULK_CHUNK_SIZE, rows -> {
+                List<User> owners = new ArrayList<>();
+                IntObjectHashMap<List<Playlist>> playlistsByUser = new IntObjectHashMap<>();
+                for (String[] row : rows) {
+                    report.row++;
+                    if (isBlank(row)) {
+                        continue;
+                    }
+                    String error = parsePlaylistRow(row, knownSongs, owners, playlistsByUser);
+                    if (error != null) {
+                        report.reject(error);
+                    }
+                }
+                for (User owner : owners) {
+                    List<Playlist> playlists = playlistsByUser.get(owner.getId());
+                    userRepository.createPlaylists(owner, playlists);
+                    report.created += playlists.size();
+                }
+            });
+        } catch (CsvException e) {
+            return BATCH_FILE_UNREADABLE + e.getMessage();
+        }
+        return report.render("Playlists Created - " + report.created);
+    }
+
+    /**
+     * Validates one row of a playlist batch and files the new playlist under its owner.
+     *
+     * @return null if the row is valid, otherwise the reason it was rejected.
+     */
+    private String parsePlaylistRow(String[] row, IntIntHashMap knownSongs, List<User> owners,
+            IntObjectHashMap<List<Playlist>> playlistsByUser) {
+        if (row.length < 3) {
+            return "Expected a user ID, a playlist name and song IDs.";
+        }
+        int userId;
+        try {
+            userId = Integer.parseInt(row[0].trim());
+        } catch (NumberFormatException e) {
+            return "Invalid user ID " + row[0].trim() + ".";
+        }
+        String playlistName = row[1].trim();
+        if (playlistName.isEmpty()) {
+            return "Playlist name cannot be empty or null.";
+        }
+        User user = userRepository.getUserByUserId(userId);
+        if (user == null) {
+            return Constants.USER_NOT_FOUND;
+        }
+        Playlist playlist = new Playlist(0, playlistName, row.length - 2);
+        for (int field = 2; field < row.length; field++) {
+            for (String token : row[field].split("#")) {
+                String trimmed = token.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int songId;
+                try {
+                    songId = Integer.parseInt(trimmed);
+                } catch (NumberFormatException e) {
+                    return "Invalid song ID " + trimmed + ".";
+                }
+                int known = knownSongs.getOrDefault(songId, -1);
+                if (known < 0) {
+                    known = songsService.getSongsBySongId(songId) != null ? 1 : 0;
+                    knownSongs.put(songId, known);
+                }
+                if (known == 0) {
+                    return "Song with ID " + songId + " not found.";
+                }
+                playlist.addSong(songId);
+            }
+        }
+        if (playlist.isEmpty()) {
+            return "Song IDs list cannot be empty.";
+        }
+        List<Playlist> playlists = playlistsByUser.get(userId);
+        if (playlists == null) {
+            playlists = new ArrayList<>();
+            playlistsByUser.put(userId, playlists);
+            owners.add(user);
+        }
+        playlists.add(playlist);
+        return null;
+    }
+
+    private static boolean isBlank(String[] row) {
+        return row.length == 0 || (row.length == 1 && row[0].isBlank());
+    }
+
+    /**
+     * The running totals of a batch command, with the first rejected rows kept for the report.
+     */
+    private static final class BatchReport {
+        private final StringBuilder rejectedRows = new StringBuilder();
+        private long row;
+        private long created;
+        private long rejected;
+
+        void reject(String reason) {
+            rejected++;
+            if (rejected <= MAX_REPORTED_ROWS) {
+                rejectedRows.append("\nRow ").append(row).append(" - ").append(reason);
+            }
+        }
+
+        String render(String summary) {
+            StringBuilder text = new StringBuilder(summary).append(", Rows Rejected - ").append(rejected);
+            text.append(rejectedRows);
+            if (rejected > MAX_REPORTED_ROWS) {
+                text.append("\n... and ").append(rejected - MAX_REPORTED_ROWS).append(" more rejected rows");
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * @return The number of registered users.
+     */
+    public int countUsers() {
+        return userRepository.countUsers();
+    }
+
     /**
      * Creates a new playlist for a specified user and adds selected songs to it.
      * <p>
@@ -68,11 +303,8 @@ public class UserService {
             return Constants.USER_NOT_FOUND;
         }
 
-        Playlist playlist = new Playlist();
-        int playlistId = user.getPlaylists().size() + 1;
-        playlist.setId(playlistId);
-        playlist.setTitle(playlistName);
-        playlist.setSongs(new ArrayList<>());  // Initialize with an empty list
+        int playlistId = user.nextPlaylistId();
+        Playlist playlist = new Playlist(playlistId, playlistName, songIds.length);
 
         // Add songs to the playlist, check if each song exists
         for (int id : songIds) {
@@ -80,13 +312,69 @@ public class UserService {
             if (song == null) {
                 return "Song with ID " + id + " not found.";
             }
-            playlist.getSongs().add(song);
+            playlist.addSong(id);
         }
 
         return userRepository.createPlaylist(userId, playlist);
     }
 
 
+    /**
+     * Recommends the songs that appear together with a song in the most playlists of all users.
+     * <p>
+     * The recommendations come from a co-occurrence model that is kept up to date on every playlist change, so
+     * this is a lookup of the song's precomputed companions rather than a scan of the playlists.
+     * </p>
+     *
+     * @param songId The ID of the song to find companions for.
+     * @param limit  The maximum number of songs to recommend.
+     * @return The recommended songs, most shared first, or a message if the song does not exist or shares no
+     *         playlist with another song.
+     */
+    public Response recommendSongs(int songId, int limit) {
+        if (songsService.getSongsBySongId(songId) == null) {
+            return Response.message(Constants.SONG_NOT_FOUND);
+        }
+        int[] songIds = userRepository.recommendSongIds(songId, limit);
+        List<Songs> recommended = new ArrayList<>(songIds.length);
+        for (int id : songIds) {
+            Songs song = songsService.getSongsBySongId(id);
+            if (song != null) {
+                recommended.add(song);
+            }
+        }
+        if (recommended.isEmpty()) {
+            return Response.message(Constants.NO_RECOMMENDATIONS);
+        }
+        return Response.songs("Recommended Songs - ", recommended);
+    }
+
+    /**
+     * Lists the songs played most often by all users in the last hour.
+     * <p>
+     * Every song that PLAY-PLAYLIST, PLAY-SONG, NEXT or BACK plays is counted in {@link TrendingSongs}, which keeps
+     * approximate counts in a fixed amount of memory, so the play counts behind the ranking may be slightly high
+     * and songs played only a few times may be missing.
+     * </p>
+     *
+     * @param limit The maximum number of songs to list, at least 1 and at most {@value #MAX_TRENDING}.
+     * @return The trending songs, most played first, or a message if no song was played recently.
+     */
+    public Response trendingSongs(int limit) {
+        int[] songIds = trending.top(Math.min(limit, MAX_TRENDING));
+        List<Songs> songs = new ArrayList<>(songIds.length);
+        for (int id : songIds) {
+            Songs song = songsService.getSongsBySongId(id);
+            if (song != null) {
+                songs.add(song);
+            }
+        }
+        if (songs.isEmpty()) {
+            return Response.message(Constants.NO_TRENDING_SONGS);
+        }
+        return Response.songs("Trending Songs - ", songs);
+    }
+
     /**
      * Deletes the provided playlist.
      * @param userId existing user id
@@ -108,27 +396,24 @@ public class UserService {
      *
      * @param userId The ID of the user who wants to play the playlist.
      * @param playlistId The ID of the playlist to be played.
-     * @return A string detailing the first song playing from the playlist or an error message if the user, playlist,
+     * @return A response detailing the first song playing from the playlist or an error message if the user, playlist,
      *         or songs cannot be found or if the playlist is empty.
      * @throws IllegalArgumentException if the inputs do not meet the validation criteria or if no corresponding user or playlist exists.
      */
-    public String playPlaylist(int userId, int playlistId) {
+    public Response playPlaylist(int userId, int playlistId) {
         // Validate if the user and playlist exist
         User user = userRepository.getUserByUserId(userId);
         if (user == null) {
-            return Constants.USER_NOT_FOUND;
+            return Response.message(Constants.USER_NOT_FOUND);
         }
 
-        Playlist playlist = user.getPlaylists().stream()
-                .filter(p -> p.getId() == playlistId)
-                .findFirst()
-                .orElse(null);
+        Playlist playlist = user.getPlaylistById(playlistId);
         if (playlist == null) {
-            return Constants.PLAYLIST_NOT_FOUND;
+            return Response.message(Constants.PLAYLIST_NOT_FOUND);
         }
 
-        if (playlist.getSongs().isEmpty()) {
-            return "Playlist is empty. No songs to play.";
+        if (playlist.isEmpty()) {
+            return Response.message("Playlist is empty. No songs to play.");
         }
 
         // Attempt to play the playlist and retrieve the currently playing song ID
@@ -136,83 +421,110 @@ public class UserService {
         Songs song = songsService.getSongsBySongId(currentlyPlayingSongId);
 
         if (song == null) {
-            return "Error retrieving the currently playing song.";
+            return Response.message("Error retrieving the currently playing song.");
         }
 
-        return DataUtility.constructSongResponse(song);
+        trending.record(currentlyPlayingSongId);
+        return Response.playing(song);
     }
 
 
     /**
-     * Plays the next or previous song in the current playlist based on the provided navigation command.
+     * Plays the next or previous song based on the provided navigation command.
      * <p>
-     * This method determines the song to be played next or previously within the user's currently playing playlist,
-     * based on the navigation command provided ('next' or 'previous'). It retrieves the current playlist and song
-     * from the user's profile and computes the index for the next song to be played, cycling back to the start
-     * or end of the playlist as necessary.
+     * Songs the user queued with ENQUEUE come first: NEXT plays the next queued song, and BACK from a queued song
+     * puts it back at the front of the queue and returns to the playlist. Otherwise the user's playback cursor moves
+     * through the active playlist, in playlist order or in shuffle order, cycling back to the start or end of the
+     * order as necessary. Every step takes the same constant time whatever the size of the playlist.
      * </p>
      *
      * @param userId The ID of the user whose playlist is being manipulated.
      * @param navi   The navigation command, either {@link Constants#PLAY_NEXT_SONG_OPERATION} for the next song or
      *               {@link Constants#PLAY_PREVIOUS_SONG_OPERATION} for the previous song. If an unrecognized command
      *               is provided, the current song will remain playing.
-     * @return A string representation of the currently playing song after executing the navigation command. If an error occurs,
+     * @return A response showing the currently playing song after executing the navigation command. If an error occurs,
      * such as the user or playlist not being found, a corresponding error message is returned.
-     * @throws IllegalArgumentException  If {@code userId} does not correspond to a valid user or if the user has no active playlist.
-     * @throws IndexOutOfBoundsException If calculated song index is out of playlist bounds, though internal calculations
-     *                                   should prevent this from occurring.
      */
-    public String playSong(int userId, String navi) {
+    public Response playSong(int userId, String navi) {
         User user = userRepository.getUserByUserId(userId);
         if (user == null || user.getCurrentlyPlaying() == null) {
-            return "User or current playing information not found.";
+            return Response.message("User or current playing information not found.");
         }
 
-        Playlist currentPlaylist = user.getPlaylists().stream()
-                .filter(playlist -> playlist.getId() == user.getCurrentlyPlaying().getPlaylistId())
-                .findFirst()
-                .orElse(null);
-        if (currentPlaylist == null) {
-            return "Current playlist not found.";
+        CurrentlyPlaying currentlyPlaying = user.getCurrentlyPlaying();
+        if (currentlyPlaying.getPlaylist().isEmpty()) {
+            return Response.message("No songs in the playlist.");
         }
 
-        List<Songs> songs = currentPlaylist.getSongs();
-        if (songs.isEmpty()) {
-            return "No songs in the playlist.";
+        int nextSongId;
+        if (Constants.PLAY_NEXT_SONG_OPERATION.equals(navi)) {
+            nextSongId = userRepository.playNext(user);
+        } else if (Constants.PLAY_PREVIOUS_SONG_OPERATION.equals(navi)) {
+            nextSongId = userRepository.playPrevious(user);
+        } else {
+            nextSongId = currentlyPlaying.getSongId(); // stays on the current song if navigation command is unknown
         }
-
-        // Get current song index and calculate next or previous song index
-        int currentSongIndex = IntStream.range(0, songs.size())
-                .filter(i -> songs.get(i).getId() == user.getCurrentlyPlaying().getSongId())
-                .findFirst()
-                .orElse(-1);
-
-        if (currentSongIndex == -1) {
-            return "Current song not found in the playlist.";
+        Songs nextSong = songsService.getSongsBySongId(nextSongId);
+        if (nextSong == null) {
+            return Response.message(Constants.SONG_NOT_FOUND);
         }
+        trending.record(nextSongId);
+        return Response.playing(nextSong);
+    }
 
-        int nextSongIndex = calculateNextIndex(songs.size(), currentSongIndex, navi);
-        Songs nextSong = songs.get(nextSongIndex);
-
-        userRepository.playSong(userId, currentPlaylist.getId(), nextSong.getId());
-        return DataUtility.constructSongResponse(nextSong);
+    /**
+     * Turns shuffled playback on or off for a user.
+     * <p>
+     * With shuffle on, PLAY-PLAYLIST starts at a random song and NEXT and BACK follow a random order of the
+     * playlist that visits every song once per round. Switching while a playlist plays keeps the current song.
+     * </p>
+     *
+     * @param userId The ID of the user.
+     * @param mode   {@link Constants#SHUFFLE_ON} or {@link Constants#SHUFFLE_OFF}.
+     * @return "Shuffle On" or "Shuffle Off", or an error message if the user does not exist or the mode is unknown.
+     */
+    public String shuffle(int userId, String mode) {
+        User user = userRepository.getUserByUserId(userId);
+        if (user == null) {
+            return Constants.USER_NOT_FOUND;
+        }
+        if (Constants.SHUFFLE_ON.equals(mode)) {
+            userRepository.setShuffle(user, true);
+            return "Shuffle On";
+        } else if (Constants.SHUFFLE_OFF.equals(mode)) {
+            userRepository.setShuffle(user, false);
+            return "Shuffle Off";
+        }
+        return "Shuffle mode must be ON or OFF.";
     }
 
     /**
-     * Calculates the index of the next song to play based on navigation direction.
+     * Queues a song to play after the current one, ahead of the rest of the playlist.
+     * <p>
+     * Queued songs play in the order they were queued, each on the next NEXT, and need not be part of any playlist.
+     * </p>
      *
-     * @param size         The total number of songs in the playlist.
-     * @param currentIndex The current index of the song being played.
-     * @param navi         The navigation command indicating the direction to move within the playlist.
-     * @return The index of the next song to be played.
+     * @param userId The ID of the user.
+     * @param songId The ID of the song to queue.
+     * @return The queued song IDs in playing order, or an error message if the user or the song does not exist.
      */
-    private int calculateNextIndex(int size, int currentIndex, String navi) {
-        if (Constants.PLAY_NEXT_SONG_OPERATION.equals(navi)) {
-            return (currentIndex + 1) % size; // wraps around to the first song
-        } else if (Constants.PLAY_PREVIOUS_SONG_OPERATION.equals(navi)) {
-            return (currentIndex - 1 + size) % size; // wraps around to the last song
+    public String enqueue(int userId, int songId) {
+        User user = userRepository.getUserByUserId(userId);
+        if (user == null) {
+            return Constants.USER_NOT_FOUND;
+        }
+        if (songsService.getSongsBySongId(songId) == null) {
+            return Constants.SONG_NOT_FOUND;
+        }
+        int[] queued = userRepository.enqueue(user, songId);
+        StringBuilder response = new StringBuilder("Up Next - ");
+        for (int i = 0; i < queued.length; i++) {
+            if (i > 0) {
+                response.append(' ');
+            }
+            response.append(queued[i]);
         }
-        return currentIndex; // stays on the current song if navigation command is unknown
+        return response.toString();
     }
 
     /**
@@ -225,20 +537,28 @@ public class UserService {
      *
      * @param userId The unique identifier of the user who is attempting to play the song.
      * @param songId The unique identifier of the song that is requested to be played.
-     * @return A string response which either confirms the song is now playing, with details of the song, or an error message
+     * @return A response which either confirms the song is now playing, with details of the song, or an error message
      * stating that the song is not part of the active playlist. The response includes the title, album, and artist(s)
      * of the song.
      * @throws IllegalArgumentException if either the user ID or song ID does not correspond to a valid user or song.
      */
-    public String playSong(int userId, int songId) {
-        if (!userRepository.isSongPartOfPlaylist(userId, songId)) {
-            return "Given song id is not a part of the active playlist";
+    public Response playSong(int userId, int songId) {
+        User user = userRepository.getUserByUserId(userId);
+        if (user == null) {
+            return Response.message(Constants.USER_NOT_FOUND);
+        }
+        if (!userRepository.isSongPartOfActivePlaylist(userId, songId)) {
+            return Response.message("Given song id is not a part of the active playlist");
         }
-        int currentPlaylistId = userRepository.getUserByUserId(userId).getCurrentlyPlaying().getPlaylistId();
+        int index = user.getCurrentlyPlaying().getPlaylist().indexOf(songId);
 
-        int result = userRepository.playSong(userId, currentPlaylistId, songId);
+        int result = userRepository.playSong(userId, index);
         Songs song = songsService.getSongsBySongId(result);
-        return DataUtility.constructSongResponse(song);
+        if (song == null) {
+            return Response.message(Constants.SONG_NOT_FOUND);
+        }
+        trending.record(result);
+        return Response.playing(song);
     }
 
     /**
@@ -252,35 +572,32 @@ public class UserService {
      * @param userId     The unique identifier of the user whose playlist is to be modified.
      * @param playlistId The unique identifier of the playlist to which the song is to be added.
      * @param songId     The unique identifier of the song that is to be added to the playlist.
-     * @return A string containing the updated playlist information or an error message if the user,
+     * @return A response containing the updated playlist or an error message if the user,
      * playlist, or song cannot be found.
      * @throws IllegalArgumentException if the parameters are not valid identifiers.
      */
-    public String addSongInPlaylist(int userId, int playlistId, int songId) {
+    public Response addSongInPlaylist(int userId, int playlistId, int songId) {
         // Retrieve user or return error if not found
         User user = userRepository.getUserByUserId(userId);
         if (user == null) {
-            return Constants.USER_NOT_FOUND;
+            return Response.message(Constants.USER_NOT_FOUND);
         }
 
         // Retrieve playlist or return error if not found
-        Playlist userPlaylist = user.getPlaylists().stream()
-                .filter(playlist -> playlist.getId() == playlistId)
-                .findFirst()
-                .orElse(null);
+        Playlist userPlaylist = user.getPlaylistById(playlistId);
         if (userPlaylist == null) {
-            return Constants.PLAYLIST_NOT_FOUND;
+            return Response.message(Constants.PLAYLIST_NOT_FOUND);
         }
 
         // Retrieve song or return error if not found
         Songs addSong = songsService.getSongsBySongId(songId);
         if (addSong == null) {
-            return Constants.SONG_NOT_FOUND;
+            return Response.message(Constants.SONG_NOT_FOUND);
         }
 
         // Add song to the playlist
-        userPlaylist.getSongs().add(addSong);
-        return DataUtility.constructPlaylistResponse(userPlaylist);
+        userRepository.addSongInPlaylist(user, userPlaylist, songId);
+        return Response.playlist(userPlaylist);
     }
 
     /**
@@ -295,40 +612,37 @@ public class UserService {
      * @param userId     The unique identifier of the user whose playlist is to be modified.
      * @param playlistId The unique identifier of the playlist from which the song is to be removed.
      * @param songId     The unique identifier of the song that is to be removed from the playlist.
-     * @return A string containing the updated playlist information or an error message if the user,
+     * @return A response containing the updated playlist or an error message if the user,
      * playlist, or song cannot be found, or if the song cannot be removed from the playlist.
      * @throws IllegalArgumentException if the parameters are not valid identifiers or if the operation
      *                                  cannot be completed as specified.
      */
-    public String deleteSongInPlaylist(int userId, int playlistId, int songId) {
+    public Response deleteSongInPlaylist(int userId, int playlistId, int songId) {
         // Retrieve user or return error if not found
         User user = userRepository.getUserByUserId(userId);
         if (user == null) {
-            return Constants.USER_NOT_FOUND;
+            return Response.message(Constants.USER_NOT_FOUND);
         }
 
         // Retrieve playlist or return error if not found
-        Playlist userPlaylist = user.getPlaylists().stream()
-                .filter(playlist -> playlist.getId() == playlistId)
-                .findFirst()
-                .orElse(null);
+        Playlist userPlaylist = user.getPlaylistById(playlistId);
         if (userPlaylist == null) {
-            return Constants.PLAYLIST_NOT_FOUND;
+            return Response.message(Constants.PLAYLIST_NOT_FOUND);
         }
 
         // Retrieve song or return error if not found
         Songs removableSong = songsService.getSongsBySongId(songId);
         if (removableSong == null) {
-            return Constants.SONG_NOT_FOUND;
+            return Response.message(Constants.SONG_NOT_FOUND);
         }
 
         // Attempt to remove the song from the playlist; check if successful
-        boolean removed = userPlaylist.getSongs().remove(removableSong);
+        boolean removed = userRepository.deleteSongInPlaylist(user, userPlaylist, songId);
         if (!removed) {
-            return "Song was not found in the playlist.";
+            return Response.message("Song was not found in the playlist.");
         }
 
-        return DataUtility.constructPlaylistResponse(userPlaylist);
+        return Response.playlist(userPlaylist);
     }
 
 
@@ -0,0 +1,153 @@
+package com.naveen.jukebox.utility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe index from non-negative {@code int} keys to object values, meant for keys that are
+ * handed out densely from a sequence (for example user IDs).
+ * <p>
+ * Values live in fixed-size chunks of {@link AtomicReferenceArray}, so a key maps straight to its slot
+ * without hashing or boxing. Reads never lock: a lookup is two array reads and one volatile read.
+ * Writes to a slot are volatile as well, which safely publishes the stored object to every reader.
+ * Only adding a new chunk takes a lock, once per {@value #CHUNK_SIZE} keys.
+ * </p>
+ *
+ * @param <V> the type of the indexed values
+ */
+public class ConcurrentIntIndex<V> {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile AtomicReferenceArray<V>[] chunks = newDirectory(8);
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Returns the value stored under the given key.
+     *
+     * @param key The key to look up.
+     * @return The stored value, or null if nothing is stored under the key.
+     */
+    public V get(int key) {
+        if (key < 0) {
+            return null;
+        }
+        AtomicReferenceArray<V>[] directory = chunks;
+        int chunkIndex = key >>> CHUNK_BITS;
+        if (chunkIndex >= directory.length) {
+            return null;
+        }
+        AtomicReferenceArray<V> chunk = directory[chunkIndex];
+        return chunk == null ? null : chunk.get(key & CHUNK_MASK);
+    }
+
+    /**
+     * Stores the value under the given key, replacing any previous value.
+     *
+     * @param key   The key to store the value under. Must not be negative.
+     * @param value The value to store. Must not be null.
+     * @return The previously stored value, or null if the slot was empty.
+     * @throws IllegalArgumentException if the key is negative or the value is null.
+     */
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        V previous = chunkFor(key).getAndSet(key & CHUNK_MASK, value);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the value stored under the given key.
+     *
+     * @param key The key to remove.
+     * @return The removed value, or null if nothing was stored under the key.
+     */
+    public V remove(int key) {
+        AtomicReferenceArray<V>[] directory = chunks;
+        int chunkIndex = key >>> CHUNK_BITS;
+        if (key < 0 || chunkIndex >= directory.length || directory[chunkIndex] == null) {
+            return null;
+        }
+        V previous = directory[chunkIndex].getAndSet(key & CHUNK_MASK, null);
+        if (previous != null) {
+            size.decrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * @return The number of values currently stored.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Allocates the slots of every key up to the given one at once, so that storing a large batch of new keys
+     * neither takes the chunk lock nor copies the directory again for every {@value #CHUNK_SIZE} keys.
+     *
+     * @param lastKey The highest key that is about to be stored.
+     */
+    public synchronized void reserve(int lastKey) {
+        if (lastKey < 0) {
+            return;
+        }
+        int lastChunk = lastKey >>> CHUNK_BITS;
+        AtomicReferenceArray<V>[] directory = chunks;
+        AtomicReferenceArray<V>[] grown = newDirectory(Math.max(directory.length, lastChunk + 1));
+        System.arraycopy(directory, 0, grown, 0, directory.length);
+        for (int i = 0; i <= lastChunk; i++) {
+            if (grown[i] == null) {
+                grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+        }
+        chunks = grown;
+    }
+
+    /**
+     * Removes every value from the index.
+     */
+    public synchronized void clear() {
+        chunks = newDirectory(8);
+        size.set(0);
+    }
+
+    private AtomicReferenceArray<V> chunkFor(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key cannot be negative: " + key);
+        }
+        int chunkIndex = key >>> CHUNK_BITS;
+        AtomicReferenceArray<V>[] directory = chunks;
+        if (chunkIndex < directory.length && directory[chunkIndex] != null) {
+            return directory[chunkIndex];
+        }
+        return addChunk(chunkIndex);
+    }
+
+    private synchronized AtomicReferenceArray<V> addChunk(int chunkIndex) {
+        AtomicReferenceArray<V>[] directory = chunks;
+        if (chunkIndex >= directory.length) {
+            AtomicReferenceArray<V>[] grown = newDirectory(Math.max(directory.length << 1, chunkIndex + 1));
+            System.arraycopy(directory, 0, grown, 0, directory.length);
+            directory = grown;
+        }
+        if (directory[chunkIndex] == null) {
+            // Copy-on-write the directory so readers holding the old array never see it change.
+            directory = directory.clone();
+            directory[chunkIndex] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        }
+        chunks = directory;
+        return directory[chunkIndex];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> AtomicReferenceArray<V>[] newDirectory(int length) {
+        return (AtomicReferenceArray<V>[]) new AtomicReferenceArray[length];
+    }
+}
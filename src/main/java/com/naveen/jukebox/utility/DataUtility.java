@@ -1,16 +1,26 @@
 package com.naveen.jukebox.utility;
 
+import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.naveen.jukebox.command.Opcode;
 import com.naveen.jukebox.model.Playlist;
 import com.naveen.jukebox.model.Songs;
+import com.naveen.jukebox.output.AsyncOutputSink;
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.output.OutputSink;
+import com.naveen.jukebox.output.Response;
+import com.naveen.jukebox.output.WaitStrategy;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
 
@@ -19,6 +29,16 @@ import com.opencsv.exceptions.CsvException;
  */
 public class DataUtility {
 
+    /**
+     * The sink command results are written to, or null to print every result straight to {@link System#out}.
+     */
+    private static volatile OutputSink outputSink;
+
+    /**
+     * The thread that produces the results of an {@link AsyncOutputSink}, the only one that may write to it.
+     */
+    private static volatile Thread outputThread;
+
     /**
      * Constructor is private intentionally. To hide the public constructor so initialisation is not possible.
      */
@@ -54,6 +74,29 @@ public class DataUtility {
         return lines;
     }
 
+    /**
+     * Reads a file line by line and hands every line to the consumer as soon as it is read.
+     * <p>
+     * Unlike {@link #readFileInList(String)}, only the line being processed is held in memory, so files of any
+     * size can be processed. The file is read as UTF-8 through a large buffer. If an IOException occurs, the stack
+     * trace is printed to the standard error stream and no more lines are delivered.
+     * </p>
+     *
+     * @param fileName     The path to the file as a string.
+     * @param lineConsumer Receives each line of the file, in order, without its line terminator.
+     */
+    public static void forEachLine(String fileName, Consumer<String> lineConsumer) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(Paths.get(fileName)), StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineConsumer.accept(line);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Reads a CSV (Comma-Separated Values) file and returns its contents as a list of string arrays.
      * <p>
@@ -83,6 +126,43 @@ public class DataUtility {
         return Collections.emptyList();
     }
 
+    /**
+     * Reads a CSV file row by row and hands the rows to the consumer in chunks of {@code chunkSize}.
+     * <p>
+     * Unlike {@link #readCsvFile(String)}, this method never holds the whole file in memory. Only the chunk
+     * currently being filled is kept, and a fresh list is handed over for every chunk, so the consumer may keep
+     * or process a chunk asynchronously. The last chunk may hold fewer than {@code chunkSize} rows.
+     * </p>
+     * <p>
+     * If the file cannot be read, no more chunks are delivered and a {@link CsvException} is thrown, so that a
+     * missing file is not taken for an empty one.
+     * </p>
+     *
+     * @param filePath      The path to the CSV file to be read.
+     * @param chunkSize     The maximum number of rows in a chunk.
+     * @param chunkConsumer Receives each chunk of rows, in file order.
+     * @throws CsvException If the file cannot be read or an error occurs during parsing of the CSV file.
+     */
+    public static void readCsvFileInChunks(String filePath, int chunkSize, Consumer<List<String[]>> chunkConsumer)
+            throws CsvException {
+        try (CSVReader csvReader = new CSVReader(new BufferedReader(new FileReader(filePath), 1 << 16))) {
+            List<String[]> chunk = new ArrayList<>(chunkSize);
+            String[] row;
+            while ((row = csvReader.readNext()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+            }
+        } catch (IOException e) {
+            throw new CsvException(e.getMessage());
+        }
+    }
+
 
     /**
      * Converts a list of string arrays into a list of {@link Songs} objects. Each string array represents
@@ -109,29 +189,49 @@ public class DataUtility {
      * ID), the method may produce unexpected results or runtime exceptions.
      */
     public static List<Songs> convertDataSongs(List<String[]> data) {
-        List<Songs> songs = new ArrayList<>();
+        List<Songs> songs = new ArrayList<>(data.size());
 
         for (String[] s : data) {
-            Songs song = new Songs();
-            for (int i = 0; i < s.length; i++) {
-                switch (i) {
-                    case 0 -> song.setId(Integer.parseInt(s[i]));
-                    case 1 -> song.setTitle(s[i]);
-                    case 2 -> song.setGenre(s[i]);
-                    case 3 -> song.setAlbum(s[i]);
-                    case 4 -> song.setOwner(s[i]);
-                    case 5 -> {
-                        List<String> collabs = List.of(s[i].split("#"));
-                        song.setCollaboration(collabs);
-                    }
-                    default -> {
-                        break;
+            songs.add(convertDataSong(s));
+        }
+        return songs;
+    }
+
+    /**
+     * Converts a single CSV row into a {@link Songs} object, using the field order described in
+     * {@link #convertDataSongs(List)}.
+     * <p>
+     * Genre, album, owner and collaborator names are encoded through {@link SymbolTable#GLOBAL}, so repeated
+     * values share a single string across the whole catalog.
+     * </p>
+     *
+     * @param s The fields of one song row.
+     * @return A {@link Songs} object populated from the row.
+     * @throws NumberFormatException if the ID field is not a valid integer.
+     */
+    public static Songs convertDataSong(String[] s) {
+        Songs song = new Songs();
+        for (int i = 0; i < s.length; i++) {
+            switch (i) {
+                case 0 -> song.setId(Integer.parseInt(s[i]));
+                case 1 -> song.setTitle(s[i]);
+                case 2 -> song.setGenre(s[i]);
+                case 3 -> song.setAlbum(s[i]);
+                case 4 -> song.setOwner(s[i]);
+                case 5 -> {
+                    String[] collabs = s[i].split("#");
+                    int[] codes = new int[collabs.length];
+                    for (int c = 0; c < collabs.length; c++) {
+                        codes[c] = SymbolTable.GLOBAL.encode(collabs[c]);
                     }
+                    song.setCollaborationCodes(codes);
+                }
+                default -> {
+                    break;
                 }
             }
-            songs.add(song);
         }
-        return songs;
+        return song;
     }
 
 
@@ -162,15 +262,41 @@ public class DataUtility {
 
     /**
      * Constructs a formatted string detailing the currently playing song.
+     * <p>
+     * The string is built on the first play of the song and kept with it, so later plays return the same string.
+     * </p>
      *
      * @param song The {@link Songs} object containing details of the current song.
      * @return A formatted string that includes the title, album, and artist(s) of the song.
      */
     public static String constructSongResponse(Songs song) {
-        return "Current Song Playing\n" +
-                "Song - " + song.getTitle() + "\n" +
-                "Album - " + song.getAlbum() + "\n" +
-                "Artists - " + getCollaboratorsString(song);
+        String response = song.getPlayingResponse();
+        if (response == null) {
+            response = "Current Song Playing\n" +
+                    "Song - " + song.getTitle() + "\n" +
+                    "Album - " + song.getAlbum() + "\n" +
+                    "Artists - " + getCollaboratorsString(song);
+            song.setPlayingResponse(response);
+        }
+        return response;
+    }
+
+    /**
+     * Constructs a formatted list of songs, one line per song after a line with the number of songs.
+     *
+     * @param header The text preceding the number of songs, for example "Songs Found - ".
+     * @param songs  The songs to list, in order.
+     * @return A formatted string that includes the ID, title, album and owner of every song.
+     */
+    public static String constructSongListResponse(String header, List<Songs> songs) {
+        StringBuilder sb = new StringBuilder(header).append(songs.size());
+        for (Songs song : songs) {
+            sb.append("\nSong ID - ").append(song.getId())
+                    .append(", Song - ").append(song.getTitle())
+                    .append(", Album - ").append(song.getAlbum())
+                    .append(", Artists - ").append(song.getOwner());
+        }
+        return sb.toString();
     }
 
     /**
@@ -180,12 +306,26 @@ public class DataUtility {
      * @return A string listing all collaborators separated by commas.
      */
     private static String getCollaboratorsString(Songs song) {
-        List<String> collabs = song.getCollaboration();
-        return String.join(",", collabs);
+        int[] collabs = song.getCollaborationCodes();
+        if (collabs == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < collabs.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(SymbolTable.GLOBAL.decode(collabs[i]));
+        }
+        return sb.toString();
     }
 
     /**
      * Constructs a formatted string detailing the playlist.
+     * <p>
+     * The song IDs are taken from the text the playlist keeps up to date as it changes, see
+     * {@link Playlist#renderSongIds()}, so the IDs are not formatted again on every edit.
+     * </p>
      *
      * @param playlist The {@link Playlist} object to be detailed.
      * @return A formatted string that includes the playlist ID, name, and song IDs.
@@ -193,29 +333,122 @@ public class DataUtility {
     public static String constructPlaylistResponse(Playlist playlist) {
         return "Playlist ID - " + playlist.getId() + "\n" +
                 "Playlist Name - " + playlist.getTitle() + "\n" +
-                "Song IDs - " + songsOfPlaylist(playlist.getSongs());
+                "Song IDs - " + playlist.renderSongIds();
     }
 
     /**
-     * Creates a space-separated string of song IDs from a list of songs.
-     *
-     * @param songs A list of {@link Songs} representing the songs in a playlist.
-     * @return A string containing all song IDs from the list, separated by spaces.
+     * Prints the string in console. While an output sink is open, the string is written to the sink as a message
+     * that answers no command, and written out together with other results once the sink's buffer fills up.
+     * @param output string to print
      */
-    private static String songsOfPlaylist(List<Songs> songs) {
-        StringBuilder sb = new StringBuilder();
-        for (Songs song : songs) {
-            sb.append(song.getId()).append(" ");
+    public static void printOutput(String output){
+        OutputSink sink = outputSink;
+        if (sink == null) {
+            System.out.println(output);
+            return;
+        }
+        try {
+            sink.message(Opcode.INVALID, String.valueOf(output));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return sb.substring(0, sb.length() - 1); // Remove the trailing space
     }
 
     /**
-     * Prints the string in console
-     * @param output string to print
+     * Prints the result of a command. While an output sink is open, the result is written to the sink as a
+     * record of the sink's format; otherwise its text is printed to {@link System#out}.
+     * @param opcode the command that produced the result
+     * @param response the result to print, or null if the command has none
      */
-    public static void printOutput(String output){
-        System.out.println(output);
+    public static void printResponse(Opcode opcode, Response response){
+        if (response == null) {
+            return;
+        }
+        OutputSink sink = outputSink;
+        if (sink == null) {
+            System.out.println(response.toText());
+            return;
+        }
+        try {
+            response.writeTo(sink, opcode);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts writing the results of {@link #printResponse(Opcode, Response)} and {@link #printOutput(String)}
+     * to a sink of the given format on top of the current {@link System#out}. The sink buffers the results and
+     * writes them out whenever its buffer fills up and when {@link #closeOutput()} is called, instead of once
+     * per result.
+     * @param format the format to write results in
+     */
+    public static void openOutput(OutputFormat format){
+        try {
+            outputSink = format.open(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Like {@link #openOutput(OutputFormat)}, but hands the results to a writer thread through an
+     * {@link AsyncOutputSink}, so that a slow or blocked {@link System#out} does not stall the commands.
+     * Diagnostics printed by the calling thread take the same way to {@link System#err}. Results must then be
+     * printed by the calling thread only, which the executors of the input file guarantee.
+     * @param format the format to write results in
+     * @param waitStrategy how the calling thread and the writer wait for each other
+     * @param capacity the number of results that may wait for the writer
+     */
+    public static void openOutput(OutputFormat format, WaitStrategy waitStrategy, int capacity){
+        try {
+            outputSink = new AsyncOutputSink(format.open(System.out), System.err, capacity, waitStrategy);
+            outputThread = Thread.currentThread();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes out everything collected in the output sink and goes back to printing each result directly as text.
+     * The underlying {@link System#out} is flushed but not closed.
+     */
+    public static void closeOutput(){
+        OutputSink sink = outputSink;
+        outputSink = null;
+        outputThread = null;
+        if (sink != null) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the state of the output ring opened by {@link #openOutput(OutputFormat, WaitStrategy, int)}, or null
+     * if results are written by the thread that produces them
+     */
+    public static String outputStatistics(){
+        return outputSink instanceof AsyncOutputSink async ? async.report() : null;
+    }
+
+    /**
+     * Prints a diagnostic message, such as load statistics, to the error stream so that it
+     * never mixes with command results on the console.
+     * @param message diagnostic message to print
+     */
+    public static void printDiagnostic(String message){
+        if (outputSink instanceof AsyncOutputSink async && Thread.currentThread() == outputThread) {
+            try {
+                async.diagnostic(message);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+        System.err.println(message);
     }
 
 }
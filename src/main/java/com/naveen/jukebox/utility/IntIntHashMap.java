@@ -0,0 +1,254 @@
+package com.naveen.jukebox.utility;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive {@code int} keys to primitive {@code int} values.
+ * <p>
+ * This is the primitive counterpart of {@link IntObjectHashMap}: keys and values live in plain arrays,
+ * lookups never box and never allocate, and the table is kept at most half full. Lookups of a missing
+ * key return a caller-supplied default instead of null.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class IntIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Creates an empty map with a small default capacity.
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize The number of entries the map is expected to hold.
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     *
+     * @param key          The key to look up.
+     * @param defaultValue The value to return if the key is not present.
+     * @return The mapped value, or {@code defaultValue} if the key is not present.
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Checks whether the given key is present in the map.
+     *
+     * @param key The key to look up.
+     * @return true if a value is mapped to the key, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Maps the key to the given value, replacing any previous mapping.
+     *
+     * @param key   The key to store.
+     * @param value The value to store.
+     */
+    public void put(int key, int value) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Maps the key to the given value only if the key is not present yet.
+     *
+     * @param key   The key to store.
+     * @param value The value to store.
+     * @return true if the value was stored, false if the key was already present.
+     */
+    public boolean putIfAbsent(int key, int value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped to the key, treating a missing key as zero.
+     *
+     * @param key   The key to update.
+     * @param delta The amount to add.
+     * @return The updated value.
+     */
+    public int addTo(int key, int delta) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for the given key.
+     *
+     * @param key          The key to remove.
+     * @param defaultValue The value to return if the key is not present.
+     * @return The removed value, or {@code defaultValue} if the key was not present.
+     */
+    public int remove(int key, int defaultValue) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Performs the given action for every entry in the map, in no particular order.
+     *
+     * @param action The action to be performed for each key and value.
+     */
+    public void forEach(IntIntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map holds no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry while keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry into the gap only if the gap lies between its home slot and its current slot.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity >>> 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long wanted = Math.max(DEFAULT_CAPACITY, (long) expectedSize * 2);
+        if (wanted > (1 << 30)) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * An action on a primitive key and value pair.
+     */
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,235 @@
+package com.naveen.jukebox.utility;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open-addressing hash map from primitive {@code int} keys to object values.
+ * <p>
+ * Keys are stored in a plain {@code int[]} and probed linearly, so lookups never box the key
+ * into an {@link Integer} and never allocate. The table always has a power-of-two capacity and
+ * is resized once it is more than half full, which keeps probe sequences short.
+ * </p>
+ * <p>
+ * A slot is considered empty when its value is null, so null values cannot be stored.
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <V> the type of the mapped values
+ */
+public class IntObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Creates an empty map with a small default capacity.
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map able to hold {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize The number of entries the map is expected to hold.
+     */
+    public IntObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns the value mapped to the given key.
+     *
+     * @param key The key to look up.
+     * @return The mapped value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = mix(key) & mask;
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the given key is present in the map.
+     *
+     * @param key The key to look up.
+     * @return true if a value is mapped to the key, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the key to the given value, replacing any previous mapping.
+     *
+     * @param key   The key to store.
+     * @param value The value to store. Must not be null.
+     * @return The previously mapped value, or null if the key was not present.
+     * @throws IllegalArgumentException if the value is null.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+        int slot = mix(key) & mask;
+        Object existing;
+        while ((existing = values[slot]) != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the given key.
+     * <p>
+     * The entries following the removed slot are shifted back so that no tombstones are left
+     * behind and later lookups stay as short as before the removal.
+     * </p>
+     *
+     * @param key The key to remove.
+     * @return The removed value, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = mix(key) & mask;
+        Object existing;
+        while ((existing = values[slot]) != null) {
+            if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return (V) existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure the map can hold {@code expectedSize} entries without resizing again.
+     *
+     * @param expectedSize The number of entries the map is expected to hold.
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * Performs the given action for every value in the map, in no particular order.
+     *
+     * @param action The action to be performed for each value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entries in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map holds no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry while keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = mix(keys[next]) & mask;
+            // Move the entry into the gap only if the gap lies between its home slot and its current slot.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity >>> 1;
+    }
+
+    /**
+     * Returns the smallest power of two that keeps the table at most half full for the given size.
+     */
+    private static int tableSizeFor(int expectedSize) {
+        long wanted = Math.max(DEFAULT_CAPACITY, (long) expectedSize * 2);
+        if (wanted > (1 << 30)) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    /**
+     * Spreads sequential ids across the table so that runs of adjacent keys do not cluster.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,137 @@
+package com.naveen.jukebox.utility;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A double-ended queue of primitive {@code int} values in a growable ring buffer.
+ * <p>
+ * Values are stored in a power-of-two sized array with a head index and a size, so adding or removing at either
+ * end is an array write and a mask, without boxing and without allocating until the buffer has to grow.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class IntRingDeque {
+
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements;
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty deque that allocates its buffer only when the first value is added, as most queues of
+     * users stay empty.
+     */
+    public IntRingDeque() {
+        elements = EMPTY;
+    }
+
+    /**
+     * Creates an empty deque able to hold {@code expectedSize} values without growing.
+     *
+     * @param expectedSize The number of values the deque is expected to hold.
+     */
+    public IntRingDeque(int expectedSize) {
+        elements = new int[Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize - 1)) << 1)];
+    }
+
+    /**
+     * Inserts a value at the front.
+     *
+     * @param value The value to insert.
+     */
+    public void addFirst(int value) {
+        ensureRoom();
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = value;
+        size++;
+    }
+
+    /**
+     * Inserts a value at the back.
+     *
+     * @param value The value to insert.
+     */
+    public void addLast(int value) {
+        ensureRoom();
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Removes the value at the front.
+     *
+     * @return The removed value.
+     * @throws NoSuchElementException if the deque is empty.
+     */
+    public int pollFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException("Deque is empty.");
+        }
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Returns the value at a position without removing it.
+     *
+     * @param index The position, 0 being the front.
+     * @return The value at that position.
+     * @throws IndexOutOfBoundsException if the position is outside the deque.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for deque of size " + size);
+        }
+        return elements[(head + index) & (elements.length - 1)];
+    }
+
+    /**
+     * @return The number of values in the deque.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the deque holds no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every value while keeping the allocated capacity.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @return A copy of the values from front to back.
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        return values;
+    }
+
+    private void ensureRoom() {
+        if (size < elements.length) {
+            return;
+        }
+        // unroll the ring so the front is at position 0 again
+        int[] grown = Arrays.copyOf(toArray(), Math.max(DEFAULT_CAPACITY, elements.length << 1));
+        elements = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.naveen.jukebox.utility;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe dictionary that hands out a stable {@code int} code for every distinct string.
+ * <p>
+ * Song metadata such as genres, albums and artist names repeats across a large part of the catalog.
+ * Storing a code in each song instead of its own copy of the text keeps every distinct value in memory
+ * exactly once. Decoding is a single array read and never locks; encoding a string that is already known
+ * is one hash lookup, and only the first occurrence of a new string takes a lock.
+ * </p>
+ * <p>
+ * Codes are never reused or removed, so a code stays valid for the lifetime of the table.
+ * </p>
+ */
+public class SymbolTable {
+
+    /**
+     * The table shared by the whole song catalog for genre, album and artist names.
+     */
+    public static final SymbolTable GLOBAL = new SymbolTable();
+
+    /**
+     * The code used for a missing (null) value.
+     */
+    public static final int NO_SYMBOL = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[64];
+    private int size;
+
+    /**
+     * Returns the code of the given string, assigning a new one if the string has not been seen before.
+     *
+     * @param symbol The string to encode. May be null.
+     * @return The code of the string, or {@link #NO_SYMBOL} for null.
+     */
+    public int encode(String symbol) {
+        if (symbol == null) {
+            return NO_SYMBOL;
+        }
+        Integer code = codes.get(symbol);
+        return code != null ? code : add(symbol);
+    }
+
+    /**
+     * Returns the string for the given code.
+     *
+     * @param code A code returned by {@link #encode(String)}.
+     * @return The encoded string, or null for {@link #NO_SYMBOL}.
+     */
+    public String decode(int code) {
+        return code == NO_SYMBOL ? null : symbols[code];
+    }
+
+    /**
+     * @return The number of distinct strings in the table.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String symbol) {
+        Integer existing = codes.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        String[] table = symbols;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size << 1);
+        }
+        int code = size++;
+        table[code] = symbol;
+        symbols = table;
+        // Publishing the code last guarantees that anyone who can see it can also see the string.
+        codes.put(symbol, code);
+        return code;
+    }
+}
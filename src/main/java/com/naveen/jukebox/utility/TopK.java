@@ -0,0 +1,148 @@
+package com.naveen.jukebox.utility;
+
+/**
+ * Keeps the {@code k} best-scored IDs out of any number offered, in {@code O(log k)} per offer.
+ * <p>
+ * The entries live in a binary min-heap over two primitive arrays, with the worst kept entry at the root, so an
+ * offer that does not beat it costs a single comparison and nothing is ever boxed. Equal scores are ordered by
+ * ascending ID, which makes the result independent of the order the IDs were offered in.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class TopK {
+
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * @param k The number of entries to keep. Must be at least 1.
+     */
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1.");
+        }
+        ids = new int[k];
+        scores = new double[k];
+    }
+
+    /**
+     * Offers an ID. It is kept if fewer than {@code k} entries are held or if it beats the worst one held.
+     *
+     * @param id    The ID.
+     * @param score The score of the ID; higher is better.
+     * @return true if the ID was kept.
+     */
+    public boolean offer(int id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (!better(id, score, ids[0], scores[0])) {
+            return false;
+        }
+        ids[0] = id;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * @return The number of entries held, at most {@code k}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if {@code k} entries are held, so that further offers must beat {@link #worstScore()}.
+     */
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    /**
+     * @return The lowest score held, or negative infinity if nothing is held.
+     */
+    public double worstScore() {
+        return size == 0 ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the IDs held, best first. The entries stay in place.
+     *
+     * @return A new array of {@link #size()} IDs.
+     */
+    public int[] toSortedIds() {
+        int[] heapIds = ids.clone();
+        double[] heapScores = scores.clone();
+        int[] sorted = new int[size];
+        int remaining = size;
+        // pop the worst entry into the last free slot until the heap is empty
+        while (remaining > 0) {
+            sorted[remaining - 1] = ids[0];
+            remaining--;
+            ids[0] = ids[remaining];
+            scores[0] = scores[remaining];
+            size = remaining;
+            siftDown(0);
+        }
+        System.arraycopy(heapIds, 0, ids, 0, ids.length);
+        System.arraycopy(heapScores, 0, scores, 0, scores.length);
+        size = sorted.length;
+        return sorted;
+    }
+
+    private static boolean better(int id, double score, int otherId, double otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        int id = ids[index];
+        double score = scores[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(ids[parent], scores[parent], id, score)) {
+                break;
+            }
+            ids[index] = ids[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index) {
+        int id = ids[index];
+        double score = scores[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(ids[child], scores[child], ids[child + 1], scores[child + 1])) {
+                child++;
+            }
+            if (!better(id, score, ids[child], scores[child])) {
+                break;
+            }
+            ids[index] = ids[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+}
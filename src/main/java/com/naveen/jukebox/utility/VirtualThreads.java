@@ -0,0 +1,67 @@
+package com.naveen.jukebox.utility;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates executors that start one virtual thread per task.
+ * <p>
+ * The application is compiled for Java 17, which has no virtual threads, so the Java 21 API is looked up by
+ * reflection. On older runtimes, or when virtual threads are disabled, the executors fall back to a cached pool
+ * of daemon platform threads. The behavior is the same either way; only the number of threads a box can hold
+ * differs.
+ * </p>
+ */
+public final class VirtualThreads {
+
+    private static final boolean AVAILABLE = lookupVirtualFactory("jukebox-virtual-") != null;
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the runtime supports virtual threads and executors use them.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Creates an executor that runs every task on a new thread: a virtual thread if the runtime supports them,
+     * otherwise a pooled daemon platform thread.
+     *
+     * @param name The name prefix of the threads.
+     * @return A new executor.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        ThreadFactory factory = lookupVirtualFactory(name);
+        if (factory != null) {
+            try {
+                Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) method.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+        AtomicLong counter = new AtomicLong();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ThreadFactory lookupVirtualFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.naveen.jukebox.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandParserTest {
+    private final CommandParser parser = new CommandParser();
+
+    @Test
+    @DisplayName("Every known verb should resolve to its opcode")
+    void resolvesVerbs() {
+        for (Opcode opcode : Opcode.values()) {
+            if (opcode.getVerb() != null) {
+                assertEquals(opcode, parser.parse(opcode.getVerb() + " 1 2"));
+            }
+        }
+        assertEquals(Opcode.INVALID, parser.parse("PLAY-SONGS 1 2"));
+        assertEquals(Opcode.INVALID, parser.parse("PLAY"));
+        assertEquals(Opcode.INVALID, parser.parse(""));
+        assertEquals(Opcode.INVALID, parser.parse("   "));
+    }
+
+    @Test
+    @DisplayName("Tokens should be split on runs of spaces")
+    void tokenizes() {
+        parser.parse("  CREATE-PLAYLIST 1   MY_PLAYLIST_1 5 4  ");
+        assertEquals(Opcode.CREATE_PLAYLIST, parser.opcode());
+        assertEquals(5, parser.tokenCount());
+        assertEquals("MY_PLAYLIST_1", parser.stringAt(2));
+        assertTrue(parser.tokenEquals(2, "MY_PLAYLIST_1"));
+        assertFalse(parser.tokenEquals(2, "MY_PLAYLIST"));
+        assertFalse(parser.tokenEquals(7, "MY_PLAYLIST_1"));
+        assertArrayEquals(new int[]{5, 4}, parser.intsFrom(3));
+        assertArrayEquals(new int[0], parser.intsFrom(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.stringAt(5));
+    }
+
+    @Test
+    @DisplayName("Integers should be parsed in place and invalid ones rejected")
+    void parsesIntegers() {
+        parser.parse("PLAY-SONG 2147483647 -2147483648 2147483648 12a - NEXT 007");
+        assertEquals(Integer.MAX_VALUE, parser.intAt(1));
+        assertEquals(Integer.MIN_VALUE, parser.intAt(2));
+        assertFalse(parser.isInt(3));
+        assertFalse(parser.isInt(4));
+        assertFalse(parser.isInt(5));
+        assertFalse(parser.isInt(6));
+        assertEquals(7, parser.intAt(7));
+        assertFalse(parser.isInt(8));
+        assertThrows(NumberFormatException.class, () -> parser.intAt(3));
+        assertThrows(NumberFormatException.class, () -> parser.intAt(6));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.intAt(8));
+    }
+
+    @Test
+    @DisplayName("Lines with many tokens should grow the token arrays")
+    void growsTokenArrays() {
+        StringBuilder line = new StringBuilder("CREATE-PLAYLIST 1 BIG");
+        for (int i = 0; i < 100; i++) {
+            line.append(' ').append(i);
+        }
+        parser.parse(line);
+        assertEquals(103, parser.tokenCount());
+        assertEquals(99, parser.intAt(102));
+    }
+
+    @Test
+    @DisplayName("The user ID should be taken from the argument the opcode names")
+    void userId() {
+        parser.parse("MODIFY-PLAYLIST DELETE-SONG 4 1 7");
+        assertEquals(4, parser.userId());
+        parser.parse("PLAY-PLAYLIST x 1");
+        assertEquals(Opcode.NO_USER, parser.userId());
+        parser.parse("CREATE-USER 5");
+        assertEquals(Opcode.NO_USER, parser.userId());
+    }
+}
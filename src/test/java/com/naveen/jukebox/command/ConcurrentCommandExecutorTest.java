@@ -0,0 +1,72 @@
+package com.naveen.jukebox.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentCommandExecutorTest {
+
+    @Test
+    @DisplayName("Commands of one user should never overlap, and catalog loads should run alone")
+    void serializesUsersAndCatalogLoads() throws Exception {
+        TrackingCommands tracking = new TrackingCommands();
+        ConcurrentCommandExecutor executor = new ConcurrentCommandExecutor(tracking);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(threads.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        executor.execute(i % 500 == 0 ? "LOAD-SNAPSHOT catalog.bin" : "PLAY-SONG " + (i % 4) + " NEXT");
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(0, tracking.violations.get());
+    }
+
+    /**
+     * Counts the commands running per user and reports any overlap that the locks should have prevented.
+     */
+    private static class TrackingCommands extends JukeboxCommands {
+        private final AtomicIntegerArray running = new AtomicIntegerArray(4);
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger violations = new AtomicInteger();
+
+        @Override
+        public String execute(CommandParser parser) {
+            if (parser.opcode() == Opcode.LOAD_SNAPSHOT) {
+                if (loads.incrementAndGet() != 1 || active.get() != 0) {
+                    violations.incrementAndGet();
+                }
+                Thread.yield();
+                loads.decrementAndGet();
+                return null;
+            }
+            int user = parser.intAt(1);
+            active.incrementAndGet();
+            if (running.incrementAndGet(user) != 1 || loads.get() != 0) {
+                violations.incrementAndGet();
+            }
+            Thread.yield();
+            running.decrementAndGet(user);
+            active.decrementAndGet();
+            return null;
+        }
+    }
+}
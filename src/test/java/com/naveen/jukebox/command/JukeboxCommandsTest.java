@@ -0,0 +1,44 @@
+package com.naveen.jukebox.command;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.naveen.jukebox.metrics.CommandMetrics;
+import com.naveen.jukebox.model.Constants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JukeboxCommandsTest {
+
+    @Test
+    @DisplayName("A snapshot that cannot be written should be answered with the reason and counted as an error")
+    void saveSnapshotFailure() throws Exception {
+        JukeboxCommands commands = JukeboxCommands.newSession();
+        commands.metrics = new CommandMetrics();
+        Path missing = Files.createTempDirectory("snapshots").resolve("missing").resolve("catalog.snap");
+
+        String answer = commands.execute("SAVE-SNAPSHOT " + missing);
+
+        assertNotNull(answer);
+        assertTrue(answer.startsWith(JukeboxCommands.SAVE_FAILED), answer);
+        assertEquals(1, commands.metrics.errors(Opcode.SAVE_SNAPSHOT));
+        assertTrue(Files.notExists(missing));
+    }
+
+    @Test
+    @DisplayName("TRENDING should reject a number of songs below one rather than claim nothing was played")
+    void trendingLimit() {
+        new JukeboxCommands().respond("LOAD-DATA songs.csv");
+        JukeboxCommands commands = JukeboxCommands.newSession();
+        commands.execute("CREATE-USER Kiran");
+        commands.execute("CREATE-PLAYLIST 1 MY_PLAYLIST_1 1 4 5 6");
+        commands.execute("PLAY-PLAYLIST 1 1");
+
+        assertEquals(Constants.INVALID_TRENDING_LIMIT, commands.execute("TRENDING 0"));
+        assertEquals(Constants.INVALID_TRENDING_LIMIT, commands.execute("TRENDING -5"));
+        assertTrue(commands.execute("TRENDING 1").startsWith("Trending Songs - 1"));
+        assertTrue(commands.execute("TRENDING").startsWith("Trending Songs - 1"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.naveen.jukebox.command;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.naveen.jukebox.output.OutputFormat;
+import com.naveen.jukebox.service.SongsService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionExecutorTest {
+
+    /**
+     * What jukebox-input.txt prints when it runs alone, see AppTest.
+     */
+    private static final String EXPECTED = """
+            Songs Loaded successfully
+            1 Kiran
+            Playlist ID - 1
+            Playlist ID - 2
+            Delete Successful
+            Current Song Playing
+            Song - South of the Border
+            Album - No.6 Collaborations Project
+            Artists - Ed Sheeran,Cardi.B,Camilla Cabello
+            Playlist ID - 1
+            Playlist Name - MY_PLAYLIST_1
+            Song IDs - 1 4 5 6 7
+            Playlist ID - 1
+            Playlist Name - MY_PLAYLIST_1
+            Song IDs - 1 4 5 6
+            Current Song Playing
+            Song - Cross Me
+            Album - No.6 Collaborations Project
+            Artists - Ed Sheeran,Chance The Rapper,PnB Rock
+            Current Song Playing
+            Song - Give Life Back To Music
+            Album - Random Access Memories
+            Artists - Daft Punk,Nile Rodgers
+            Current Song Playing
+            Song - South of the Border
+            Album - No.6 Collaborations Project
+            Artists - Ed Sheeran,Cardi.B,Camilla Cabello
+            Current Song Playing
+            Song - Give Life Back To Music
+            Album - Random Access Memories
+            Artists - Daft Punk,Nile Rodgers
+            Current Song Playing
+            Song - Cross Me
+            Album - No.6 Collaborations Project
+            Artists - Ed Sheeran,Chance The Rapper,PnB Rock
+            Given song id is not a part of the active playlist
+            """;
+
+    @Test
+    @DisplayName("Sessions running the venue input at the same time should each write what it writes alone")
+    void isolatesSessions() throws Exception {
+        new JukeboxCommands().respond("LOAD-DATA songs.csv");
+        int loaded = new SongsService().countLoadedSongs();
+        String venue = Files.readString(Path.of("jukebox-input.txt"));
+        Path directory = Files.createTempDirectory("sessions");
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            inputs.add(write(directory.resolve("venue-" + i + ".txt"), venue));
+        }
+        inputs.add(write(directory.resolve("snapshot.txt"), "LOAD-SNAPSHOT catalog.bin\n"));
+
+        SessionExecutor executor = new SessionExecutor(directory.resolve("out"), OutputFormat.TEXT);
+        SessionExecutor.Report report = executor.run(inputs);
+
+        assertEquals(17, report.sessions().size());
+        assertTrue(report.failures().isEmpty());
+        assertEquals(16 * venue.lines().count() + 1,
+                report.sessions().stream().mapToLong(SessionExecutor.Session::commands).sum());
+        for (int i = 0; i < 16; i++) {
+            assertSame(inputs.get(i), report.sessions().get(i).input());
+            assertEquals(EXPECTED, read(executor.outputFileOf(inputs.get(i))));
+        }
+        assertEquals(JukeboxCommands.SHARED_CATALOG + "\n", read(executor.outputFileOf(inputs.get(16))));
+        assertEquals(loaded, new SongsService().countLoadedSongs());
+        assertEquals(inputs.size(), SessionExecutor.inputFiles(directory).size());
+    }
+
+    private static Path write(Path file, String text) throws IOException {
+        return Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file).replace("\r\n", "\n");
+    }
+}
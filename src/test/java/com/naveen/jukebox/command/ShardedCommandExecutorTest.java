@@ -0,0 +1,73 @@
+package com.naveen.jukebox.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.naveen.jukebox.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCommandExecutorTest {
+    private final PrintStream standardOut = System.out;
+    private final ByteArrayOutputStream outputStreamCaptor = new ByteArrayOutputStream();
+
+    @BeforeEach
+    public void setUp() {
+        System.setOut(new PrintStream(outputStreamCaptor));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        System.setOut(standardOut);
+    }
+
+    @Test
+    @DisplayName("Results should be printed in input order even when shards finish out of order")
+    void resultsKeepInputOrder() {
+        List<String> expected = new ArrayList<>();
+        try (ShardedCommandExecutor executor = new ShardedCommandExecutor(new EchoCommands(), 4)) {
+            for (int i = 0; i < 500; i++) {
+                String command = i % 50 == 0
+                        ? "CREATE-USER user" + i
+                        : "PLAY-SONG " + (i % 7 + 1) + " " + i;
+                executor.mainOperations(command);
+                expected.add(command);
+            }
+        }
+
+        List<String> actual = List.of(outputStreamCaptor.toString().trim().split("\\R"));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Commands should be routed by the user they name")
+    void userIdOf() {
+        assertEquals(3, ShardedCommandExecutor.userIdOf("PLAY-SONG 3 NEXT"));
+        assertEquals(2, ShardedCommandExecutor.userIdOf("MODIFY-PLAYLIST ADD-SONG 2 1 7"));
+        assertEquals(-1, ShardedCommandExecutor.userIdOf("CREATE-USER Kiran"));
+        assertEquals(-1, ShardedCommandExecutor.userIdOf("LOAD-DATA songs.csv"));
+        assertEquals(-1, ShardedCommandExecutor.userIdOf("PLAY-SONG"));
+    }
+
+    /**
+     * Echoes every command back after a random delay, so shards complete in a different order than submitted.
+     */
+    private static class EchoCommands extends JukeboxCommands {
+        @Override
+        public Response respond(String command) {
+            try {
+                Thread.sleep(0, ThreadLocalRandom.current().nextInt(100_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Response.message(command);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.naveen.jukebox.metrics;
+
+import com.naveen.jukebox.command.Opcode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandMetricsTest {
+
+    @Test
+    @DisplayName("The report should list totals and only the opcodes that were executed")
+    void report() {
+        CommandMetrics metrics = new CommandMetrics();
+        metrics.record(Opcode.PLAY_SONG, 2_000);
+        metrics.record(Opcode.PLAY_SONG, 4_000);
+        metrics.record(Opcode.INVALID, 100);
+        metrics.recordError(Opcode.PLAY_SONG);
+
+        assertEquals(2, metrics.latencies(Opcode.PLAY_SONG).getCount());
+        assertEquals(1, metrics.errors(Opcode.PLAY_SONG));
+        String[] lines = metrics.report().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("Commands - 3, Errors - 1, Throughput - "));
+        assertEquals("INVALID - count 1, errors 0, p50 0.1us, p99 0.1us, p99.9 0.1us, max 0.1us", lines[1]);
+        assertTrue(lines[2].startsWith("PLAY-SONG - count 2, errors 1, p50 2.0us"));
+        assertTrue(lines[2].endsWith("max 4.0us"));
+    }
+}
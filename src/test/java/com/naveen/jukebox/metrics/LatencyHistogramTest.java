@@ -0,0 +1,61 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Buckets should be contiguous and cover every value")
+    void bucketsAreContiguous() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS - 1; bucket++) {
+            long lowest = LatencyHistogram.lowestValueOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lowest));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(bucket)));
+            assertEquals(LatencyHistogram.highestValueOf(bucket) + 1, LatencyHistogram.lowestValueOf(bucket + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Quantiles should be within the relative error of the buckets")
+    void quantilesAreAccurate() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 10);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(500_000, snapshot.getValueAtQuantile(0.5), 500_000 * 0.04);
+        assertEquals(990_000, snapshot.getValueAtQuantile(0.99), 990_000 * 0.04);
+        assertEquals(1_000_000, snapshot.getValueAtQuantile(1.0));
+        assertEquals(0, new LatencyHistogram().snapshot().getValueAtQuantile(0.99));
+    }
+
+    @Test
+    @DisplayName("Values recorded by many threads should all be counted")
+    void concurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, histogram.snapshot().getCount());
+        assertEquals(99_999, histogram.snapshot().getMax());
+    }
+}
@@ -0,0 +1,92 @@
+package com.naveen.jukebox.metrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingSongsTest {
+
+    @Test
+    @DisplayName("Space-Saving should keep the frequent IDs of a stream with many rare ones")
+    void spaceSavingKeepsHeavyHitters() {
+        SpaceSaving summary = new SpaceSaving(8);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            summary.offer(i % 4 == 0 ? 7 : i % 4 == 1 ? 9 : 1000 + random.nextInt(100_000));
+        }
+        assertEquals(8, summary.size());
+        long seven = -1;
+        long nine = -1;
+        for (int slot = 0; slot < summary.size(); slot++) {
+            if (summary.idAt(slot) == 7) {
+                seven = summary.countAt(slot);
+            } else if (summary.idAt(slot) == 9) {
+                nine = summary.countAt(slot);
+            }
+        }
+        assertTrue(seven >= 2500 && seven <= 2500 + 10_000 / 8);
+        assertTrue(nine >= 2500 && nine <= 2500 + 10_000 / 8);
+    }
+
+    @Test
+    @DisplayName("Count-min estimates should never be low and rarely be far too high")
+    void sketchBounds() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 10);
+        for (int id = 0; id < 2000; id++) {
+            for (int i = 0; i <= id % 5; i++) {
+                sketch.add(id);
+            }
+        }
+        int far = 0;
+        for (int id = 0; id < 2000; id++) {
+            int estimate = sketch.estimate(id);
+            assertTrue(estimate >= id % 5 + 1);
+            if (estimate > id % 5 + 1 + 16) {
+                far++;
+            }
+        }
+        assertTrue(far < 40, far + " estimates far too high");
+        sketch.clear();
+        assertEquals(0, sketch.estimate(42));
+    }
+
+    @Test
+    @DisplayName("Trending songs should rank the plays of the kept windows and forget older ones")
+    void slidingWindows() {
+        AtomicLong now = new AtomicLong(1_000);
+        TrendingSongs trending = new TrendingSongs(3, 100, now::get);
+        play(trending, 5, 30);
+        play(trending, 6, 20);
+        now.set(1_150);
+        play(trending, 6, 20);
+        play(trending, 7, 10);
+        for (int id = 100; id < 2_000; id++) {
+            trending.record(id);
+        }
+
+        assertArrayEquals(new int[]{6, 5, 7}, trending.top(3));
+        assertTrue(trending.estimate(6) >= 40);
+
+        now.set(1_350);
+        play(trending, 8, 1);
+        assertArrayEquals(new int[]{6, 7, 8}, trending.top(3));
+
+        now.set(1_650);
+        assertEquals(0, trending.top(3).length);
+
+        play(trending, 9, 2);
+        trending.clear();
+        assertEquals(0, trending.top(3).length);
+        assertEquals(0, trending.estimate(9));
+    }
+
+    private static void play(TrendingSongs trending, int songId, int times) {
+        for (int i = 0; i < times; i++) {
+            trending.record(songId);
+        }
+    }
+}
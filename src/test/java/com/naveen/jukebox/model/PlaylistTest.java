@@ -0,0 +1,122 @@
+package com.naveen.jukebox.model;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaylistTest {
+
+    @Test
+    @DisplayName("Playlist should grow past its initial capacity and keep song order")
+    void addSong() {
+        Playlist playlist = new Playlist(1, "favorites", 1);
+        for (int id = 10; id < 20; id++) {
+            playlist.addSong(id);
+        }
+
+        assertEquals(10, playlist.size());
+        assertEquals(10, playlist.getSongIdAt(0));
+        assertEquals(19, playlist.getSongIdAt(9));
+        assertEquals(4, playlist.indexOf(14));
+        assertEquals(-1, playlist.indexOf(42));
+    }
+
+    @Test
+    @DisplayName("Removing a song should shift later songs and keep positions correct")
+    void removeSong() {
+        Playlist playlist = new Playlist(1, "favorites", 4);
+        playlist.addSong(1);
+        playlist.addSong(4);
+        playlist.addSong(5);
+        playlist.addSong(4);
+        assertEquals(1, playlist.indexOf(4));
+
+        assertEquals(1, playlist.removeSong(4));
+        assertArrayEquals(new int[]{1, 5, 4}, playlist.getSongIds());
+        assertEquals(2, playlist.indexOf(4));
+        assertEquals(-1, playlist.removeSong(7));
+    }
+
+    @Test
+    @DisplayName("Cursor should stay on the current song when an earlier song is removed")
+    void cursorFollowsRemoval() {
+        Playlist playlist = new Playlist(1, "favorites", 4);
+        playlist.addSong(1);
+        playlist.addSong(4);
+        playlist.addSong(5);
+        CurrentlyPlaying currentlyPlaying = new CurrentlyPlaying(playlist, 2);
+
+        currentlyPlaying.songRemovedAt(playlist.removeSong(1));
+        assertEquals(5, currentlyPlaying.getSongId());
+
+        currentlyPlaying.songRemovedAt(playlist.removeSong(5));
+        assertEquals(0, currentlyPlaying.getIndex());
+        assertEquals(4, currentlyPlaying.getSongId());
+    }
+
+    @Test
+    @DisplayName("Rendered song IDs should follow appends and removals at any position")
+    void renderSongIds() {
+        Playlist playlist = new Playlist(1, "favorites", 2);
+        playlist.addSong(7);
+        assertEquals("7", playlist.renderSongIds());
+
+        playlist.addSong(1234567890);
+        playlist.addSong(-3);
+        playlist.addSong(40);
+        playlist.addSong(7);
+        assertEquals("7 1234567890 -3 40 7", playlist.renderSongIds());
+
+        playlist.removeSong(-3);
+        assertEquals("7 1234567890 40 7", playlist.renderSongIds());
+        playlist.removeSong(7);
+        assertEquals("1234567890 40 7", playlist.renderSongIds());
+        playlist.removeSong(7);
+        assertEquals("1234567890 40", playlist.renderSongIds());
+        playlist.removeSong(1234567890);
+        playlist.removeSong(40);
+        assertEquals("", playlist.renderSongIds());
+        playlist.addSong(5);
+        assertEquals("5", playlist.renderSongIds());
+    }
+
+    @Test
+    @DisplayName("Writing the song IDs should pass the rendered text through any buffer, also for a copy")
+    void writeSongIds() throws IOException {
+        Playlist playlist = new Playlist(1, "favorites", 2);
+        for (int songId : new int[]{12, 345, 6, 78901}) {
+            playlist.addSong(songId);
+        }
+        StringWriter out = new StringWriter();
+        playlist.writeSongIds(out, new char[3]);
+        assertEquals("12 345 6 78901", out.toString());
+
+        Playlist copy = playlist.copy();
+        playlist.removeSong(345);
+        copy.addSong(2);
+        out = new StringWriter();
+        copy.writeSongIds(out, new char[64]);
+        assertEquals("12 345 6 78901 2", out.toString());
+        assertEquals("12 6 78901", playlist.renderSongIds());
+    }
+
+    @Test
+    @DisplayName("The distinct song count should ignore repeated songs and follow removals")
+    void distinctSongCount() {
+        Playlist playlist = new Playlist(1, "favorites", 4);
+        playlist.addSong(1);
+        playlist.addSong(2);
+        playlist.addSong(1);
+        assertEquals(2, playlist.distinctSongCount());
+
+        playlist.removeSong(1);
+        assertEquals(2, playlist.distinctSongCount());
+        playlist.removeSong(2);
+        assertEquals(1, playlist.distinctSongCount());
+        assertEquals(0, playlist.indexOf(1));
+    }
+}
@@ -0,0 +1,131 @@
+package com.naveen.jukebox.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShuffleOrderTest {
+
+    private static Playlist playlistOf(int size) {
+        Playlist playlist = new Playlist(1, "mix", size);
+        for (int i = 0; i < size; i++) {
+            playlist.addSong(100 + i);
+        }
+        return playlist;
+    }
+
+    @Test
+    @DisplayName("A round of NEXT should visit every song once, starting from the given one, and then repeat")
+    void nextVisitsEverySong() {
+        Playlist playlist = playlistOf(50);
+        ShuffleOrder shuffle = ShuffleOrder.startingAt(playlist, 7, 42);
+        assertEquals(7, shuffle.current());
+
+        int[] round = new int[50];
+        boolean[] seen = new boolean[50];
+        round[0] = 7;
+        seen[7] = true;
+        for (int i = 1; i < 50; i++) {
+            round[i] = shuffle.next();
+            assertFalse(seen[round[i]]);
+            seen[round[i]] = true;
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(round[i], shuffle.next());
+        }
+    }
+
+    @Test
+    @DisplayName("BACK should retrace NEXT, and going back from the start should draw the songs at the end")
+    void previousRetracesNext() {
+        Playlist playlist = playlistOf(20);
+        ShuffleOrder shuffle = ShuffleOrder.random(playlist, 3);
+        int first = shuffle.current();
+        int second = shuffle.next();
+        int third = shuffle.next();
+        assertEquals(second, shuffle.previous());
+        assertEquals(first, shuffle.previous());
+
+        boolean[] seen = new boolean[20];
+        seen[first] = true;
+        seen[second] = true;
+        seen[third] = true;
+        int last = shuffle.previous();
+        assertFalse(seen[last]);
+        assertEquals(first, shuffle.next());
+        assertEquals(last, shuffle.previous());
+    }
+
+    @Test
+    @DisplayName("The same seed should give the same order, and a restored order should continue the same way")
+    void deterministic() {
+        Playlist playlist = playlistOf(1000);
+        ShuffleOrder a = ShuffleOrder.random(playlist, 99);
+        ShuffleOrder b = ShuffleOrder.random(playlist, 99);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(a.next(), b.next());
+        }
+        ShuffleOrder restored = ShuffleOrder.restore(playlist, a.getEntries().clone(), a.getFront(), a.getBack(),
+                a.getPosition(), a.getState());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(a.next(), restored.next());
+        }
+    }
+
+    @Test
+    @DisplayName("An order should no longer fit once its playlist changed")
+    void invalidatedByChange() {
+        Playlist playlist = playlistOf(5);
+        ShuffleOrder shuffle = ShuffleOrder.random(playlist, 1);
+        assertTrue(shuffle.isValidFor(playlist));
+        playlist.addSong(7);
+        assertFalse(shuffle.isValidFor(playlist));
+    }
+
+    @Test
+    @DisplayName("The cursor should play queued songs on top of the playlist and reshuffle after a change")
+    void cursorWithShuffle() {
+        Playlist playlist = playlistOf(10);
+        CurrentlyPlaying playing = new CurrentlyPlaying(playlist, ShuffleOrder.startingAt(playlist, 4, 8));
+        assertEquals(104, playing.getSongId());
+
+        playing.playQueued(555);
+        assertTrue(playing.isPlayingQueued());
+        assertEquals(555, playing.getSongId());
+        assertEquals(4, playing.getIndex());
+
+        int next = playing.next();
+        assertFalse(playing.isPlayingQueued());
+        assertEquals(100 + next, playing.getSongId());
+
+        playlist.removeSong(100 + (next == 0 ? 1 : 0));
+        playing.songRemovedAt(next == 0 ? 1 : 0);
+        int after = playing.next();
+        assertTrue(after >= 0 && after < 9);
+        assertTrue(playing.getShuffle().isValidFor(playlist));
+    }
+
+    @Test
+    @DisplayName("An order saved after its playlist changed should continue as the live cursor does")
+    void staleOrderSaved() {
+        Playlist playlist = playlistOf(6);
+        CurrentlyPlaying playing = new CurrentlyPlaying(playlist, ShuffleOrder.startingAt(playlist, 2, 5));
+        playing.next();
+        int removed = playing.getIndex() == 5 ? 0 : 5;
+        playlist.removeSong(100 + removed);
+        playing.songRemovedAt(removed);
+        playlist.addSong(200);
+        ShuffleOrder stale = playing.getShuffle();
+        assertFalse(stale.isValidFor(playlist));
+
+        ShuffleOrder saved = playing.getUpcomingShuffle();
+        assertSame(stale, playing.getShuffle());
+        CurrentlyPlaying restored = new CurrentlyPlaying(playlist, playing.getIndex());
+        restored.setShuffle(ShuffleOrder.restore(playlist, saved.getEntries().clone(), saved.getFront(),
+                saved.getBack(), saved.getPosition(), saved.getState()));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(playing.next(), restored.next());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.naveen.jukebox.model;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTest {
+
+    @Test
+    @DisplayName("Song index should follow playlist creation, edits and deletion")
+    void songIndexFollowsPlaylists() {
+        User user = new User(1, "Kiran", new ArrayList<>(), null);
+        Playlist first = new Playlist(user.nextPlaylistId(), "first", 2);
+        first.addSong(1);
+        first.addSong(4);
+        user.addPlaylist(first);
+        Playlist second = new Playlist(user.nextPlaylistId(), "second", 1);
+        second.addSong(4);
+        user.addPlaylist(second);
+
+        assertTrue(user.getSongIndex().contains(4, 2));
+        assertFalse(user.getSongIndex().contains(1, 2));
+
+        user.addSongToPlaylist(second, 1);
+        assertTrue(user.getSongIndex().contains(1, 2));
+
+        user.removeSongFromPlaylist(first, 1);
+        assertFalse(user.getSongIndex().contains(1, 1));
+        assertTrue(user.getSongIndex().contains(1));
+
+        user.removePlaylist(2);
+        assertFalse(user.getSongIndex().contains(1));
+        assertTrue(user.getSongIndex().contains(4, 1));
+        assertNull(user.getPlaylistById(2));
+    }
+
+    @Test
+    @DisplayName("Playlist IDs should not be reused after a playlist is deleted")
+    void playlistIdsAreNotReused() {
+        User user = new User(1, "Kiran", new ArrayList<>(), null);
+        user.addPlaylist(new Playlist(user.nextPlaylistId(), "first", 1));
+        user.addPlaylist(new Playlist(user.nextPlaylistId(), "second", 1));
+        user.removePlaylist(1);
+
+        assertEquals(3, user.nextPlaylistId());
+    }
+}
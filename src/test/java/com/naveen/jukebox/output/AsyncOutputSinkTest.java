@@ -0,0 +1,160 @@
+package com.naveen.jukebox.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncOutputSinkTest {
+
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    private final PrintStream diagnostics = new PrintStream(errors, true, StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Records are written in order through a ring much smaller than the output")
+    void writesInOrder() throws IOException {
+        Songs song = new Songs(1, "Song", "Pop", "Album", "Artist", List.of("Artist"));
+        Playlist playlist = new Playlist(1, "Mix", 0);
+        StringWriter expected = new StringWriter();
+        TextSink direct = new TextSink(expected);
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            StringWriter actual = new StringWriter();
+            AsyncOutputSink sink = new AsyncOutputSink(new TextSink(actual), diagnostics, 8, strategy);
+            for (int i = 0; i < 10_000; i++) {
+                playlist.addSong(i);
+                for (OutputSink target : List.of(sink, direct)) {
+                    target.message(Opcode.CREATE_USER, "message " + i);
+                    target.playing(Opcode.PLAY_SONG, song);
+                    if (i % 100 == 0) {
+                        target.playlist(Opcode.MODIFY_PLAYLIST, playlist);
+                        target.songs(Opcode.SEARCH, "Songs Found - ", List.of(song));
+                    }
+                }
+            }
+            sink.close();
+
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(8, sink.capacity());
+            assertTrue(sink.highWaterMark() <= 8);
+            expected.getBuffer().setLength(0);
+        }
+    }
+
+    @Test
+    @DisplayName("A full ring makes the producer wait and is counted as backpressure")
+    void countsBackpressure() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter text = new StringWriter();
+        OutputSink slow = new TextSink(text) {
+            @Override
+            public void message(Opcode opcode, String message) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.message(opcode, message);
+            }
+        };
+        AsyncOutputSink sink = new AsyncOutputSink(slow, diagnostics, 3, WaitStrategy.PARK);
+        sink.message(Opcode.CREATE_USER, "first");
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        }).start();
+        for (int i = 0; i < 4; i++) {
+            sink.playing(Opcode.PLAY_SONG, new Songs(i, "Song " + i, null, "Album", "Artist", null));
+        }
+        sink.close();
+
+        assertEquals(4, sink.capacity());
+        assertEquals(4, sink.highWaterMark());
+        assertTrue(sink.fullWaits() >= 1);
+        assertTrue(sink.fullWaitNanos() > 0);
+        assertTrue(text.toString().startsWith("first"));
+        assertTrue(sink.report().contains("high-water mark 4"));
+    }
+
+    @Test
+    @DisplayName("A playlist is written as it was when it was handed over")
+    void copiesPlaylists() throws IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter text = new StringWriter();
+        OutputSink blocked = new TextSink(text) {
+            @Override
+            public void message(Opcode opcode, String message) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.message(opcode, message);
+            }
+        };
+        AsyncOutputSink sink = new AsyncOutputSink(blocked, diagnostics, 16, WaitStrategy.YIELD);
+        Playlist playlist = new Playlist(2, "Mix", 0);
+        playlist.addSong(5);
+        sink.message(Opcode.CREATE_PLAYLIST, "Playlist ID - 2");
+        sink.playlist(Opcode.MODIFY_PLAYLIST, playlist);
+        playlist.addSong(6);
+        sink.diagnostic("Loaded");
+        release.countDown();
+        sink.close();
+
+        String lineSeparator = System.lineSeparator();
+        assertEquals("Playlist ID - 2" + lineSeparator
+                + "Playlist ID - 2\nPlaylist Name - Mix\nSong IDs - 5" + lineSeparator, text.toString());
+        assertEquals("Loaded" + lineSeparator, errors.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("An error of the target is rethrown to the producer")
+    void rethrowsFailures() {
+        OutputSink failing = new TextSink(new StringWriter()) {
+            @Override
+            public void message(Opcode opcode, String message) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        AsyncOutputSink sink = new AsyncOutputSink(failing, diagnostics, 4, WaitStrategy.PARK);
+
+        IOException error = null;
+        try {
+            sink.message(Opcode.CREATE_USER, "lost");
+            sink.close();
+        } catch (IOException e) {
+            error = e;
+        }
+
+        assertNotNull(error);
+        assertEquals("disk full", error.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Wait strategies are found by name in any spelling")
+    void waitStrategyNames() {
+        assertEquals(WaitStrategy.BUSY_SPIN, WaitStrategy.fromName("busy-spin"));
+        assertEquals(WaitStrategy.YIELD, WaitStrategy.fromName("YIELD"));
+        assertEquals(WaitStrategy.PARK, WaitStrategy.fromName("Park"));
+        assertNull(WaitStrategy.fromName("sleep"));
+    }
+}
@@ -0,0 +1,191 @@
+package com.naveen.jukebox.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.naveen.jukebox.command.Opcode;
+import com.naveen.jukebox.model.Playlist;
+import com.naveen.jukebox.model.Songs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputSinkTest {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Songs song = new Songs(7, "Heat Waves", "Indie", "Dreamland", "Glass Animals",
+            List.of("Glass Animals", "Iann Dior"));
+    private final Songs plain = new Songs(-3, "Untitled", null, "Demos", "Unknown", null);
+
+    @Test
+    @DisplayName("The text sink writes every response exactly as its text")
+    void textSinkWritesTheText() throws IOException {
+        Playlist playlist = new Playlist(4, "Road Trip", 0);
+        playlist.addSong(7);
+        playlist.addSong(-3);
+        playlist.addSong(1_000_000_000);
+        List<Response> responses = List.of(
+                Response.message("Playlist ID - 4"),
+                Response.playing(song),
+                Response.playlist(playlist),
+                Response.playlist(new Playlist(5, "Empty", 0)),
+                Response.songs("Songs Found - ", List.of(song, plain)));
+
+        StringWriter text = new StringWriter();
+        TextSink sink = new TextSink(text);
+        StringBuilder expected = new StringBuilder();
+        for (Response response : responses) {
+            response.writeTo(sink, Opcode.SEARCH);
+            expected.append(response.toText()).append(LINE_SEPARATOR);
+        }
+        sink.flush();
+
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    @Test
+    @DisplayName("The JSON sink writes one object per line naming the command")
+    void jsonSinkWritesOneObjectPerLine() throws IOException {
+        Playlist playlist = new Playlist(4, "Road \"Trip\"", 0);
+        playlist.addSong(7);
+        playlist.addSong(-3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonSink sink = new JsonSink(out);
+
+        sink.message(Opcode.CREATE_USER, "1 Ann");
+        sink.message(Opcode.INVALID, "Error");
+        sink.playing(Opcode.PLAY_SONG, song);
+        sink.playlist(Opcode.MODIFY_PLAYLIST, playlist);
+        sink.songs(Opcode.SEARCH, "Songs Found - ", List.of(plain));
+        sink.flush();
+
+        assertEquals("{\"command\":\"CREATE-USER\",\"message\":\"1 Ann\"}\n"
+                + "{\"command\":null,\"message\":\"Error\"}\n"
+                + "{\"command\":\"PLAY-SONG\",\"song\":{\"id\":7,\"title\":\"Heat Waves\",\"genre\":\"Indie\","
+                + "\"album\":\"Dreamland\",\"owner\":\"Glass Animals\",\"collaborators\":[\"Glass Animals\",\"Iann Dior\"]}}\n"
+                + "{\"command\":\"MODIFY-PLAYLIST\",\"playlist\":{\"id\":4,\"name\":\"Road \\\"Trip\\\"\",\"songIds\":[7,-3]}}\n"
+                + "{\"command\":\"SEARCH\",\"songs\":[{\"id\":-3,\"title\":\"Untitled\",\"genre\":null,"
+                + "\"album\":\"Demos\",\"owner\":\"Unknown\"}]}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("The binary sink writes the opcode table and length-prefixed records")
+    void binarySinkWritesLengthPrefixedRecords() throws IOException {
+        Playlist playlist = new Playlist(4, "Caf\u00e9 \u266b \ud83c\udfb5", 0);
+        for (int i = 0; i < 100; i++) {
+            playlist.addSong(i * 1000 - 50);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinarySink sink = new BinarySink(out);
+        sink.message(Opcode.CREATE_USER, "1 Ann");
+        sink.playing(Opcode.PLAY_SONG, song);
+        sink.playlist(Opcode.MODIFY_PLAYLIST, playlist);
+        sink.songs(Opcode.SEARCH, "Songs Found - ", List.of(plain));
+        sink.flush();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(BinarySink.MAGIC, in.readInt());
+        assertEquals(BinarySink.VERSION, in.readByte());
+        assertEquals(Opcode.values().length, readVarInt(in));
+        for (Opcode opcode : Opcode.values()) {
+            assertEquals(opcode.getVerb(), readString(in));
+        }
+
+        assertEquals(1 + 1 + 1 + 5, readVarInt(in));
+        assertEquals(BinarySink.MESSAGE, in.readByte());
+        assertEquals(Opcode.CREATE_USER.ordinal(), in.readByte());
+        assertEquals("1 Ann", readString(in));
+
+        readVarInt(in);
+        assertEquals(BinarySink.PLAYING, in.readByte());
+        assertEquals(Opcode.PLAY_SONG.ordinal(), in.readByte());
+        assertSong(song, in);
+
+        int length = readVarInt(in);
+        int available = in.available();
+        assertEquals(BinarySink.PLAYLIST, in.readByte());
+        assertEquals(Opcode.MODIFY_PLAYLIST.ordinal(), in.readByte());
+        assertEquals(4, readId(in));
+        assertEquals(playlist.getTitle(), readString(in));
+        assertEquals(100, readVarInt(in));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 1000 - 50, readId(in));
+        }
+        assertEquals(length, available - in.available());
+
+        readVarInt(in);
+        assertEquals(BinarySink.SONG_LIST, in.readByte());
+        assertEquals(Opcode.SEARCH.ordinal(), in.readByte());
+        assertEquals(1, readVarInt(in));
+        assertSong(plain, in);
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    @DisplayName("A detached playlist response keeps the songs the playlist had")
+    void detachedPlaylistKeepsItsSongs() {
+        Playlist playlist = new Playlist(1, "Mix", 0);
+        playlist.addSong(1);
+        Response live = Response.playlist(playlist);
+        Response detached = live.detach();
+        Response message = Response.message("Delete Successful");
+
+        playlist.addSong(2);
+
+        assertEquals("Playlist ID - 1\nPlaylist Name - Mix\nSong IDs - 1", detached.toText());
+        assertEquals("Playlist ID - 1\nPlaylist Name - Mix\nSong IDs - 1 2", live.toText());
+        assertSame(message, message.detach());
+        assertNull(Response.message(null));
+    }
+
+    private static void assertSong(Songs expected, DataInputStream in) throws IOException {
+        assertEquals(expected.getId(), readId(in));
+        assertEquals(expected.getTitle(), readString(in));
+        assertEquals(expected.getGenre(), readString(in));
+        assertEquals(expected.getAlbum(), readString(in));
+        assertEquals(expected.getOwner(), readString(in));
+        int collaborators = readVarInt(in) - 1;
+        if (expected.getCollaboration() == null) {
+            assertEquals(-1, collaborators);
+            return;
+        }
+        assertEquals(expected.getCollaboration().size(), collaborators);
+        for (String name : expected.getCollaboration()) {
+            assertEquals(name, readString(in));
+        }
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return value;
+            }
+        }
+    }
+
+    private static int readId(DataInputStream in) throws IOException {
+        int zigzag = readVarInt(in);
+        return zigzag >>> 1 ^ -(zigzag & 1);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
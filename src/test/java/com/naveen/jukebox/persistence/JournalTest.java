@@ -0,0 +1,114 @@
+package com.naveen.jukebox.persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Records should be read back in order with consecutive LSNs after the base LSN")
+    void roundTrip() throws IOException {
+        Path path = directory.resolve("segment.log");
+        try (Journal journal = Journal.create(path, 41)) {
+            assertEquals(42, journal.append("CREATE-USER Kiran"));
+            long lsn = journal.append("CREATE-PLAYLIST 1 MY_PLAYLIST_1 1 4 5");
+            assertEquals(43, lsn);
+            journal.awaitDurable(lsn);
+        }
+
+        List<String> records = new ArrayList<>();
+        Journal.ReadResult result = Journal.read(path, (lsn, line) -> records.add(lsn + " " + line));
+
+        assertEquals(List.of("42 CREATE-USER Kiran", "43 CREATE-PLAYLIST 1 MY_PLAYLIST_1 1 4 5"), records);
+        assertEquals(41, result.baseLsn());
+        assertEquals(43, result.lastLsn());
+        assertEquals(Files.size(path), result.validBytes());
+    }
+
+    @Test
+    @DisplayName("A torn last record should be cut off when the segment is reopened")
+    void tornTail() throws IOException {
+        Path path = directory.resolve("segment.log");
+        try (Journal journal = Journal.create(path, 0)) {
+            journal.append("CREATE-USER Kiran");
+            journal.awaitDurable(journal.append("CREATE-USER Naveen"));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        try (Journal journal = Journal.openForAppend(path)) {
+            assertEquals(1, journal.getLastLsn());
+            journal.awaitDurable(journal.append("CREATE-USER Ravi"));
+        }
+
+        List<String> records = new ArrayList<>();
+        Journal.read(path, (lsn, line) -> records.add(lsn + " " + line));
+        assertEquals(List.of("1 CREATE-USER Kiran", "2 CREATE-USER Ravi"), records);
+    }
+
+    @Test
+    @DisplayName("Concurrent appends should all become durable with unique LSNs")
+    void groupCommit() throws Exception {
+        Path path = directory.resolve("segment.log");
+        int threads = 8;
+        int appends = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (Journal journal = Journal.create(path, 0)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < appends; i++) {
+                        journal.awaitDurable(journal.append("PLAY-SONG " + thread + " NEXT"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long[] count = new long[threads];
+        Journal.ReadResult result = Journal.read(path, (lsn, line) -> count[Integer.parseInt(line.split(" ")[1])]++);
+        assertEquals(threads * appends, result.lastLsn());
+        for (long perThread : count) {
+            assertEquals(appends, perThread);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.naveen.jukebox.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.naveen.jukebox.model.Songs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @Test
+    @DisplayName("Snapshot should decode the same songs that were written")
+    void writeAndOpen() throws IOException {
+        Path file = Files.createTempFile("catalog", ".jbx");
+        try {
+            CatalogSnapshot.write(file, List.of(
+                    new Songs(7, "Cross Me", "Pop", "No.6 Collaborations Project", "Ed Sheeran",
+                            List.of("Ed Sheeran", "Chance The Rapper", "PnB Rock")),
+                    new Songs(3, "Lithium", "Rock", "Nevermind", "Nirvana", List.of("Nirvana"))));
+
+            CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+            assertEquals(2, snapshot.size());
+            Songs song = snapshot.get(7);
+            assertEquals(7, song.getId());
+            assertEquals("Cross Me", song.getTitle());
+            assertEquals("Pop", song.getGenre());
+            assertEquals("No.6 Collaborations Project", song.getAlbum());
+            assertEquals("Ed Sheeran", song.getOwner());
+            assertEquals(List.of("Ed Sheeran", "Chance The Rapper", "PnB Rock"), song.getCollaboration());
+            assertEquals("Nevermind", snapshot.get(3).getAlbum());
+            assertNull(snapshot.get(5));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Opening a file that is not a snapshot should fail")
+    void openRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("catalog", ".jbx");
+        try {
+            Files.write(file, new byte[64]);
+            assertThrows(IllegalArgumentException.class, () -> CatalogSnapshot.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.naveen.jukebox.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoOccurrenceIndexTest {
+
+    @Test
+    @DisplayName("Songs sharing more playlists should be recommended first, ties by ascending ID")
+    void recommend() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex();
+        index.addPlaylist(CoOccurrenceIndex.distinct(new int[]{1, 2, 3}));
+        index.addPlaylist(CoOccurrenceIndex.distinct(new int[]{1, 3, 3, 4}));
+        index.addPlaylist(CoOccurrenceIndex.distinct(new int[]{5}));
+
+        assertEquals(2, index.count(1, 3));
+        assertEquals(1, index.count(3, 4));
+        assertArrayEquals(new int[]{3, 2, 4}, index.recommend(1, 10));
+        assertArrayEquals(new int[]{3}, index.recommend(1, 1));
+        assertArrayEquals(new int[]{1, 2, 4}, index.recommend(3, 10));
+        assertArrayEquals(new int[0], index.recommend(5, 10));
+        assertArrayEquals(new int[0], index.recommend(6, 10));
+    }
+
+    @Test
+    @DisplayName("Removing songs and playlists should undo their counts")
+    void remove() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex();
+        int[] playlist = {1, 2, 3};
+        index.addPlaylist(playlist);
+        index.addSong(4, playlist);
+        index.removeSong(2, new int[]{1, 3, 4});
+
+        assertArrayEquals(new int[]{3, 4}, index.recommend(1, 10));
+        assertArrayEquals(new int[0], index.recommend(2, 10));
+        index.removePlaylist(new int[]{1, 3, 4});
+        assertArrayEquals(new int[0], index.recommend(1, 10));
+        assertEquals(0, index.count(3, 4));
+    }
+
+    @Test
+    @DisplayName("A kept companion that falls behind one that was not kept should be replaced")
+    void staleNeighbours() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(2);
+        index.addPlaylist(new int[]{1, 2, 3});
+        index.addPlaylist(new int[]{1, 2, 3});
+        index.addPlaylist(new int[]{1, 4});
+        assertArrayEquals(new int[]{2, 3}, index.recommend(1, 10));
+
+        index.removeSong(2, new int[]{1, 3});
+        index.removeSong(2, new int[]{1, 3});
+        index.addSong(4, new int[]{1});
+
+        assertArrayEquals(new int[]{3, 4}, index.recommend(1, 10));
+    }
+
+    @Test
+    @DisplayName("Concurrent edits should leave symmetric and exact counts")
+    void concurrentEdits() throws Exception {
+        CoOccurrenceIndex index = new CoOccurrenceIndex();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        index.addPlaylist(new int[]{1, 2, 3, 4});
+                        index.addSong(5, new int[]{1, 2});
+                        index.removeSong(5, new int[]{1, 2});
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * 1_000, index.count(1, 4));
+        assertEquals(threads * 1_000, index.count(4, 1));
+        assertEquals(0, index.count(5, 1));
+        assertArrayEquals(new int[]{2, 3, 4}, index.recommend(1, 10));
+    }
+
+    @Test
+    @DisplayName("A batch of playlists should give the same counts and recommendations as adding them one by one")
+    void batchMatchesSingleAdds() {
+        CoOccurrenceIndex single = new CoOccurrenceIndex(3);
+        CoOccurrenceIndex batch = new CoOccurrenceIndex(3);
+        List<int[]> playlists = List.of(new int[]{1, 2, 3}, new int[]{1, 2}, new int[]{1, 4, 5}, new int[]{1, 5},
+                new int[]{7});
+        for (int[] playlist : playlists) {
+            single.addPlaylist(playlist);
+        }
+        batch.addPlaylists(playlists);
+
+        assertEquals(single.count(1, 5), batch.count(1, 5));
+        assertEquals(2, batch.count(5, 1));
+        assertArrayEquals(single.recommend(1, 10), batch.recommend(1, 10));
+        assertArrayEquals(new int[]{2, 5, 3}, batch.recommend(1, 10));
+        assertEquals(0, batch.recommend(7, 10).length);
+    }
+
+    @Test
+    @DisplayName("A playlist should stop counting once it grows past the limit and count again when it shrinks back")
+    void longPlaylists() {
+        CoOccurrenceIndex index = new CoOccurrenceIndex(3);
+        int[] full = new int[CoOccurrenceIndex.MAX_PLAYLIST_SONGS];
+        for (int i = 0; i < full.length; i++) {
+            full[i] = i + 1;
+        }
+        index.addPlaylist(new int[]{1, 2});
+        index.addPlaylist(full);
+        assertEquals(2, index.count(1, 2));
+
+        int extra = full.length + 1;
+        index.addSong(extra, full);
+        assertEquals(1, index.count(1, 2));
+        assertEquals(0, index.count(1, extra));
+        assertEquals(0, index.count(3, 4));
+
+        index.removeSong(extra, full);
+        assertEquals(2, index.count(1, 2));
+        assertEquals(1, index.count(3, 4));
+
+        int[] tooLong = Arrays.copyOf(full, full.length + 1);
+        tooLong[full.length] = extra;
+        index.addPlaylist(tooLong);
+        index.removePlaylist(tooLong);
+        assertEquals(2, index.count(1, 2));
+    }
+}
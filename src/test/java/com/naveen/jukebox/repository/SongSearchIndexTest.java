@@ -0,0 +1,69 @@
+package com.naveen.jukebox.repository;
+
+import java.util.List;
+
+import com.naveen.jukebox.model.Songs;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongSearchIndexTest {
+
+    private static Songs song(int id, String title, String album, String owner, String... collaborators) {
+        return new Songs(id, title, "Pop", album, owner, List.of(collaborators));
+    }
+
+    @Test
+    @DisplayName("Text should be split at non-alphanumeric characters and case-folded")
+    void tokenize() {
+        assertEquals(List.of("shape", "of", "you", "no", "6"), SongSearchIndex.tokenize("Shape  of YOU (No.6)"));
+        assertEquals(List.of("caf\u00e9", "na\u00efve"), SongSearchIndex.tokenize("CAF\u00c9 Na\u00efve!"));
+        assertTrue(SongSearchIndex.tokenize(" - ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A query should match songs containing all its terms, title matches first")
+    void search() {
+        SongSearchIndex index = new SongSearchIndex();
+        index.add(song(1, "South of the Border", "No.6 Collaborations Project", "Ed Sheeran", "Cardi.B"));
+        index.add(song(2, "Cross Me", "No.6 Collaborations Project", "Ed Sheeran", "PnB Rock"));
+        index.add(song(3, "Perfect", "Divide", "Ed Sheeran"));
+        index.add(song(4, "Border Song", "Elton John", "Elton John"));
+
+        assertArrayEquals(new int[]{1, 2}, index.search("collaborations ED", 10));
+        assertArrayEquals(new int[]{1, 4}, index.search("border", 10));
+        assertArrayEquals(new int[]{3}, index.search("sheeran perfect", 10));
+        assertArrayEquals(new int[]{1}, index.search("sheeran border", 10));
+        assertArrayEquals(new int[0], index.search("sheeran elton", 10));
+        assertArrayEquals(new int[0], index.search("unknown", 10));
+        assertArrayEquals(new int[0], index.search("", 10));
+        assertEquals(4, index.songCount());
+    }
+
+    @Test
+    @DisplayName("Indexing a song again should replace its old terms")
+    void supersede() {
+        SongSearchIndex index = new SongSearchIndex();
+        index.add(song(7, "Old Title", "Album", "Artist"));
+        index.add(song(7, "New Title", "Album", "Artist"));
+
+        assertArrayEquals(new int[0], index.search("old", 10));
+        assertArrayEquals(new int[]{7}, index.search("title", 10));
+        assertEquals(1, index.songCount());
+    }
+
+    @Test
+    @DisplayName("Intersections across skip blocks should find every match and respect the limit")
+    void largeIntersection() {
+        SongSearchIndex index = new SongSearchIndex();
+        for (int id = 1; id <= 100_000; id++) {
+            String title = (id % 3 == 0 ? "fizz " : "") + (id % 5 == 0 ? "buzz " : "") + "song";
+            index.add(song(id, title, "Album " + (id % 100), "Artist"));
+        }
+
+        assertEquals(100_000 / 15, index.search("fizz buzz song", 100_000).length);
+        assertArrayEquals(new int[]{15, 315, 615}, index.search("buzz fizz 15", 3));
+        assertEquals(334, index.search("album 15 fizz buzz", 1000).length);
+    }
+}
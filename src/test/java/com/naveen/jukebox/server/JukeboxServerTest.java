@@ -0,0 +1,88 @@
+package com.naveen.jukebox.server;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.naveen.jukebox.command.CommandParser;
+import com.naveen.jukebox.command.ConcurrentCommandExecutor;
+import com.naveen.jukebox.command.JukeboxCommands;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JukeboxServerTest {
+    private JukeboxServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new JukeboxServer(new ConcurrentCommandExecutor(new EchoCommands()), 0, 0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Pipelined TCP commands should be answered in order, each ending with an empty line")
+    void tcpRoundTrip() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getTcpPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.print("PLAY-SONG 1 NEXT\n\nSILENT\nPLAY-PLAYLIST 2 x\nCREATE-USER\n");
+            out.flush();
+            assertEquals("PLAY-SONG 3", in.readLine());
+            assertEquals("", in.readLine());
+            assertEquals("", in.readLine());
+            assertEquals("PLAY-PLAYLIST 3", in.readLine());
+            assertEquals("", in.readLine());
+            assertEquals("Invalid Operation", in.readLine());
+            assertEquals("", in.readLine());
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP POST should answer every command line of the body")
+    void httpRoundTrip() throws Exception {
+        URL url = new URL("http://localhost:" + server.getHttpPort() + "/command");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("PLAY-SONG 1 NEXT\nDELETE-PLAYLIST 1 1\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(200, connection.getResponseCode());
+        String body = new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals("PLAY-SONG 3\n\nDELETE-PLAYLIST 3\n\n", body);
+
+        HttpURLConnection get = (HttpURLConnection) url.openConnection();
+        assertEquals(405, get.getResponseCode());
+    }
+
+    /**
+     * Answers with the verb and the number of tokens, nothing for SILENT, and fails on CREATE-USER without a name.
+     */
+    private static class EchoCommands extends JukeboxCommands {
+        @Override
+        public String execute(CommandParser parser) {
+            if (parser.tokenEquals(0, "SILENT")) {
+                return null;
+            }
+            if (parser.tokenEquals(0, "CREATE-USER")) {
+                return parser.stringAt(1);
+            }
+            return parser.stringAt(0) + " " + parser.tokenCount();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.naveen.jukebox.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.naveen.jukebox.model.CatalogDiff;
+import com.naveen.jukebox.model.LoadReport;
+import com.naveen.jukebox.model.Songs;
+import com.opencsv.exceptions.CsvException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongsServiceTest {
+
+    private final SongsService songsService = new SongsService();
+
+    @Test
+    @DisplayName("Streaming load should insert valid rows and count rejected ones")
+    void loadSongsReportsRejectedRows() throws IOException, CsvException {
+        Path csv = Files.createTempFile("songs", ".csv");
+        try {
+            Files.writeString(csv, """
+                    9001,Lithium,Rock,Nevermind,Nirvana,Nirvana
+                    not-a-number,Polly,Rock,Nevermind,Nirvana,Nirvana
+                    9002,Breed,Rock,Nevermind
+                    9003,Come as You Are,Rock,Nevermind,Nirvana,Nirvana#Kurt Cobain
+                    """, StandardCharsets.UTF_8);
+
+            LoadReport report = songsService.loadSongs(csv.toString());
+
+            assertEquals(2, report.getRowsLoaded());
+            assertEquals(2, report.getRowsRejected());
+            assertEquals("Lithium", songsService.getSongsBySongId(9001).getTitle());
+            assertEquals("Kurt Cobain", songsService.getSongsBySongId(9003).getCollaboration().get(1));
+            assertNull(songsService.getSongsBySongId(9002));
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming load should keep every row of a file spanning several chunks")
+    void loadSongsAcrossChunks() throws IOException, CsvException {
+        Path csv = Files.createTempFile("songs", ".csv");
+        int rows = SongsService.LOAD_CHUNK_SIZE * 3 + 17;
+        try {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < rows; i++) {
+                content.append(100_000 + i).append(",Title ").append(i).append(",Pop,Album,Artist,Artist\n");
+            }
+            Files.writeString(csv, content, StandardCharsets.UTF_8);
+
+            LoadReport report = songsService.loadSongs(csv.toString());
+
+            assertEquals(rows, report.getRowsLoaded());
+            assertEquals(0, report.getRowsRejected());
+            assertEquals("Title " + (rows - 1), songsService.getSongsBySongId(100_000 + rows - 1).getTitle());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @Test
+    @DisplayName("Reloading should replace the catalog and report added, updated and removed songs")
+    void reloadReportsDiff() throws IOException, CsvException {
+        Path first = Files.createTempFile("songs", ".csv");
+        Path second = Files.createTempFile("songs", ".csv");
+        try {
+            Files.writeString(first, """
+                    9101,Lithium,Rock,Nevermind,Nirvana,Nirvana
+                    9102,Polly,Rock,Nevermind,Nirvana,Nirvana
+                    9103,Breed,Rock,Nevermind,Nirvana,Nirvana
+                    """, StandardCharsets.UTF_8);
+            Files.writeString(second, """
+                    9101,Lithium,Rock,Nevermind,Nirvana,Nirvana
+                    9102,Polly (Live),Rock,Nevermind,Nirvana,Nirvana
+                    9104,Drain You,Rock,Nevermind,Nirvana,Nirvana
+                    """, StandardCharsets.UTF_8);
+            songsService.loadSongs(first.toString());
+            Songs unchanged = songsService.getSongsBySongId(9101);
+
+            CatalogDiff diff = songsService.loadSongs(second.toString()).getDiff();
+
+            assertEquals(1, diff.getAdded());
+            assertEquals(1, diff.getUpdated());
+            assertEquals(1, diff.getRemoved());
+            assertEquals(1, diff.getUnchanged());
+            assertEquals(3, songsService.countLoadedSongs());
+            assertSame(unchanged, songsService.getSongsBySongId(9101));
+            assertEquals("Polly (Live)", songsService.getSongsBySongId(9102).getTitle());
+            assertNull(songsService.getSongsBySongId(9103));
+            assertEquals("Drain You", songsService.getSongsBySongId(9104).getTitle());
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    @DisplayName("Readers should see either the whole old catalog or the whole new one during a reload")
+    void readersNeverSeePartialCatalog() throws Exception {
+        int rows = SongsService.LOAD_CHUNK_SIZE * 2 + 5;
+        Path first = Files.createTempFile("songs", ".csv");
+        Path second = Files.createTempFile("songs", ".csv");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                // a partly loaded catalog would hold songs of both files
+                int loaded = songsService.countLoadedSongs();
+                if (loaded != rows) {
+                    failure.compareAndSet(null, loaded + " songs loaded");
+                }
+            }
+        });
+        try {
+            writeCatalog(first, 200_000, rows);
+            writeCatalog(second, 300_000, rows);
+            songsService.loadSongs(first.toString());
+            reader.start();
+            for (int i = 0; i < 3; i++) {
+                songsService.loadSongs(second.toString());
+                songsService.loadSongs(first.toString());
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    @DisplayName("A load should swap in its catalog only in the step handed to the publisher, and never if it fails")
+    void loadSongsPublishesThroughCaller() throws IOException, CsvException {
+        Path csv = Files.createTempFile("songs", ".csv");
+        try {
+            writeCatalog(csv, 400_000, 3);
+            int[] published = {0};
+            LoadReport report = songsService.loadSongs(csv.toString(), publish -> {
+                assertNull(songsService.getSongsBySongId(400_000));
+                publish.run();
+                published[0]++;
+                assertEquals("Title 0", songsService.getSongsBySongId(400_000).getTitle());
+            });
+            assertEquals(1, published[0]);
+            assertEquals(3, report.getDiff().getAdded());
+
+            assertThrows(CsvException.class, () -> songsService.loadSongs(csv + ".missing", publish -> published[0]++));
+            assertEquals(1, published[0]);
+            assertEquals(3, songsService.countLoadedSongs());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    private static void writeCatalog(Path csv, int firstId, int rows) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            content.append(firstId + i).append(",Title ").append(i).append(",Pop,Album,Artist,Artist\n");
+        }
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+    }
+}
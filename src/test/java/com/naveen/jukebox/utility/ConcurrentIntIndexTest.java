@@ -0,0 +1,70 @@
+package com.naveen.jukebox.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentIntIndexTest {
+
+    @Test
+    @DisplayName("Index should return stored values and null for missing or negative keys")
+    void putAndGet() {
+        ConcurrentIntIndex<String> index = new ConcurrentIntIndex<>();
+        index.put(1, "one");
+        index.put(100_000, "far away");
+
+        assertEquals("one", index.get(1));
+        assertEquals("far away", index.get(100_000));
+        assertNull(index.get(2));
+        assertNull(index.get(-1));
+        assertEquals(2, index.size());
+
+        assertEquals("one", index.remove(1));
+        assertNull(index.get(1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Keys allocated concurrently from a sequence should all stay reachable")
+    void concurrentPuts() throws InterruptedException {
+        ConcurrentIntIndex<String> index = new ConcurrentIntIndex<>();
+        AtomicInteger sequence = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    int key = sequence.incrementAndGet();
+                    index.put(key, "user" + key);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, index.size());
+        for (int key = 1; key <= 80_000; key++) {
+            assertEquals("user" + key, index.get(key));
+        }
+    }
+
+    @Test
+    @DisplayName("Reserving keys should keep stored values and make room for the reserved ones")
+    void reserve() {
+        ConcurrentIntIndex<String> index = new ConcurrentIntIndex<>();
+        index.put(3, "three");
+        index.reserve(100_000);
+        assertEquals("three", index.get(3));
+        assertNull(index.get(100_000));
+        index.put(100_000, "last");
+        assertEquals("last", index.get(100_000));
+        assertEquals(2, index.size());
+    }
+}
@@ -98,4 +98,15 @@ class DataUtilityTest {
         assertEquals(expected, DataUtility.constructPlaylistResponse(playlist));
     }
 
+    @Test
+    void constructSongResponseIsKeptUntilTheSongChanges() {
+        Songs song = new Songs(1, "Hey there Delilah", "Melody", "Album", "Artist", List.of("Artist", "Guest"));
+
+        String first = DataUtility.constructSongResponse(song);
+        assertSame(first, DataUtility.constructSongResponse(song));
+
+        song.setTitle("Delilah");
+        assertTrue(DataUtility.constructSongResponse(song).contains("Song - Delilah\nAlbum - Album\nArtists - Artist,Guest"));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.naveen.jukebox.utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    @Test
+    @DisplayName("Map should return stored values and null for missing keys")
+    void putAndGet() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(1, "one");
+        map.put(-7, "minus seven");
+        map.put(0, "zero");
+
+        assertEquals("one", map.get(1));
+        assertEquals("minus seven", map.get(-7));
+        assertEquals("zero", map.get(0));
+        assertNull(map.get(2));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    @DisplayName("Map should replace the value of an existing key")
+    void putReplaces() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.put(5, "old"));
+        assertEquals("old", map.put(5, "new"));
+        assertEquals("new", map.get(5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("Map should keep all entries reachable across resizes and removals")
+    void growAndRemove() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, String.valueOf(i));
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            assertEquals(String.valueOf(i), map.remove(i));
+        }
+        assertEquals(5_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(i));
+            } else {
+                assertEquals(String.valueOf(i), map.get(i));
+            }
+        }
+    }
+
+    @Test
+    void putNullValue() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+}
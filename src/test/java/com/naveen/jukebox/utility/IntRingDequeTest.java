@@ -0,0 +1,55 @@
+package com.naveen.jukebox.utility;
+
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntRingDequeTest {
+
+    @Test
+    @DisplayName("Values should come out in order from both ends, across growth and wrap-around")
+    void addAndPoll() {
+        IntRingDeque deque = new IntRingDeque(2);
+        for (int i = 0; i < 6; i++) {
+            deque.addLast(i);
+        }
+        assertEquals(0, deque.pollFirst());
+        assertEquals(1, deque.pollFirst());
+        for (int i = 6; i < 20; i++) {
+            deque.addLast(i);
+        }
+        deque.addFirst(1);
+        deque.addFirst(-1);
+
+        assertEquals(20, deque.size());
+        assertEquals(-1, deque.get(0));
+        assertEquals(19, deque.get(19));
+        int[] expected = new int[20];
+        expected[0] = -1;
+        expected[1] = 1;
+        for (int i = 2; i < 20; i++) {
+            expected[i] = i;
+        }
+        assertArrayEquals(expected, deque.toArray());
+        for (int value : expected) {
+            assertEquals(value, deque.pollFirst());
+        }
+        assertTrue(deque.isEmpty());
+        assertThrows(NoSuchElementException.class, deque::pollFirst);
+        assertThrows(IndexOutOfBoundsException.class, () -> deque.get(0));
+    }
+
+    @Test
+    @DisplayName("A deque created empty should allocate on the first value from either end")
+    void lazyBuffer() {
+        IntRingDeque deque = new IntRingDeque();
+        assertTrue(deque.isEmpty());
+        assertArrayEquals(new int[0], deque.toArray());
+        deque.addFirst(3);
+        deque.addLast(4);
+        assertArrayEquals(new int[]{3, 4}, deque.toArray());
+    }
+}
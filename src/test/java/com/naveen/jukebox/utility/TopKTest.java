@@ -0,0 +1,27 @@
+package com.naveen.jukebox.utility;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    @DisplayName("Only the best k entries should be kept, best first and ties by ascending ID")
+    void keepsBest() {
+        TopK top = new TopK(3);
+        top.offer(5, 1.0);
+        top.offer(9, 4.0);
+        top.offer(2, 2.0);
+        assertTrue(top.isFull());
+        assertFalse(top.offer(7, 0.5));
+        assertTrue(top.offer(1, 2.0));
+        assertTrue(top.offer(3, 4.0));
+
+        assertEquals(2.0, top.worstScore(), 0.0);
+        assertArrayEquals(new int[]{3, 9, 1}, top.toSortedIds());
+        assertArrayEquals(new int[]{3, 9, 1}, top.toSortedIds());
+        assertEquals(3, top.size());
+    }
+}